@@ -0,0 +1,146 @@
+package io.zdp.node.common;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point amounts as longs of smallest units, 1 = 10^-8.
+ *
+ * Balances, transfer amounts and fees are kept and computed in units; decimal strings and BigDecimal are only used for JSON and display.
+ */
+public final class Amount {
+
+	public static final int SCALE = 8;
+
+	public static final long UNIT = 100000000L;
+
+	private Amount() {
+	}
+
+	/**
+	 * Units of a plain decimal string like "12.5", at most 8 significant decimals
+	 *
+	 * @throws NumberFormatException if not a plain decimal number
+	 * @throws ArithmeticException if it has more decimals than units can hold or doesn't fit into a long
+	 */
+	public static long parse(String value) {
+
+		if (value == null || value.isEmpty()) {
+			throw new NumberFormatException("Empty amount");
+		}
+
+		long units = 0;
+		int decimals = -1;
+		boolean digits = false;
+
+		for (int i = 0; i < value.length(); i++) {
+
+			final char c = value.charAt(i);
+
+			if (c == '.') {
+
+				if (decimals >= 0) {
+					throw new NumberFormatException("Not an amount: " + value);
+				}
+
+				decimals = 0;
+
+			} else if (c >= '0' && c <= '9') {
+
+				digits = true;
+
+				if (decimals < 0) {
+					units = Math.addExact(Math.multiplyExact(units, 10), c - '0');
+				} else if (++decimals <= SCALE) {
+					units = Math.addExact(Math.multiplyExact(units, 10), c - '0');
+				} else if (c != '0') {
+					throw new ArithmeticException("Too many decimals: " + value);
+				}
+
+			} else {
+				throw new NumberFormatException("Not an amount: " + value);
+			}
+
+		}
+
+		if (false == digits) {
+			throw new NumberFormatException("Not an amount: " + value);
+		}
+
+		for (int i = Math.max(decimals, 0); i < SCALE; i++) {
+			units = Math.multiplyExact(units, 10);
+		}
+
+		return units;
+
+	}
+
+	/**
+	 * Plain decimal string without trailing zeros, e.g. "12.5" or "100"
+	 */
+	public static String toString(long units) {
+
+		final StringBuilder sb = new StringBuilder(24);
+
+		if (units < 0) {
+			sb.append('-');
+		}
+
+		final long whole = Math.abs(units / UNIT);
+		long fraction = Math.abs(units % UNIT);
+
+		sb.append(whole);
+
+		if (fraction != 0) {
+
+			int length = SCALE;
+
+			while (fraction % 10 == 0) {
+				fraction /= 10;
+				length--;
+			}
+
+			final String digits = Long.toString(fraction);
+
+			sb.append('.');
+
+			for (int i = digits.length(); i < length; i++) {
+				sb.append('0');
+			}
+
+			sb.append(digits);
+
+		}
+
+		return sb.toString();
+
+	}
+
+	public static BigDecimal toBigDecimal(long units) {
+		return BigDecimal.valueOf(units, SCALE);
+	}
+
+	/**
+	 * Units of the value, extra decimals are cut off
+	 *
+	 * @throws ArithmeticException if it doesn't fit into a long
+	 */
+	public static long fromBigDecimal(BigDecimal value) {
+		return value.setScale(SCALE, RoundingMode.DOWN).unscaledValue().longValueExact();
+	}
+
+	/**
+	 * @throws ArithmeticException on overflow
+	 */
+	public static long add(long a, long b) {
+		return Math.addExact(a, b);
+	}
+
+	/**
+	 * @throws ArithmeticException on overflow
+	 */
+	public static long subtract(long a, long b) {
+		return Math.subtractExact(a, b);
+	}
+
+}
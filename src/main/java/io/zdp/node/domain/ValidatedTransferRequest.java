@@ -1,11 +1,10 @@
 package io.zdp.node.domain;
 
 import java.io.Serializable;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 
 import io.zdp.api.model.v1.TransferRequest;
 import io.zdp.crypto.account.ZDPAccountUuid;
+import io.zdp.node.common.Amount;
 import io.zdp.node.storage.account.domain.Account;
 
 @SuppressWarnings("serial")
@@ -21,9 +20,10 @@ public final class ValidatedTransferRequest implements Serializable {
 
 	private Account toAccount;
 
-	private BigDecimal amount;
+	// Amounts in units, see Amount
+	private long amount;
 
-	private BigDecimal fee;
+	private long fee;
 
 	private byte[] transactionSignature;
 
@@ -33,6 +33,9 @@ public final class ValidatedTransferRequest implements Serializable {
 
 	private long time;
 
+	// Shared by the transfers of a hot account group, null if the transfer locks its accounts on its own
+	private String lockUuid;
+
 	public byte[] getTransactionSignature() {
 		return transactionSignature;
 	}
@@ -57,11 +60,11 @@ public final class ValidatedTransferRequest implements Serializable {
 		this.time = time;
 	}
 
-	public BigDecimal getAmount() {
-		return amount.setScale(8, RoundingMode.HALF_DOWN);
+	public long getAmount() {
+		return amount;
 	}
 
-	public void setAmount(BigDecimal amount) {
+	public void setAmount(long amount) {
 		this.amount = amount;
 	}
 
@@ -73,6 +76,14 @@ public final class ValidatedTransferRequest implements Serializable {
 		this.transactionUuid = transactionUuid;
 	}
 
+	public String getLockUuid() {
+		return lockUuid;
+	}
+
+	public void setLockUuid(String lockUuid) {
+		this.lockUuid = lockUuid;
+	}
+
 	public TransferRequest getRequest() {
 		return request;
 	}
@@ -113,15 +124,18 @@ public final class ValidatedTransferRequest implements Serializable {
 		this.toAccount = toAccount;
 	}
 
-	public BigDecimal getTotalAmount() {
-		return amount.add(fee).setScale(8, RoundingMode.HALF_DOWN);
+	/**
+	 * @throws ArithmeticException on overflow
+	 */
+	public long getTotalAmount() {
+		return Amount.add(amount, fee);
 	}
 
-	public BigDecimal getFee() {
-		return fee.setScale(8, RoundingMode.HALF_DOWN);
+	public long getFee() {
+		return fee;
 	}
 
-	public void setFee(BigDecimal fee) {
+	public void setFee(long fee) {
 		this.fee = fee;
 	}
 
@@ -0,0 +1,23 @@
+package io.zdp.node.error;
+
+/**
+ * The node is saturated and didn't start the request, it may be retried after a while
+ */
+@SuppressWarnings("serial")
+public class OverloadedException extends RuntimeException {
+
+	private final long retryAfter;
+
+	public OverloadedException(String message, long retryAfter) {
+		super(message);
+		this.retryAfter = retryAfter;
+	}
+
+	/**
+	 * Suggested delay before retrying, ms
+	 */
+	public long getRetryAfter() {
+		return retryAfter;
+	}
+
+}
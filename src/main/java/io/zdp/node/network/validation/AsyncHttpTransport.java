@@ -0,0 +1,239 @@
+package io.zdp.node.network.validation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.zdp.api.model.v1.GetBalanceRequest;
+import io.zdp.api.model.v1.GetBalanceResponse;
+import io.zdp.model.network.NetworkNode;
+import io.zdp.node.web.api.validation.Urls;
+import io.zdp.node.web.api.client.model.GetBalancesRequest;
+import io.zdp.node.web.api.client.model.GetBalancesResponse;
+import io.zdp.node.web.api.validation.model.ValidationCommitRequest;
+import io.zdp.node.web.api.validation.model.ValidationPingResponse;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchResponse;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferResponse;
+
+/**
+ * Non-blocking HTTP transport for validation node calls.
+ *
+ * Calls are multiplexed by the client's own I/O reactor, so the number of calls in flight is bounded by connections, not threads.
+ * Responses are decoded and handed to callers on a separate worker pool, so slow callbacks don't stall the reactor.
+ */
+@Service
+public class AsyncHttpTransport implements ValidationTransport {
+
+	private Logger log = LoggerFactory.getLogger( this.getClass() );
+
+	@Value ( "${validation.network.max.connections.per.node:2000}" )
+	private int maxConnectionsPerNode;
+
+	@Value ( "${validation.network.max.connections:20000}" )
+	private int maxConnections;
+
+	@Value ( "${validation.network.connect.timeout:2000}" )
+	private int connectTimeout;
+
+	@Value ( "${validation.network.timeout:5000}" )
+	private int timeout;
+
+	@Value ( "${validation.network.io.threads:0}" )
+	private int ioThreads;
+
+	@Value ( "${validation.network.worker.threads:0}" )
+	private int workerThreads;
+
+	private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+	private CloseableHttpAsyncClient httpClient;
+
+	private ExecutorService workers;
+
+	@PostConstruct
+	public void init ( ) {
+
+		workers = Executors.newFixedThreadPool( workerThreads > 0 ? workerThreads : Runtime.getRuntime().availableProcessors(),
+				new ThreadFactoryBuilder().setNameFormat( "validation-worker-%d" ).setDaemon( true ).build() );
+
+		final IOReactorConfig ioConfig = IOReactorConfig.custom() //
+				.setIoThreadCount( ioThreads > 0 ? ioThreads : Runtime.getRuntime().availableProcessors() ) //
+				.setSoKeepAlive( true ) //
+				.setTcpNoDelay( true ) //
+				.build();
+
+		httpClient = HttpAsyncClients.custom() //
+				.setDefaultIOReactorConfig( ioConfig ) //
+				.setMaxConnTotal( maxConnections ) //
+				.setMaxConnPerRoute( maxConnectionsPerNode ) //
+				.setDefaultRequestConfig( RequestConfig.custom() //
+						.setConnectTimeout( connectTimeout ) //
+						.setConnectionRequestTimeout( timeout ) //
+						.setSocketTimeout( timeout ) //
+						.build() ) //
+				.setThreadFactory( new ThreadFactoryBuilder().setNameFormat( "validation-io-%d" ).setDaemon( true ).build() ) //
+				.build();
+
+		httpClient.start();
+
+		log.debug( "Started async http transport: " + ioConfig );
+
+	}
+
+	@PreDestroy
+	public void close ( ) {
+
+		try {
+			httpClient.close();
+		} catch ( IOException e ) {
+			log.error( "Error: ", e );
+		}
+
+		workers.shutdownNow();
+
+	}
+
+	@Override
+	public CompletableFuture < ValidationPrepareTransferResponse > prepare ( NetworkNode node, ValidationPrepareTransferRequest request ) {
+		return post( node.getHttpBaseUrl() + Urls.URL_VOTE, request, ValidationPrepareTransferResponse.class );
+	}
+
+	@Override
+	public CompletableFuture < ValidationPrepareBatchResponse > prepare ( NetworkNode node, ValidationPrepareBatchRequest request ) {
+		return post( node.getHttpBaseUrl() + Urls.URL_VOTE_BATCH, request, ValidationPrepareBatchResponse.class );
+	}
+
+	@Override
+	public CompletableFuture < Boolean > commit ( NetworkNode node, ValidationCommitRequest request ) {
+		return post( node.getHttpBaseUrl() + Urls.URL_COMMIT, request, Boolean.class );
+	}
+
+	@Override
+	public CompletableFuture < Boolean > rollback ( NetworkNode node, ValidationPrepareTransferRequest request ) {
+		return post( node.getHttpBaseUrl() + Urls.URL_ROLLBACK, request, Boolean.class );
+	}
+
+	@Override
+	public CompletableFuture < Boolean > rollback ( NetworkNode node, ValidationPrepareBatchRequest request ) {
+		return post( node.getHttpBaseUrl() + Urls.URL_ROLLBACK_BATCH, request, Boolean.class );
+	}
+
+	@Override
+	public CompletableFuture < GetBalanceResponse > getBalance ( NetworkNode node, GetBalanceRequest request ) {
+		return post( node.getHttpBaseUrl() + io.zdp.api.model.v1.Urls.URL_GET_BALANCE, request, GetBalanceResponse.class );
+	}
+
+	@Override
+	public CompletableFuture < GetBalancesResponse > getBalances ( NetworkNode node, GetBalancesRequest request ) {
+		return post( node.getHttpBaseUrl() + Urls.URL_BALANCE_BATCH, request, GetBalancesResponse.class );
+	}
+
+	public CompletableFuture < ValidationPingResponse > ping ( NetworkNode node ) {
+		return post( node.getHttpBaseUrl() + Urls.URL_PING, Collections.emptyMap(), ValidationPingResponse.class );
+	}
+
+	/**
+	 * POST request as JSON, the future completes with the decoded response on a worker thread. Cancelling the future aborts the HTTP
+	 * call.
+	 */
+	public < T > CompletableFuture < T > post ( final String url, final Object request, final Class < T > responseType ) {
+
+		final CompletableFuture < T > result = new CompletableFuture<>();
+
+		try {
+
+			final HttpPost post = new HttpPost( url );
+			post.setEntity( new ByteArrayEntity( mapper.writeValueAsBytes( request ), ContentType.APPLICATION_JSON ) );
+
+			final Future < HttpResponse > call = httpClient.execute( post, new FutureCallback < HttpResponse >() {
+
+				@Override
+				public void completed ( HttpResponse response ) {
+					onWorker( result, ( ) -> decode( url, response, responseType, result ) );
+				}
+
+				@Override
+				public void failed ( Exception ex ) {
+					onWorker( result, ( ) -> result.completeExceptionally( ex ) );
+				}
+
+				@Override
+				public void cancelled ( ) {
+					result.cancel( false );
+				}
+
+			} );
+
+			result.whenComplete( ( r, e ) -> {
+				if ( result.isCancelled() ) {
+					call.cancel( true );
+				}
+			} );
+
+		} catch ( Exception e ) {
+			result.completeExceptionally( e );
+		}
+
+		return result;
+
+	}
+
+	private < T > void decode ( String url, HttpResponse response, Class < T > responseType, CompletableFuture < T > result ) {
+
+		final int status = response.getStatusLine().getStatusCode();
+
+		if ( status < 200 || status >= 300 ) {
+			result.completeExceptionally( new IOException( "HTTP " + status + " from " + url ) );
+			return;
+		}
+
+		try ( InputStream in = response.getEntity().getContent() ) {
+			result.complete( mapper.readValue( in, responseType ) );
+		} catch ( Exception e ) {
+			result.completeExceptionally( e );
+		}
+
+	}
+
+	/**
+	 * Leaves the I/O thread; once the transport is closed the call just fails
+	 */
+	private void onWorker ( CompletableFuture < ? > result, Runnable task ) {
+
+		try {
+			workers.execute( task );
+		} catch ( RejectedExecutionException e ) {
+			result.completeExceptionally( e );
+		}
+
+	}
+
+}
@@ -0,0 +1,320 @@
+package io.zdp.node.network.validation;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.zdp.model.network.NetworkNode;
+import io.zdp.node.network.validation.NodeCircuitBreaker.State;
+import io.zdp.node.storage.transfer.dao.CommitOutboxDao;
+import io.zdp.node.web.api.validation.model.ValidationCommitRequest;
+
+/**
+ * Delivers commit requests to validation nodes in the background.
+ *
+ * Requests are stored in the outbox before the transfer returns and removed once every node accepted them. Every round sends up to
+ * <code>validation.commit.batch.size</code> due requests to the nodes that haven't accepted them yet; failed deliveries are retried with
+ * exponential backoff up to <code>validation.commit.max.attempts</code> times, then the request is kept aside as a dead letter. Nodes with
+ * an open circuit are skipped until it closes.
+ *
+ * Due requests go out oldest first, so a full round never holds back an older commit of an account behind newer ones.
+ */
+@Service
+public class CommitOutbox {
+
+	private Logger log = LoggerFactory.getLogger( this.getClass() );
+
+	@Autowired
+	private CommitOutboxDao dao;
+
+	@Autowired
+	private ValidationTransport transport;
+
+	@Autowired
+	private NetworkValidationTopologyService networkNodeService;
+
+	@Autowired
+	private NodeCircuitBreaker circuitBreaker;
+
+	@Value ( "${validation.commit.interval:20}" )
+	private long interval;
+
+	@Value ( "${validation.commit.batch.size:256}" )
+	private int batchSize;
+
+	@Value ( "${validation.commit.backoff.min:100}" )
+	private long minBackoff;
+
+	@Value ( "${validation.commit.backoff.max:30000}" )
+	private long maxBackoff;
+
+	@Value ( "${validation.commit.max.attempts:50}" )
+	private int maxAttempts;
+
+	@Value ( "${validation.network.timeout:5000}" )
+	private long timeout;
+
+	private ScheduledExecutorService scheduler;
+
+	// In the order the requests were added
+	private final Map < Long, Entry > entries = new ConcurrentSkipListMap<>();
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	private final class Entry {
+
+		private final long seq = sequence.incrementAndGet();
+
+		private final ValidationCommitRequest request;
+
+		// Completes once every node with a closed circuit accepted the request, or it was given up on
+		private final CompletableFuture < Void > done = new CompletableFuture<>();
+
+		// Uuids of the nodes still to deliver to, null until the first round
+		private Set < String > pendingNodes;
+
+		private int attempts;
+
+		private long nextAttempt;
+
+		private boolean inFlight;
+
+		private Entry ( ValidationCommitRequest request ) {
+			this.request = request;
+		}
+
+	}
+
+	@PostConstruct
+	public void init ( ) {
+
+		scheduler = Executors.newSingleThreadScheduledExecutor( new ThreadFactoryBuilder().setNameFormat( "commit-outbox" ).setDaemon( true ).build() );
+
+		// Left over from the last run
+		dao.findAll().forEach( req -> put( new Entry( req ) ) );
+
+		log.info( "Commit outbox: " + entries.size() + " pending request(s)" );
+
+		scheduler.scheduleWithFixedDelay( this::dispatch, interval, interval, TimeUnit.MILLISECONDS );
+
+	}
+
+	@PreDestroy
+	public void close ( ) {
+		scheduler.shutdownNow();
+	}
+
+	/**
+	 * Store the signed commit request, it is sent on the next round. The future completes once every node with a closed circuit accepted it
+	 * or it was given up on, nodes with an open circuit still get it once their circuit closes.
+	 * 
+	 * If the request can't be stored it is still delivered while this node runs, but the future completes with the storage failure then.
+	 */
+	public CompletableFuture < Void > add ( ValidationCommitRequest req ) {
+
+		final Entry entry = new Entry( req );
+
+		try {
+			dao.add( req );
+		} catch ( DataAccessException e ) {
+
+			log.error( "Commit " + req.getRequestUuid() + " is not durable, it is lost if this node stops before delivery: ", e );
+
+			put( entry );
+
+			return entry.done.thenRun( ( ) -> {
+				throw e;
+			} );
+
+		}
+
+		put( entry );
+
+		return entry.done;
+
+	}
+
+	private void put ( Entry entry ) {
+		entries.put( entry.seq, entry );
+	}
+
+	public int getPendingCount ( ) {
+		return entries.size();
+	}
+
+	/**
+	 * Requests given up on, kept in the outbox's dead letter folder
+	 */
+	public int getDeadLetterCount ( ) {
+		return dao.countDeadLetters();
+	}
+
+	private void dispatch ( ) {
+
+		try {
+
+			final long now = System.currentTimeMillis();
+
+			final List < Entry > due = new ArrayList<>();
+
+			for ( final Entry e : entries.values() ) {
+
+				synchronized ( e ) {
+					if ( false == e.inFlight && e.nextAttempt <= now ) {
+						e.inFlight = true;
+						due.add( e );
+					}
+				}
+
+				if ( due.size() >= batchSize ) {
+					break;
+				}
+
+			}
+
+			if ( due.isEmpty() ) {
+				return;
+			}
+
+			final List < NetworkNode > nodes = networkNodeService.getNodes();
+
+			log.debug( "Send " + due.size() + " commit(s) to " + nodes.size() + " node(s)" );
+
+			due.forEach( e -> send( e, nodes ) );
+
+		} catch ( Exception e ) {
+			log.error( "Error: ", e );
+		}
+
+	}
+
+	private void send ( final Entry entry, final List < NetworkNode > nodes ) {
+
+		final Set < String > pending;
+
+		synchronized ( entry ) {
+
+			if ( entry.pendingNodes == null ) {
+				entry.pendingNodes = nodes.stream().map( NetworkNode::getUuid ).collect( Collectors.toSet() );
+			}
+
+			// Nodes that left the network are not waited for
+			entry.pendingNodes.retainAll( nodes.stream().map( NetworkNode::getUuid ).collect( Collectors.toSet() ) );
+
+			pending = new HashSet<>( entry.pendingNodes );
+
+		}
+
+		final List < CommitTask > tasks = nodes.stream() //
+				.filter( n -> pending.contains( n.getUuid() ) ) //
+				.filter( circuitBreaker::allowRequest ) //
+				.map( n -> new CommitTask( n, transport, entry.request ) ) //
+				.collect( Collectors.toList() );
+
+		if ( tasks.isEmpty() ) {
+			completeRound( entry, nodes );
+			return;
+		}
+
+		final CompletableFuture < ? > [ ] calls = new CompletableFuture < ? > [ tasks.size() ];
+
+		for ( int i = 0; i < tasks.size(); i++ ) {
+
+			final CommitTask task = tasks.get( i );
+
+			final CompletableFuture < Boolean > call = task.execute();
+
+			final ScheduledFuture < ? > expiry = scheduler.schedule( task::cancel, timeout, TimeUnit.MILLISECONDS );
+
+			calls[i] = call.handle( ( accepted, e ) -> {
+
+				expiry.cancel( false );
+
+				if ( e == null ) {
+					circuitBreaker.onSuccess( task.getNode() );
+				} else {
+					circuitBreaker.onFailure( task.getNode() );
+				}
+
+				if ( Boolean.TRUE.equals( accepted ) ) {
+					synchronized ( entry ) {
+						entry.pendingNodes.remove( task.getNode().getUuid() );
+					}
+				}
+
+				return null;
+
+			} );
+
+		}
+
+		CompletableFuture.allOf( calls ).whenComplete( ( r, e ) -> completeRound( entry, nodes ) );
+
+	}
+
+	private void completeRound ( final Entry entry, final List < NetworkNode > nodes ) {
+
+		final String uuid = entry.request.getRequestUuid();
+
+		final boolean delivered;
+
+		synchronized ( entry ) {
+
+			entry.inFlight = false;
+
+			delivered = entry.pendingNodes.isEmpty();
+
+			if ( delivered ) {
+				log.debug( "Commit delivered: " + uuid );
+			} else if ( ++entry.attempts >= maxAttempts ) {
+				log.warn( "Commit " + uuid + " not delivered to " + entry.pendingNodes + " after " + entry.attempts + " attempt(s), keep as dead letter" );
+			} else {
+
+				entry.nextAttempt = System.currentTimeMillis() + Math.min( maxBackoff, minBackoff << Math.min( entry.attempts - 1, 20 ) );
+
+				// Only nodes that are down are left, don't hold up whoever waits for the commit until they are back
+				if ( nodes.stream().filter( n -> entry.pendingNodes.contains( n.getUuid() ) ).noneMatch( n -> circuitBreaker.getState( n ) == State.CLOSED ) ) {
+					entry.done.complete( null );
+				}
+
+				return;
+
+			}
+
+		}
+
+		entries.remove( entry.seq );
+
+		if ( delivered ) {
+			dao.remove( uuid );
+		} else {
+			dao.deadLetter( uuid );
+		}
+
+		entry.done.complete( null );
+
+	}
+
+}
@@ -1,35 +1,29 @@
 package io.zdp.node.network.validation;
 
-import org.springframework.web.client.RestTemplate;
+import java.util.concurrent.CompletableFuture;
 
+import io.zdp.model.network.NetworkNode;
 import io.zdp.node.web.api.validation.model.ValidationCommitRequest;
 
-public class CommitTask implements Runnable {
-
-	private String url;
-
-	private RestTemplate template;
+public class CommitTask extends ValidationTask < Boolean > {
 
 	private ValidationCommitRequest request;
 
-	private boolean response;
-
-	public CommitTask ( String url, RestTemplate template, ValidationCommitRequest request ) {
-		super();
-		this.url = url;
-		this.template = template;
+	public CommitTask ( NetworkNode node, ValidationTransport transport, ValidationCommitRequest request ) {
+		super( node, transport );
 		this.request = request;
 	}
 
-	public boolean getResponse ( ) {
-		return response;
-	}
-
 	@Override
-	public void run ( ) {
+	protected CompletableFuture < Boolean > send ( ) {
+
+		return transport.commit( node, request );
 
-		response = template.postForObject( url, request, Boolean.class );
+	}
 
+	@Override
+	public String toString ( ) {
+		return "CommitTask [node=" + node.getUuid() + ", response=" + getResponse() + "]";
 	}
 
 }
@@ -0,0 +1,14 @@
+package io.zdp.node.network.validation;
+
+/**
+ * How much of the validation network a balance query waits for.
+ *
+ * LOCAL - local state only, QUORUM - until a majority of the network (this node included) agrees on the height, ALL - every node
+ */
+public enum ConsistencyLevel {
+
+	LOCAL, //
+	QUORUM, //
+	ALL //
+
+}
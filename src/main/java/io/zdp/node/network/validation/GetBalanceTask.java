@@ -1,41 +1,30 @@
 package io.zdp.node.network.validation;
 
-import org.springframework.web.client.RestTemplate;
+import java.util.concurrent.CompletableFuture;
 
 import io.zdp.api.model.v1.GetBalanceRequest;
 import io.zdp.api.model.v1.GetBalanceResponse;
+import io.zdp.model.network.NetworkNode;
 
-public class GetBalanceTask implements Runnable {
-
-	private String url;
-
-	private RestTemplate template;
+public class GetBalanceTask extends ValidationTask < GetBalanceResponse > {
 
 	private GetBalanceRequest request;
 
-	private GetBalanceResponse response;
-
-	public GetBalanceTask ( String url, RestTemplate template, GetBalanceRequest request ) {
-		super();
-		this.url = url;
-		this.template = template;
+	public GetBalanceTask ( NetworkNode node, ValidationTransport transport, GetBalanceRequest request ) {
+		super( node, transport );
 		this.request = request;
 	}
 
 	@Override
-	public void run ( ) {
+	protected CompletableFuture < GetBalanceResponse > send ( ) {
 
-		response = template.postForObject( url, request, GetBalanceResponse.class );
-
-	}
+		return transport.getBalance( node, request );
 
-	public GetBalanceResponse getResponse ( ) {
-		return response;
 	}
 
 	@Override
 	public String toString ( ) {
-		return "GetBalanceTask [url=" + url + ", request=" + request + ", response=" + response + "]";
+		return "GetBalanceTask [node=" + node.getUuid() + ", request=" + request + ", response=" + getResponse() + "]";
 	}
 
 }
@@ -0,0 +1,30 @@
+package io.zdp.node.network.validation;
+
+import java.util.concurrent.CompletableFuture;
+
+import io.zdp.model.network.NetworkNode;
+import io.zdp.node.web.api.client.model.GetBalancesRequest;
+import io.zdp.node.web.api.client.model.GetBalancesResponse;
+
+public class GetBalancesTask extends ValidationTask < GetBalancesResponse > {
+
+	private GetBalancesRequest request;
+
+	public GetBalancesTask ( NetworkNode node, ValidationTransport transport, GetBalancesRequest request ) {
+		super( node, transport );
+		this.request = request;
+	}
+
+	@Override
+	protected CompletableFuture < GetBalancesResponse > send ( ) {
+
+		return transport.getBalances( node, request );
+
+	}
+
+	@Override
+	public String toString ( ) {
+		return "GetBalancesTask [node=" + node.getUuid() + ", request=" + request + "]";
+	}
+
+}
@@ -0,0 +1,157 @@
+package io.zdp.node.network.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.zdp.crypto.Signing;
+import io.zdp.node.service.NodeConfigurationService;
+import io.zdp.node.web.api.validation.model.MerkleProof;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferRequest;
+
+/**
+ * Signs prepare requests queued within a short window (or up to a maximum batch size) with one signature over the Merkle root of their hash data.
+ * Every request gets the root signature and its own inclusion proof.
+ */
+@Service
+public class MerkleBatchSigner {
+
+	private Logger log = LoggerFactory.getLogger( this.getClass() );
+
+	@Autowired
+	private NodeConfigurationService nodeConfig;
+
+	@Value ( "${validation.signing.window:0}" )
+	private long window;
+
+	@Value ( "${validation.signing.batch.size:1024}" )
+	private int maxBatchSize;
+
+	private ScheduledExecutorService scheduler;
+
+	private List < Pending > pending = new ArrayList<>();
+
+	private ScheduledFuture < ? > scheduledFlush;
+
+	private static final class Pending {
+
+		private final ValidationPrepareTransferRequest request;
+
+		private final CompletableFuture < ValidationPrepareTransferRequest > signed = new CompletableFuture<>();
+
+		private Pending ( ValidationPrepareTransferRequest request ) {
+			this.request = request;
+		}
+
+	}
+
+	@PostConstruct
+	public void init ( ) {
+
+		scheduler = Executors.newSingleThreadScheduledExecutor( new ThreadFactoryBuilder().setNameFormat( "merkle-signer" ).setDaemon( true ).build() );
+
+		log.info( "Merkle batch signing: " + ( isEnabled() ? "window " + window + " ms, max " + maxBatchSize : "disabled" ) );
+
+	}
+
+	@PreDestroy
+	public void close ( ) {
+		flush();
+		scheduler.shutdown();
+	}
+
+	public boolean isEnabled ( ) {
+		return window > 0;
+	}
+
+	/**
+	 * Queue the request for signing, the future completes with the same request once signed
+	 */
+	public CompletableFuture < ValidationPrepareTransferRequest > sign ( ValidationPrepareTransferRequest request ) {
+
+		final Pending p = new Pending( request );
+
+		boolean full = false;
+
+		synchronized ( this ) {
+
+			pending.add( p );
+
+			if ( pending.size() >= maxBatchSize ) {
+				full = true;
+			} else if ( scheduledFlush == null ) {
+				scheduledFlush = scheduler.schedule( this::flush, window, TimeUnit.MILLISECONDS );
+			}
+
+		}
+
+		if ( full ) {
+			flush();
+		}
+
+		return p.signed;
+
+	}
+
+	/**
+	 * Sign everything queued so far
+	 */
+	public void flush ( ) {
+
+		final List < Pending > batch;
+
+		synchronized ( this ) {
+
+			if ( scheduledFlush != null ) {
+				scheduledFlush.cancel( false );
+				scheduledFlush = null;
+			}
+
+			if ( pending.isEmpty() ) {
+				return;
+			}
+
+			batch = pending;
+			pending = new ArrayList<>();
+
+		}
+
+		try {
+
+			final MerkleProof.Tree tree = MerkleProof.build( batch.stream().map( p -> p.request.toHashData() ).collect( Collectors.toList() ) );
+
+			final byte [ ] signature = Signing.sign( nodeConfig.getNode().getECPrivateKey(), tree.getRoot() );
+
+			log.debug( "Signed " + batch.size() + " request(s) with one signature" );
+
+			for ( int i = 0; i < batch.size(); i++ ) {
+				final Pending p = batch.get( i );
+				p.request.setSignedRequest( signature );
+				p.request.setSignatureProof( tree.getProofs().get( i ) );
+				p.signed.complete( p.request );
+			}
+
+		} catch ( Exception e ) {
+			log.error( "Error: ", e );
+			batch.forEach( p -> p.signed.completeExceptionally( e ) );
+		}
+
+	}
+
+}
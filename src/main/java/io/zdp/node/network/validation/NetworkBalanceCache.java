@@ -0,0 +1,117 @@
+package io.zdp.node.network.validation;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import io.zdp.api.model.v1.GetBalanceRequest;
+import io.zdp.api.model.v1.GetBalanceResponse;
+
+/**
+ * Network view on account balances.
+ *
+ * Concurrent lookups of the same account share one fan-out, and its result is reused for <code>validation.balance.cache.ttl</code> ms
+ * unless the local account moved past the height the network reported.
+ */
+@Service
+public class NetworkBalanceCache {
+
+	private Logger log = LoggerFactory.getLogger( this.getClass() );
+
+	@Autowired
+	private ValidationNetworkClient validationNetworkClient;
+
+	@Value ( "${validation.balance.cache.ttl:1000}" )
+	private long ttl;
+
+	@Value ( "${validation.balance.cache.size:100000}" )
+	private long maxSize;
+
+	private Cache < String, Cached > cache;
+
+	private final Map < String, CompletableFuture < GetBalanceResponse > > inFlight = new ConcurrentHashMap<>();
+
+	private static final class Cached {
+
+		private final GetBalanceResponse response;
+
+		// Highest height known when the network answered
+		private final long height;
+
+		private Cached ( GetBalanceResponse response, long localHeight ) {
+			this.response = response;
+			this.height = Math.max( localHeight, response.getHeight() );
+		}
+
+	}
+
+	@PostConstruct
+	public void init ( ) {
+		cache = CacheBuilder.newBuilder().maximumSize( maxSize ).expireAfterWrite( Math.max( ttl, 1 ), TimeUnit.MILLISECONDS ).build();
+	}
+
+	/**
+	 * Network balance of the account, the returned response is shared and must not be modified
+	 */
+	public GetBalanceResponse getBalance ( GetBalanceRequest request, ConsistencyLevel level, long localHeight ) throws Exception {
+
+		// QUORUM answers are not good enough for ALL queries
+		final String accountUuid = level + ":" + request.getAccountUuid();
+
+		final Cached cached = ttl > 0 ? cache.getIfPresent( accountUuid ) : null;
+
+		if ( cached != null && localHeight <= cached.height ) {
+			return cached.response;
+		}
+
+		final CompletableFuture < GetBalanceResponse > mine = new CompletableFuture<>();
+
+		final CompletableFuture < GetBalanceResponse > running = inFlight.putIfAbsent( accountUuid, mine );
+
+		if ( running != null ) {
+
+			log.debug( "Join balance lookup in flight: " + accountUuid );
+
+			try {
+				return running.get();
+			} catch ( ExecutionException e ) {
+				throw e.getCause() instanceof Exception ? ( Exception ) e.getCause() : e;
+			}
+
+		}
+
+		try {
+
+			final GetBalanceResponse resp = validationNetworkClient.getBalance( request, new GetBalanceResponse(), level, localHeight );
+
+			if ( ttl > 0 ) {
+				cache.put( accountUuid, new Cached( resp, localHeight ) );
+			}
+
+			mine.complete( resp );
+
+			return resp;
+
+		} catch ( Exception e ) {
+			mine.completeExceptionally( e );
+			throw e;
+		} finally {
+			inFlight.remove( accountUuid, mine );
+		}
+
+	}
+
+}
@@ -0,0 +1,184 @@
+package io.zdp.node.network.validation;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.zdp.model.network.NetworkNode;
+import io.zdp.node.web.api.validation.model.ValidationPingResponse;
+
+/**
+ * Circuit breaker per validation node.
+ *
+ * CLOSED - calls go through; opens after a number of consecutive failures or timeouts.
+ * OPEN - node is skipped, once the open period is over it gets a single ping as a probe.
+ * HALF_OPEN - probe in flight, node is still skipped; closes if the probe answers, opens again otherwise.
+ */
+@Service
+public class NodeCircuitBreaker {
+
+	private Logger log = LoggerFactory.getLogger( this.getClass() );
+
+	public static enum State {
+		CLOSED, //
+		OPEN, //
+		HALF_OPEN //
+	}
+
+	@Autowired
+	private AsyncHttpTransport httpTransport;
+
+	@Value ( "${validation.network.breaker.failures:5}" )
+	private int failureThreshold;
+
+	@Value ( "${validation.network.breaker.open:5000}" )
+	private long openPeriod;
+
+	@Value ( "${validation.network.timeout:5000}" )
+	private long timeout;
+
+	private ScheduledExecutorService scheduler;
+
+	private final Map < String, Breaker > breakers = new ConcurrentHashMap<>();
+
+	private static final class Breaker {
+
+		private State state = State.CLOSED;
+
+		private int failures;
+
+		private long openedAt;
+
+	}
+
+	@PostConstruct
+	public void init ( ) {
+
+		scheduler = Executors.newSingleThreadScheduledExecutor( new ThreadFactoryBuilder().setNameFormat( "validation-breaker" ).setDaemon( true ).build() );
+
+		log.info( "Circuit breaker: open after " + failureThreshold + " failure(s), probe every " + openPeriod + " ms" );
+
+	}
+
+	@PreDestroy
+	public void close ( ) {
+		scheduler.shutdownNow();
+	}
+
+	private Breaker get ( NetworkNode node ) {
+		return breakers.computeIfAbsent( node.getUuid(), u -> new Breaker() );
+	}
+
+	/**
+	 * True if calls to the node may go through. An open node whose open period is over gets probed in the background.
+	 */
+	public boolean allowRequest ( NetworkNode node ) {
+
+		final Breaker b = get( node );
+
+		synchronized ( b ) {
+
+			if ( b.state == State.CLOSED ) {
+				return true;
+			}
+
+			if ( b.state == State.OPEN && System.currentTimeMillis() - b.openedAt >= openPeriod ) {
+				b.state = State.HALF_OPEN;
+				probe( node );
+			}
+
+			return false;
+
+		}
+
+	}
+
+	public void onSuccess ( NetworkNode node ) {
+
+		final Breaker b = get( node );
+
+		synchronized ( b ) {
+			if ( b.state == State.CLOSED ) {
+				b.failures = 0;
+			}
+		}
+
+	}
+
+	/**
+	 * Failed or timed out call
+	 */
+	public void onFailure ( NetworkNode node ) {
+
+		final Breaker b = get( node );
+
+		synchronized ( b ) {
+
+			if ( b.state == State.CLOSED && ++b.failures >= failureThreshold ) {
+				log.warn( "Validation node " + node.getUuid() + " failed " + b.failures + " time(s) in a row, open circuit" );
+				open( b );
+			}
+
+		}
+
+	}
+
+	public State getState ( NetworkNode node ) {
+
+		final Breaker b = get( node );
+
+		synchronized ( b ) {
+			return b.state;
+		}
+
+	}
+
+	private void open ( Breaker b ) {
+		b.state = State.OPEN;
+		b.openedAt = System.currentTimeMillis();
+	}
+
+	private void probe ( NetworkNode node ) {
+
+		log.debug( "Probe validation node " + node.getUuid() );
+
+		final CompletableFuture < ValidationPingResponse > ping = httpTransport.ping( node );
+
+		scheduler.schedule( ( ) -> ping.cancel( true ), timeout, TimeUnit.MILLISECONDS );
+
+		ping.whenComplete( ( r, e ) -> {
+
+			final Breaker b = get( node );
+
+			synchronized ( b ) {
+
+				if ( e == null ) {
+					log.info( "Validation node " + node.getUuid() + " answered probe, close circuit" );
+					b.state = State.CLOSED;
+					b.failures = 0;
+				} else {
+					log.debug( "Validation node " + node.getUuid() + " failed probe: " + e.getMessage() );
+					open( b );
+				}
+
+			}
+
+		} );
+
+	}
+
+}
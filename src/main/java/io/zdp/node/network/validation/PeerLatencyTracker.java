@@ -0,0 +1,158 @@
+package io.zdp.node.network.validation;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.zdp.model.network.NetworkNode;
+
+/**
+ * Response time statistics per validation node: an EWMA and the percentiles of a sliding window of recent calls.
+ *
+ * Per node call deadlines and hedge delays are derived from them; nodes without enough samples get the network timeout.
+ */
+@Service
+public class PeerLatencyTracker {
+
+	private static final double EWMA_ALPHA = 0.2;
+
+	private static final int WINDOW = 256;
+
+	// Percentiles are re-sorted every that many samples
+	private static final int REFRESH = 16;
+
+	private static final int MIN_SAMPLES = 20;
+
+	@Value ( "${validation.network.timeout:5000}" )
+	private long timeout;
+
+	@Value ( "${validation.network.deadline.factor:3}" )
+	private double deadlineFactor;
+
+	@Value ( "${validation.network.deadline.min:50}" )
+	private long minDeadline;
+
+	private final Map < String, PeerLatency > peers = new ConcurrentHashMap<>();
+
+	public static final class PeerLatency {
+
+		private final long[] window = new long[WINDOW];
+
+		private int next;
+
+		private int samples;
+
+		private double ewma;
+
+		private long p50;
+
+		private long p99;
+
+		private synchronized void record ( long millis ) {
+
+			ewma = samples == 0 ? millis : EWMA_ALPHA * millis + ( 1 - EWMA_ALPHA ) * ewma;
+
+			window[next] = millis;
+			next = ( next + 1 ) % WINDOW;
+			samples++;
+
+			if ( samples <= MIN_SAMPLES || samples % REFRESH == 0 ) {
+
+				final long[] sorted = Arrays.copyOf( window, Math.min( samples, WINDOW ) );
+				Arrays.sort( sorted );
+
+				p50 = sorted[( sorted.length - 1 ) / 2];
+				p99 = sorted[( int ) Math.ceil( ( sorted.length - 1 ) * 0.99 )];
+
+			}
+
+		}
+
+		public synchronized int getSamples ( ) {
+			return samples;
+		}
+
+		public synchronized double getEwma ( ) {
+			return ewma;
+		}
+
+		public synchronized long getP50 ( ) {
+			return p50;
+		}
+
+		public synchronized long getP99 ( ) {
+			return p99;
+		}
+
+		@Override
+		public synchronized String toString ( ) {
+			return "PeerLatency [samples=" + samples + ", ewma=" + Math.round( ewma ) + ", p50=" + p50 + ", p99=" + p99 + "]";
+		}
+
+	}
+
+	private PeerLatency get ( NetworkNode node ) {
+		return peers.computeIfAbsent( node.getUuid(), u -> new PeerLatency() );
+	}
+
+	/**
+	 * Response time of a successful call
+	 */
+	public void record ( NetworkNode node, long millis ) {
+		get( node ).record( millis );
+	}
+
+	/**
+	 * Call ran past its deadline; counted as a sample of the deadline itself so the node's deadline widens instead of staying too tight
+	 */
+	public void recordTimeout ( NetworkNode node, long deadline ) {
+		get( node ).record( deadline );
+	}
+
+	public PeerLatency getLatency ( NetworkNode node ) {
+		return get( node );
+	}
+
+	/**
+	 * Expected response time, 0 for nodes never called so they get probed first
+	 */
+	public double getExpectedLatency ( NetworkNode node ) {
+		return get( node ).getEwma();
+	}
+
+	/**
+	 * How long a call to the node may run: its p99 times the deadline factor, between the minimum deadline and the network timeout
+	 */
+	public long getDeadline ( NetworkNode node ) {
+
+		final PeerLatency latency = get( node );
+
+		if ( latency.getSamples() < MIN_SAMPLES ) {
+			return timeout;
+		}
+
+		final long deadline = ( long ) Math.ceil( latency.getP99() * deadlineFactor );
+
+		return Math.max( minDeadline, Math.min( deadline, timeout ) );
+
+	}
+
+	/**
+	 * How long to wait for the node before sending the same call to a backup node: its usual p99, -1 if not known yet
+	 */
+	public long getHedgeDelay ( NetworkNode node ) {
+
+		final PeerLatency latency = get( node );
+
+		if ( latency.getSamples() < MIN_SAMPLES ) {
+			return -1;
+		}
+
+		return Math.max( 1, latency.getP99() );
+
+	}
+
+}
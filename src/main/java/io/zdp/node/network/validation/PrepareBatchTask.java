@@ -0,0 +1,30 @@
+package io.zdp.node.network.validation;
+
+import java.util.concurrent.CompletableFuture;
+
+import io.zdp.model.network.NetworkNode;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchResponse;
+
+public class PrepareBatchTask extends ValidationTask < ValidationPrepareBatchResponse > {
+
+	private ValidationPrepareBatchRequest request;
+
+	public PrepareBatchTask ( NetworkNode node, ValidationTransport transport, ValidationPrepareBatchRequest request ) {
+		super( node, transport );
+		this.request = request;
+	}
+
+	@Override
+	protected CompletableFuture < ValidationPrepareBatchResponse > send ( ) {
+
+		return transport.prepare( node, request );
+
+	}
+
+	@Override
+	public String toString ( ) {
+		return "PrepareBatchTask [node=" + node.getUuid() + ", request=" + request + "]";
+	}
+
+}
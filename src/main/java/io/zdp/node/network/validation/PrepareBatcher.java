@@ -0,0 +1,240 @@
+package io.zdp.node.network.validation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.zdp.crypto.Signing;
+import io.zdp.model.network.NetworkNode;
+import io.zdp.node.service.NodeConfigurationService;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchResponse;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferResponse;
+
+/**
+ * Coalesces prepare requests queued within a short window into one signed batch request per validation node. A node's batch that reaches
+ * the maximum size goes out at once on its own.
+ */
+@Service
+public class PrepareBatcher {
+
+	private Logger log = LoggerFactory.getLogger( this.getClass() );
+
+	@Autowired
+	private ValidationTransport transport;
+
+	@Autowired
+	private NodeConfigurationService nodeConfig;
+
+	@Value ( "${validation.network.batch.window:0}" )
+	private long window;
+
+	@Value ( "${validation.network.batch.size:256}" )
+	private int maxBatchSize;
+
+	private ScheduledExecutorService scheduler;
+
+	private Map < String, NodeBatch > pending = new HashMap<>();
+
+	private ScheduledFuture < ? > scheduledFlush;
+
+	// Last batch signed, nodes usually get the very same requests
+	private volatile ValidationPrepareBatchRequest lastSigned;
+
+	private static final class Pending {
+
+		private final ValidationPrepareTransferRequest request;
+
+		private final CompletableFuture < ValidationPrepareTransferResponse > response = new CompletableFuture<>();
+
+		private Pending ( ValidationPrepareTransferRequest request ) {
+			this.request = request;
+		}
+
+	}
+
+	private static final class NodeBatch {
+
+		private final NetworkNode node;
+
+		private final List < Pending > items = new ArrayList<>();
+
+		private NodeBatch ( NetworkNode node ) {
+			this.node = node;
+		}
+
+	}
+
+	@PostConstruct
+	public void init ( ) {
+
+		scheduler = Executors.newSingleThreadScheduledExecutor( new ThreadFactoryBuilder().setNameFormat( "prepare-batcher" ).setDaemon( true ).build() );
+
+		log.info( "Prepare batching: " + ( isEnabled() ? "window " + window + " ms, max " + maxBatchSize : "disabled" ) );
+
+	}
+
+	@PreDestroy
+	public void close ( ) {
+		flush();
+		scheduler.shutdown();
+	}
+
+	public boolean isEnabled ( ) {
+		return window > 0;
+	}
+
+	/**
+	 * Queue a prepare request for the node, the future completes with this request's vote
+	 */
+	public CompletableFuture < ValidationPrepareTransferResponse > submit ( NetworkNode node, ValidationPrepareTransferRequest request ) {
+
+		final Pending p = new Pending( request );
+
+		NodeBatch full = null;
+
+		synchronized ( this ) {
+
+			final NodeBatch nodeBatch = pending.computeIfAbsent( node.getUuid(), u -> new NodeBatch( node ) );
+
+			nodeBatch.items.add( p );
+
+			if ( nodeBatch.items.size() >= maxBatchSize ) {
+				pending.remove( node.getUuid() );
+				full = nodeBatch;
+			} else if ( scheduledFlush == null ) {
+				scheduledFlush = scheduler.schedule( this::flush, window, TimeUnit.MILLISECONDS );
+			}
+
+		}
+
+		if ( full != null ) {
+			send( Collections.singletonList( full ) );
+		}
+
+		return p.response;
+
+	}
+
+	/**
+	 * Send everything queued so far
+	 */
+	public void flush ( ) {
+
+		final Map < String, NodeBatch > batches;
+
+		synchronized ( this ) {
+
+			if ( scheduledFlush != null ) {
+				scheduledFlush.cancel( false );
+				scheduledFlush = null;
+			}
+
+			if ( pending.isEmpty() ) {
+				return;
+			}
+
+			batches = pending;
+			pending = new HashMap<>();
+
+		}
+
+		send( batches.values() );
+
+	}
+
+	private void send ( Collection < NodeBatch > batches ) {
+
+		// Nodes usually get the very same requests, sign every distinct batch once
+		final Map < List < ValidationPrepareTransferRequest >, ValidationPrepareBatchRequest > signed = new HashMap<>();
+
+		batches.forEach( nodeBatch -> {
+
+			final List < Pending > items = nodeBatch.items;
+
+			final List < ValidationPrepareTransferRequest > requests = items.stream().map( p -> p.request ).collect( Collectors.toList() );
+
+			final ValidationPrepareBatchRequest batch = signed.computeIfAbsent( requests, this::sign );
+
+			log.debug( "Send " + batch + " to " + nodeBatch.node.getUuid() );
+
+			transport.prepare( nodeBatch.node, batch ).whenComplete( ( resp, e ) -> {
+
+				for ( int i = 0; i < items.size(); i++ ) {
+
+					final CompletableFuture < ValidationPrepareTransferResponse > f = items.get( i ).response;
+
+					if ( e != null ) {
+						f.completeExceptionally( e );
+					} else if ( resp == null || resp.getResponses().size() <= i ) {
+						f.completeExceptionally( new IllegalStateException( "No vote in batch response from " + nodeBatch.node.getUuid() ) );
+					} else {
+						f.complete( resp.getResponses().get( i ) );
+					}
+
+				}
+
+			} );
+
+		} );
+
+	}
+
+	/**
+	 * Signed batch of the requests, the last one is reused if it holds the very same requests: batches that filled up went out one node
+	 * after the other
+	 */
+	private ValidationPrepareBatchRequest sign ( List < ValidationPrepareTransferRequest > requests ) {
+
+		final ValidationPrepareBatchRequest last = lastSigned;
+
+		if ( last != null && last.getRequests().equals( requests ) ) {
+			return last;
+		}
+
+		final ValidationPrepareBatchRequest batch = toBatch( requests );
+
+		lastSigned = batch;
+
+		return batch;
+
+	}
+
+	private ValidationPrepareBatchRequest toBatch ( List < ValidationPrepareTransferRequest > requests ) {
+
+		final ValidationPrepareBatchRequest batch = new ValidationPrepareBatchRequest();
+		batch.setServerUuid( nodeConfig.getNode().getUuid() );
+		batch.setRequests( requests );
+
+		try {
+			batch.setSignedRequest( Signing.sign( nodeConfig.getNode().getECPrivateKey(), batch.toHashData() ) );
+		} catch ( Exception e ) {
+			log.error( "Error: ", e );
+		}
+
+		return batch;
+
+	}
+
+}
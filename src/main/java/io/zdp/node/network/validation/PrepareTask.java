@@ -1,41 +1,45 @@
 package io.zdp.node.network.validation;
 
-import org.springframework.web.client.RestTemplate;
+import java.util.concurrent.CompletableFuture;
 
+import io.zdp.model.network.NetworkNode;
 import io.zdp.node.web.api.validation.model.ValidationPrepareTransferRequest;
 import io.zdp.node.web.api.validation.model.ValidationPrepareTransferResponse;
 
-public class PrepareTask implements Runnable {
-
-	private String url;
-
-	private RestTemplate template;
+public class PrepareTask extends ValidationTask < ValidationPrepareTransferResponse > {
 
 	private ValidationPrepareTransferRequest request;
 
-	private ValidationPrepareTransferResponse response;
+	private PrepareBatcher batcher;
 
-	public PrepareTask ( String url, RestTemplate template, ValidationPrepareTransferRequest request ) {
-		super();
-		this.url = url;
-		this.template = template;
+	public PrepareTask ( NetworkNode node, ValidationTransport transport, ValidationPrepareTransferRequest request ) {
+		super( node, transport );
 		this.request = request;
 	}
 
-	public ValidationPrepareTransferResponse getResponse ( ) {
-		return response;
+	/**
+	 * Vote through a batch request
+	 */
+	public PrepareTask ( NetworkNode node, PrepareBatcher batcher, ValidationPrepareTransferRequest request ) {
+		super( node, null );
+		this.request = request;
+		this.batcher = batcher;
 	}
 
 	@Override
-	public void run ( ) {
+	protected CompletableFuture < ValidationPrepareTransferResponse > send ( ) {
+
+		if ( batcher != null ) {
+			return batcher.submit( node, request );
+		}
 
-		response = template.postForObject( url, request, ValidationPrepareTransferResponse.class );
+		return transport.prepare( node, request );
 
 	}
 
 	@Override
 	public String toString ( ) {
-		return "PrepareTask [url=" + url + ", response=" + response + "]";
+		return "PrepareTask [node=" + node.getUuid() + ", response=" + getResponse() + "]";
 	}
 
 }
@@ -0,0 +1,83 @@
+package io.zdp.node.network.validation;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+/**
+ * How many validation nodes must approve a transfer before it is prepared.
+ *
+ * ALL - every node that answers, at least one (nodes that are down or don't answer in time don't hold up the vote), MAJORITY - majority
+ * of the network (this node counts as one approval), N - fixed number of nodes
+ */
+public final class QuorumPolicy {
+
+	public static enum Mode {
+		ALL, //
+		MAJORITY, //
+		FIXED //
+	}
+
+	private final Mode mode;
+
+	private final int votes;
+
+	private QuorumPolicy ( Mode mode, int votes ) {
+		super();
+		this.mode = mode;
+		this.votes = votes;
+	}
+
+	/**
+	 * Parse "ALL", "MAJORITY" or a number of nodes
+	 */
+	public static QuorumPolicy parse ( String value ) {
+
+		final String v = StringUtils.trimToEmpty( value ).toUpperCase();
+
+		if ( NumberUtils.isDigits( v ) ) {
+			return new QuorumPolicy( Mode.FIXED, Integer.parseInt( v ) );
+		} else if ( Mode.MAJORITY.name().equals( v ) ) {
+			return new QuorumPolicy( Mode.MAJORITY, 0 );
+		} else if ( Mode.ALL.name().equals( v ) ) {
+			return new QuorumPolicy( Mode.ALL, 0 );
+		}
+
+		throw new IllegalArgumentException( "Unknown quorum policy: " + value );
+
+	}
+
+	/**
+	 * Number of approvals required from the given number of remote nodes
+	 */
+	public int getRequiredVotes ( int nodes ) {
+
+		switch ( mode ) {
+		case MAJORITY:
+			// (nodes + 1) / 2 + 1 of the whole network, minus this node
+			return ( nodes + 1 ) / 2;
+		case FIXED:
+			return Math.min( votes, nodes );
+		default:
+			// every node that answers, which is only known once they did
+			return Math.min( 1, nodes );
+		}
+
+	}
+
+	/**
+	 * True if the vote waits for every node asked instead of stopping once the required votes are in
+	 */
+	public boolean isWaitForAll ( ) {
+		return mode == Mode.ALL;
+	}
+
+	public Mode getMode ( ) {
+		return mode;
+	}
+
+	@Override
+	public String toString ( ) {
+		return "QuorumPolicy [mode=" + mode + ", votes=" + votes + "]";
+	}
+
+}
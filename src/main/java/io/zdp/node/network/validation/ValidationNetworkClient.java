@@ -1,26 +1,41 @@
 package io.zdp.node.network.validation;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
-import org.apache.http.client.HttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import io.zdp.api.model.v1.GetBalanceRequest;
 import io.zdp.api.model.v1.GetBalanceResponse;
@@ -29,7 +44,11 @@ import io.zdp.model.network.NetworkNode;
 import io.zdp.node.domain.ValidatedTransferRequest;
 import io.zdp.node.service.NodeConfigurationService;
 import io.zdp.node.storage.account.domain.Account;
-import io.zdp.node.web.api.validation.Urls;
+import io.zdp.node.storage.transfer.domain.CurrentTransfer;
+import io.zdp.node.web.api.client.model.GetBalancesRequest;
+import io.zdp.node.web.api.client.model.GetBalancesResponse;
+import io.zdp.node.web.api.validation.model.ValidationCommitRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchRequest;
 import io.zdp.node.web.api.validation.model.ValidationPrepareTransferRequest;
 import io.zdp.node.web.api.validation.model.ValidationPrepareTransferResponse;
 import io.zdp.node.web.api.validation.model.ValidationPrepareTransferResponse.Status;
@@ -45,16 +64,65 @@ public class ValidationNetworkClient {
 	@Autowired
 	private NetworkValidationTopologyService networkNodeService;
 
-	private static final int HTTP_CLIENT_MAX_PER_ROUTE = 2000;
+	@Autowired
+	private ValidationTransport transport;
+
+	@Autowired
+	private PrepareBatcher prepareBatcher;
+
+	@Autowired
+	private MerkleBatchSigner merkleSigner;
 
-	private static final int HTTP_CLIENT_MAX_TOTAL = 20000;
+	@Autowired
+	private PeerLatencyTracker latencyTracker;
 
-	private static final int HTTP_TIMEOUT = 2000;
+	@Autowired
+	private NodeCircuitBreaker circuitBreaker;
 
-	private RestTemplate restTemplate;
+	@Autowired
+	private CommitOutbox commitOutbox;
 
 	private final ExecutorService rollbackThreadPool = Executors.newFixedThreadPool( 32 );
 
+	@Value ( "${validation.rollback.batch.size:256}" )
+	private int rollbackBatchSize;
+
+	// Rollbacks not sent yet, with the time they were requested
+	private final ConcurrentLinkedQueue < PendingRollback > rollbacks = new ConcurrentLinkedQueue<>();
+
+	private final AtomicBoolean rollbackScheduled = new AtomicBoolean();
+
+	private final AtomicInteger rollbacksInFlight = new AtomicInteger();
+
+	// Time from rollback() until every node answered, EWMA in ms
+	private volatile double rollbackLag;
+
+	private static final class PendingRollback {
+
+		private final ValidationPrepareTransferRequest request;
+
+		private final long requested = System.currentTimeMillis();
+
+		private PendingRollback ( ValidationPrepareTransferRequest request ) {
+			this.request = request;
+		}
+
+	}
+
+	@Value ( "${validation.network.timeout:5000}" )
+	private long timeout;
+
+	@Value ( "${validation.network.quorum:ALL}" )
+	private String quorum;
+
+	private QuorumPolicy quorumPolicy;
+
+	@Value ( "${validation.network.hedge:false}" )
+	private boolean hedge;
+
+	// Expires calls that ran past their node's deadline
+	private ScheduledThreadPoolExecutor scheduler;
+
 	@Autowired
 	private NodeConfigurationService nodeConfig;
 
@@ -66,16 +134,16 @@ public class ValidationNetworkClient {
 
 		synchronized ( this ) {
 
-			close();
+			if ( scheduler != null ) {
+				scheduler.shutdownNow();
+			}
 
-			restTemplate = new RestTemplate( Collections.singletonList( new MappingJackson2HttpMessageConverter() ) );
+			quorumPolicy = QuorumPolicy.parse( quorum );
 
-			HttpClient httpClient = HttpClientBuilder.create() //
-					.setMaxConnTotal( HTTP_CLIENT_MAX_TOTAL ) //
-					.setMaxConnPerRoute( HTTP_CLIENT_MAX_PER_ROUTE ) //
-					.build();
+			log.info( "Prepare quorum: " + quorumPolicy + ", hedging: " + hedge );
 
-			restTemplate.setRequestFactory( new HttpComponentsClientHttpRequestFactory( httpClient ) );
+			scheduler = new ScheduledThreadPoolExecutor( 1, new ThreadFactoryBuilder().setNameFormat( "validation-deadline" ).setDaemon( true ).build() );
+			scheduler.setRemoveOnCancelPolicy( true );
 
 		}
 	}
@@ -112,9 +180,315 @@ public class ValidationNetworkClient {
 
 	}
 
+	/**
+	 * Yes/no for each of the transfers, in order, voted on in one batch request per validation node.
+	 * 
+	 * The transfers must not share accounts, every node locks them all for the same round. Only transfers prepared under one lock uuid, the
+	 * group of a hot account, may share it: each of them holds the lock until its own commit or rollback.
+	 */
+	public List < ValidationPrepareTransferResponse > prepare ( List < ValidatedTransferRequest > reqs ) {
+
+		log.debug( "Prepare " + reqs.size() + " transfer(s)" );
+
+		final List < ValidationPrepareTransferResponse > resps = new ArrayList<>( reqs.size() );
+
+		for ( final ValidatedTransferRequest req : reqs ) {
+			final ValidationPrepareTransferResponse resp = new ValidationPrepareTransferResponse();
+			resp.setFromAccount( req.getFromAccount() );
+			resp.setToAccount( req.getToAccount() );
+			resp.setStatus( Status.APPROVED );
+			resps.add( resp );
+		}
+
+		if ( networkNodeService.getNodes().isEmpty() ) {
+			log.debug( "I am the only validation node, I am very agreeable" );
+			return resps;
+		}
+
+		final List < NetworkNode > allNodes = networkNodeService.getNodes();
+
+		final int requiredVotes = quorumPolicy.getRequiredVotes( allNodes.size() );
+
+		final List < NetworkNode > nodes = getAvailableNodes( allNodes );
+
+		if ( nodes.size() < requiredVotes ) {
+			log.info( "No quorum possible: " + nodes.size() + " of " + allNodes.size() + " node(s) available, " + requiredVotes + " required votes, cancel " + reqs.size() + " transfer(s)" );
+			resps.forEach( r -> r.setStatus( Status.REJECTED ) );
+			return resps;
+		}
+
+		final ValidationPrepareBatchRequest batch = new ValidationPrepareBatchRequest();
+		batch.setServerUuid( nodeConfig.getNode().getUuid() );
+		batch.setRequests( reqs.stream().map( this::toRequest ).collect( Collectors.toList() ) );
+
+		try {
+			batch.setSignedRequest( Signing.sign( nodeConfig.getNode().getECPrivateKey(), batch.toHashData() ) );
+		} catch ( Exception e ) {
+			log.error( "Error: ", e );
+		}
+
+		final List < PrepareBatchTask > tasks = new ArrayList<>( nodes.size() );
+
+		nodes.forEach( n -> tasks.add( new PrepareBatchTask( n, transport, batch ) ) );
+
+		// Once quorum answered every transfer has its votes or a rejection
+		final List < PrepareBatchTask > completed = fanOut( tasks, new ArrayDeque<>(), done -> false == quorumPolicy.isWaitForAll() && countBatchVotes( done, reqs.size() ) >= requiredVotes );
+
+		completed.removeIf( t -> false == isBatchVote( t, reqs.size() ) );
+
+		log.debug( "Finished voting on " + reqs.size() + " transfer(s): " + completed.size() + " of " + nodes.size() + " answered" );
+
+		for ( int i = 0; i < reqs.size(); i++ ) {
+
+			final ValidationPrepareTransferResponse resp = resps.get( i );
+
+			final List < ValidationPrepareTransferResponse > votes = new ArrayList<>( completed.size() );
+
+			for ( final PrepareBatchTask task : completed ) {
+				votes.add( task.getResponse().getResponses().get( i ) );
+			}
+
+			if ( votes.stream().anyMatch( v -> v.getStatus() == null || false == v.getStatus().equals( Status.APPROVED ) ) ) {
+				resp.setStatus( Status.REJECTED );
+			} else if ( votes.size() < requiredVotes ) {
+				resp.setStatus( Status.REJECTED );
+			} else {
+				findLatestAccount( votes, resp );
+			}
+
+		}
+
+		return resps;
+
+	}
+
+	private int countBatchVotes ( List < PrepareBatchTask > tasks, int size ) {
+		return ( int ) tasks.stream().filter( t -> isBatchVote( t, size ) ).count();
+	}
+
+	private boolean isBatchVote ( PrepareBatchTask task, int size ) {
+		return task.getResponse() != null && task.getResponse().getResponses().size() == size;
+	}
+
+	/**
+	 * Send the rollbacks still queued one last time, otherwise their accounts stay locked on the validation nodes until the leases expire,
+	 * and wait for the nodes to answer
+	 */
 	@PreDestroy
 	public void close ( ) {
 
+		rollbackThreadPool.shutdown();
+
+		try {
+
+			if ( false == rollbackThreadPool.awaitTermination( timeout, TimeUnit.MILLISECONDS ) ) {
+				log.warn( "Rollback pool did not stop in " + timeout + " ms" );
+				rollbackThreadPool.shutdownNow();
+			}
+
+			final List < CompletableFuture < ? > > calls = new ArrayList<>();
+
+			List < PendingRollback > batch;
+
+			while ( false == ( batch = pollRollbacks() ).isEmpty() ) {
+				calls.add( sendRollbacks( batch ) );
+			}
+
+			if ( false == calls.isEmpty() ) {
+				log.info( "Sent " + calls.size() + " last rollback batch(es)" );
+				CompletableFuture.allOf( calls.toArray( new CompletableFuture < ? > [ calls.size() ] ) ).get( timeout, TimeUnit.MILLISECONDS );
+			}
+
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			rollbackThreadPool.shutdownNow();
+		} catch ( Exception e ) {
+			log.warn( "Rollbacks not confirmed on close: " + e.getMessage() );
+		}
+
+		if ( false == rollbacks.isEmpty() ) {
+			log.warn( rollbacks.size() + " rollback(s) not sent" );
+		}
+
+		if ( scheduler != null ) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+
+	}
+
+	private < T extends ValidationTask < ? > > List < T > fanOut ( final List < T > tasks ) {
+		return fanOut( tasks, new ArrayDeque<>(), completed -> false );
+	}
+
+	/**
+	 * Start all calls without blocking and collect them as they complete.
+	 * Returns as soon as every call finished, the deadline has passed or <code>decided</code> accepts the calls completed so far, whichever comes first; 
+	 * calls still outstanding at that point are cancelled.
+	 * 
+	 * Each call is also cancelled once it runs past its node's own deadline. A call that fails, or that is still running after its node's usual p99, 
+	 * starts the next of the <code>backups</code>.
+	 */
+	private < T extends ValidationTask < ? > > List < T > fanOut ( final List < T > tasks, final Deque < T > backups, final Predicate < List < T > > decided ) {
+
+		final BlockingQueue < T > done = new LinkedBlockingQueue<>();
+
+		final List < T > started = new ArrayList<>( tasks.size() + backups.size() );
+
+		final List < T > completed = new ArrayList<>( tasks.size() + backups.size() );
+
+		// Running calls that would be hedged -> when
+		final Map < T, Long > hedges = new LinkedHashMap<>();
+
+		for ( final T task : tasks ) {
+			start( task, done, started, hedges, false == backups.isEmpty() );
+		}
+
+		final long deadline = System.currentTimeMillis() + timeout;
+
+		try {
+
+			int answered = 0;
+
+			while ( answered < started.size() ) {
+
+				final long now = System.currentTimeMillis();
+
+				long wait = deadline - now;
+
+				if ( backups.isEmpty() ) {
+					hedges.clear();
+				}
+
+				for ( final long at : hedges.values() ) {
+					wait = Math.min( wait, at - now );
+				}
+
+				final T task = wait > 0 ? done.poll( wait, TimeUnit.MILLISECONDS ) : done.poll();
+
+				if ( task == null ) {
+
+					hedgeSlowCalls( done, started, hedges, backups );
+
+					if ( System.currentTimeMillis() >= deadline ) {
+						log.debug( "Deadline passed, " + ( started.size() - answered ) + " node(s) did not answer" );
+						break;
+					}
+
+					continue;
+
+				}
+
+				answered++;
+
+				hedges.remove( task );
+
+				if ( false == task.isSuccessful() ) {
+
+					log.debug( "Validation node call failed: " + task.getNode().getUuid() );
+
+					if ( false == backups.isEmpty() ) {
+						start( backups.poll(), done, started, hedges, true );
+					}
+
+					continue;
+				}
+
+				completed.add( task );
+
+				if ( decided.test( completed ) ) {
+					log.debug( "Decided after " + completed.size() + " of " + started.size() + " node(s)" );
+					break;
+				}
+
+			}
+
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			log.error( "Error: ", e );
+		} finally {
+			started.forEach( ValidationTask::cancel );
+		}
+
+		return completed;
+
+	}
+
+	/**
+	 * Start the call, expire it at its node's deadline, record its response time and outcome
+	 */
+	private < T extends ValidationTask < ? > > void start ( final T task, final BlockingQueue < T > done, final List < T > started, final Map < T, Long > hedges, final boolean hedged ) {
+
+		final NetworkNode node = task.getNode();
+
+		final long nodeDeadline = latencyTracker.getDeadline( node );
+
+		final long hedgeDelay = latencyTracker.getHedgeDelay( node );
+
+		started.add( task );
+
+		if ( hedged && hedgeDelay >= 0 ) {
+			hedges.put( task, System.currentTimeMillis() + hedgeDelay );
+		}
+
+		final long startedAt = System.nanoTime();
+
+		final CompletableFuture < ? > call = task.execute();
+
+		// Scheduled once the call is running, an early expiry would find nothing to cancel
+		final ScheduledFuture < ? > expiry = scheduler.schedule( ( ) -> {
+			if ( false == task.isDone() ) {
+				log.debug( "Validation node " + node.getUuid() + " did not answer within " + nodeDeadline + " ms" );
+				latencyTracker.recordTimeout( node, nodeDeadline );
+				circuitBreaker.onFailure( node );
+				task.cancel();
+			}
+		}, nodeDeadline, TimeUnit.MILLISECONDS );
+
+		call.whenComplete( ( r, e ) -> {
+
+			expiry.cancel( false );
+
+			if ( e == null ) {
+				latencyTracker.record( node, TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - startedAt ) );
+				circuitBreaker.onSuccess( node );
+			} else if ( false == e instanceof CancellationException ) {
+				circuitBreaker.onFailure( node );
+			}
+
+			done.add( task );
+
+		} );
+
+	}
+
+	/**
+	 * Start a backup call for every call that has been running longer than its node's usual p99
+	 */
+	private < T extends ValidationTask < ? > > void hedgeSlowCalls ( final BlockingQueue < T > done, final List < T > started, final Map < T, Long > hedges, final Deque < T > backups ) {
+
+		final long now = System.currentTimeMillis();
+
+		final Iterator < Map.Entry < T, Long > > it = hedges.entrySet().iterator();
+
+		while ( it.hasNext() && false == backups.isEmpty() ) {
+
+			final Map.Entry < T, Long > e = it.next();
+
+			if ( e.getValue() <= now ) {
+
+				it.remove();
+
+				final T backup = backups.poll();
+
+				log.debug( "Validation node " + e.getKey().getNode().getUuid() + " is slow, hedge to " + backup.getNode().getUuid() );
+
+				start( backup, done, started, hedges, true );
+
+			}
+
+		}
+
 	}
 
 	private ValidationPrepareTransferResponse ask ( ValidatedTransferRequest req ) {
@@ -124,57 +498,90 @@ public class ValidationNetworkClient {
 		resp.setStatus( Status.APPROVED );
 		resp.setToAccount( req.getToAccount() );
 
-		final List < NetworkNode > nodes = networkNodeService.getNodes();
+		final List < NetworkNode > allNodes = networkNodeService.getNodes();
+
+		final int requiredVotes = quorumPolicy.getRequiredVotes( allNodes.size() );
+
+		// Nodes with an open circuit can't vote
+		final List < NetworkNode > nodes = getAvailableNodes( allNodes );
 
-		// Pool for the vote call
-		final ExecutorService threadPool = Executors.newFixedThreadPool( nodes.size() );
+		if ( nodes.size() < requiredVotes ) {
+			log.info( "No quorum possible: " + nodes.size() + " of " + allNodes.size() + " node(s) available, " + requiredVotes + " required votes, cancel transfer" );
+			resp.setStatus( Status.REJECTED );
+			return resp;
+		}
 
 		// Prepare request
 		final ValidationPrepareTransferRequest restRequest = toRequest( req );
 
-		try {
-			restRequest.setSignedRequest( Signing.sign( nodeConfig.getNode().getECPrivateKey(), restRequest.toHashData() ) );
-		} catch ( Exception e ) {
-			log.error( "Error: ", e );
+		final boolean batched = prepareBatcher.isEnabled();
+
+		// Batched requests are signed once per batch
+		if ( false == batched ) {
+			try {
+				if ( merkleSigner.isEnabled() ) {
+					// One signature over the Merkle root of the requests of concurrent transfers
+					merkleSigner.sign( restRequest ).get( timeout, TimeUnit.MILLISECONDS );
+				} else {
+					restRequest.setSignedRequest( Signing.sign( nodeConfig.getNode().getECPrivateKey(), restRequest.toHashData() ) );
+				}
+			} catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+				log.error( "Error: ", e );
+			} catch ( Exception e ) {
+				log.error( "Error: ", e );
+			}
 		}
 
 		// Create tasks
-		final List < PrepareTask > tasks = new ArrayList<>( networkNodeService.getNodes().size() );
+		final List < PrepareTask > tasks = new ArrayList<>( nodes.size() );
 
-		// Run them in parallel
-		networkNodeService.getNodes().forEach( n -> {
+		nodes.forEach( n -> {
 
 			log.debug( "Validation node: " + n.getUuid() );
 
-			final PrepareTask task = new PrepareTask( n.getHttpBaseUrl() + Urls.URL_VOTE, restTemplate, restRequest );
+			if ( batched ) {
+				tasks.add( new PrepareTask( n, prepareBatcher, restRequest ) );
+			} else {
+				tasks.add( new PrepareTask( n, transport, restRequest ) );
+			}
 
-			tasks.add( task );
+		} );
 
-			threadPool.submit( task );
+		// When hedging, ask just enough of the fastest nodes for quorum and keep the rest as backups for slow or failed ones
+		final Deque < PrepareTask > backups = new ArrayDeque<>();
 
-		} );
+		if ( hedge && false == quorumPolicy.isWaitForAll() && requiredVotes > 0 && requiredVotes < tasks.size() ) {
+
+			tasks.sort( Comparator.comparingDouble( t -> latencyTracker.getExpectedLatency( t.getNode() ) ) );
+
+			while ( tasks.size() > requiredVotes ) {
+				backups.addFirst( tasks.remove( tasks.size() - 1 ) );
+			}
 
-		try {
-			threadPool.awaitTermination( 5, TimeUnit.SECONDS );
-		} catch ( InterruptedException e ) {
-			log.error( "Error: ", e );
 		}
 
-		log.debug( "Finished voting: " );
+		// Run them in parallel, stop on the first rejection or once quorum is reached
+		final List < PrepareTask > completed = fanOut( tasks, backups, done -> isVoteDecided( done, requiredVotes ) );
+
+		log.debug( "Finished voting: " + completed.size() + " of " + nodes.size() + " answered" );
 
 		// Filter out un-fullfilled requests
-		filterOutFailedTasks( tasks );
+		filterOutFailedTasks( completed );
 
 		// Any rejections?
-		boolean anyRejections = anyRejections( tasks );
+		boolean anyRejections = anyRejections( completed );
 
 		if ( anyRejections ) {
 			log.info( "There was a rejection, cancel transfer" );
 			resp.setStatus( Status.REJECTED );
+		} else if ( completed.size() < requiredVotes ) {
+			log.info( "No quorum: " + completed.size() + " of " + requiredVotes + " required votes, cancel transfer" );
+			resp.setStatus( Status.REJECTED );
 		} else {
 
 			// find latest from and to account and settle transfer
-			findLatestAccount( tasks, resp );
+			findLatestAccount( completed.stream().map( PrepareTask::getResponse ).collect( Collectors.toList() ), resp );
 
 		}
 
@@ -182,36 +589,90 @@ public class ValidationNetworkClient {
 
 	}
 
-	private void findLatestAccount ( final List < PrepareTask > tasks, final ValidationPrepareTransferResponse resp ) {
+	/**
+	 * Nodes whose circuit is closed
+	 */
+	private List < NetworkNode > getAvailableNodes ( List < NetworkNode > nodes ) {
+		return nodes.stream().filter( circuitBreaker::allowRequest ).collect( Collectors.toList() );
+	}
 
-		for ( final PrepareTask task : tasks ) {
+	/**
+	 * Highest state of both accounts among the votes. The response starts out with the request's accounts, these are replaced, never
+	 * changed: the caller still needs them as it loaded them.
+	 */
+	private void findLatestAccount ( final List < ValidationPrepareTransferResponse > votes, final ValidationPrepareTransferResponse resp ) {
+
+		for ( final ValidationPrepareTransferResponse tr : votes ) {
+			resp.setFromAccount( latest( resp.getFromAccount(), tr.getFromAccount() ) );
+			resp.setToAccount( latest( resp.getToAccount(), tr.getToAccount() ) );
+		}
+
+	}
+
+	private static Account latest ( Account current, Account vote ) {
+
+		if ( vote == null || current != null && current.getHeight() >= vote.getHeight() ) {
+			return current;
+		}
+
+		final Account a = new Account();
+		a.setUuid( vote.getUuidAsBytes() );
+		a.setCurve( vote.getCurve() );
+		a.setBalanceRaw( vote.getBalanceRaw() );
+		a.setHeight( vote.getHeight() );
+		a.setTransferHash( vote.getTransferHash() );
 
-			final ValidationPrepareTransferResponse tr = task.getResponse();
+		return a;
 
-			// From
-			Account from = tr.getFromAccount();
+	}
 
-			if ( resp.getFromAccount() == null ) {
-				resp.setFromAccount( from );
-			} else if ( from != null && resp.getFromAccount().getHeight() > from.getHeight() ) {
-				resp.getFromAccount().setHeight( from.getHeight() );
-				resp.getFromAccount().setTransferHash( from.getTransferHash() );
-				resp.getFromAccount().setBalance( from.getBalance() );
+	/**
+	 * Vote is decided on the first rejection (any of them cancels the transfer) or once enough nodes approved, unless every node asked
+	 * has to answer
+	 */
+	private boolean isVoteDecided ( List < PrepareTask > tasks, int requiredVotes ) {
+
+		int approvals = 0;
+
+		for ( final PrepareTask task : tasks ) {
+
+			if ( task.getResponse() == null || task.getResponse().getStatus() == null ) {
+				continue;
+			}
+
+			if ( false == task.getResponse().getStatus().equals( Status.APPROVED ) ) {
+				return true;
 			}
 
-			// To
-			Account to = tr.getToAccount();
+			approvals++;
+
+		}
+
+		return false == quorumPolicy.isWaitForAll() && approvals >= requiredVotes;
+
+	}
+
+	/**
+	 * True once <code>majority</code> nodes, this one included, report the same height
+	 */
+	private boolean isHeightAgreed ( List < GetBalanceTask > tasks, long localHeight, int majority ) {
+
+		final Map < Long, Integer > heights = new HashMap<>();
+
+		heights.put( localHeight, 1 );
 
-			if ( resp.getToAccount() == null ) {
-				resp.setToAccount( to );
-			} else if ( resp.getToAccount().getHeight() < to.getHeight() ) {
-				resp.getToAccount().setHeight( to.getHeight() );
-				resp.getToAccount().setTransferHash( to.getTransferHash() );
-				resp.getToAccount().setBalance( to.getBalance() );
+		for ( final GetBalanceTask task : tasks ) {
+
+			final GetBalanceResponse tr = task.getResponse();
+
+			if ( tr != null && heights.merge( tr.getHeight(), 1, Integer::sum ) >= majority ) {
+				return true;
 			}
 
 		}
 
+		return false;
+
 	}
 
 	private void filterOutFailedTasks ( List < PrepareTask > tasks ) {
@@ -247,24 +708,171 @@ public class ValidationNetworkClient {
 
 	private ValidationPrepareTransferRequest toRequest ( ValidatedTransferRequest req ) {
 		final ValidationPrepareTransferRequest restRequest = new ValidationPrepareTransferRequest();
-		restRequest.setFromAccountUuid( req.getFromAccountUuid().getUuid() );
+		restRequest.setFromAccountHash( req.getFromAccountUuid().getPublicKeyHash() );
 		restRequest.setRequestUuid( UUID.randomUUID().toString() );
 		restRequest.setServerUuid( nodeConfig.getNode().getUuid() );
-		restRequest.setToAccountUuid( req.getFromAccountUuid().getUuid() );
+		restRequest.setToAccountHash( req.getToAccountUuid().getPublicKeyHash() );
 		restRequest.setTransferUuid( req.getTransactionUuid() );
+		restRequest.setLockUuid( req.getLockUuid() );
 		return restRequest;
 	}
 
-	public void commit ( ValidatedTransferRequest enrichedTransferRequest ) {
+	/**
+	 * Queue the commit for every validation node, does not wait for delivery. The future completes once every node with a closed
+	 * circuit accepted it or it was given up on, exceptionally if the commit could not be stored in the outbox.
+	 */
+	public CompletableFuture < Void > commit ( ValidatedTransferRequest req, CurrentTransfer transfer ) {
+
+		final ValidationCommitRequest commitRequest = new ValidationCommitRequest();
+		commitRequest.setServerUuid( nodeConfig.getNode().getUuid() );
+		commitRequest.setTransferSignature( req.getTransactionSignature() );
+		commitRequest.setTransfer( transfer );
+		commitRequest.setLockUuid( req.getLockUuid() );
+		commitRequest.setFromAccount( req.getFromAccount() );
+		commitRequest.setToAccount( req.getToAccount() );
+
+		try {
+			commitRequest.setRequestSignature( Signing.sign( nodeConfig.getNode().getECPrivateKey(), commitRequest.toHashData() ) );
+		} catch ( Exception e ) {
+			log.error( "Error: ", e );
+		}
+
+		return commitOutbox.add( commitRequest );
 
 	}
 
+	/**
+	 * Release the transfer's account locks on every validation node, does not block.
+	 * 
+	 * Rollbacks queued while a batch is being sent go out together in the next one.
+	 */
 	public void rollback ( ValidatedTransferRequest enrichedTransferRequest ) {
 
-		// 	submit to rollbackThreadPool
+		rollbacks.add( new PendingRollback( toRequest( enrichedTransferRequest ) ) );
+
+		scheduleRollbacks();
+
+	}
+
+	private void scheduleRollbacks ( ) {
+
+		if ( rollbackScheduled.compareAndSet( false, true ) ) {
+			try {
+				rollbackThreadPool.execute( this::sendRollbacks );
+			} catch ( RejectedExecutionException e ) {
+				// Closing, the queue is sent one last time by close()
+				rollbackScheduled.set( false );
+			}
+		}
+
+	}
+
+	private void sendRollbacks ( ) {
+
+		rollbackScheduled.set( false );
+
+		final List < PendingRollback > batch = pollRollbacks();
+
+		if ( batch.isEmpty() ) {
+			return;
+		}
+
+		// More than one batch waiting
+		if ( false == rollbacks.isEmpty() ) {
+			scheduleRollbacks();
+		}
+
+		sendRollbacks( batch );
 
 	}
 
+	private List < PendingRollback > pollRollbacks ( ) {
+
+		final List < PendingRollback > batch = new ArrayList<>();
+
+		PendingRollback p;
+
+		while ( batch.size() < rollbackBatchSize && ( p = rollbacks.poll() ) != null ) {
+			batch.add( p );
+		}
+
+		return batch;
+
+	}
+
+	/**
+	 * Send the batch to every available node, the future completes once all of them answered or timed out
+	 */
+	private CompletableFuture < ? > sendRollbacks ( final List < PendingRollback > batch ) {
+
+		rollbacksInFlight.addAndGet( batch.size() );
+
+		final ValidationPrepareBatchRequest request = new ValidationPrepareBatchRequest();
+		request.setServerUuid( nodeConfig.getNode().getUuid() );
+		request.setRequests( batch.stream().map( r -> r.request ).collect( Collectors.toList() ) );
+
+		try {
+			request.setSignedRequest( Signing.sign( nodeConfig.getNode().getECPrivateKey(), request.toHashData() ) );
+		} catch ( Exception e ) {
+			log.error( "Error: ", e );
+		}
+
+		final List < NetworkNode > nodes = getAvailableNodes( networkNodeService.getNodes() );
+
+		log.debug( "Rollback " + batch.size() + " transfer(s) on " + nodes.size() + " node(s)" );
+
+		final CompletableFuture < ? > [ ] calls = new CompletableFuture < ? > [ nodes.size() ];
+
+		for ( int i = 0; i < nodes.size(); i++ ) {
+
+			final NetworkNode node = nodes.get( i );
+
+			final CompletableFuture < Boolean > call = transport.rollback( node, request );
+
+			final ScheduledFuture < ? > expiry = scheduler.schedule( ( ) -> call.cancel( true ), timeout, TimeUnit.MILLISECONDS );
+
+			calls[i] = call.whenComplete( ( r, e ) -> {
+				expiry.cancel( false );
+				if ( e == null ) {
+					circuitBreaker.onSuccess( node );
+				} else {
+					log.debug( "Rollback failed on " + node.getUuid() + ": " + e.getMessage() );
+					circuitBreaker.onFailure( node );
+				}
+			} );
+
+		}
+
+		return CompletableFuture.allOf( calls ).whenComplete( ( r, e ) -> {
+
+			final long now = System.currentTimeMillis();
+
+			synchronized ( rollbacks ) {
+				for ( final PendingRollback rollback : batch ) {
+					rollbackLag = rollbackLag == 0 ? now - rollback.requested : 0.2 * ( now - rollback.requested ) + 0.8 * rollbackLag;
+				}
+			}
+
+			rollbacksInFlight.addAndGet( -batch.size() );
+
+		} );
+
+	}
+
+	/**
+	 * Rollbacks queued or waiting for nodes to answer
+	 */
+	public int getPendingRollbacks ( ) {
+		return rollbacks.size() + rollbacksInFlight.get();
+	}
+
+	/**
+	 * Average time from rollback request until every node answered, ms
+	 */
+	public long getRollbackLag ( ) {
+		return Math.round( rollbackLag );
+	}
+
 	public static ValidatedTransferRequest getLastRequest ( ) {
 		return lastRequest;
 	}
@@ -274,35 +882,41 @@ public class ValidationNetworkClient {
 	}
 
 	public GetBalanceResponse getBalance ( GetBalanceRequest request, GetBalanceResponse resp ) {
+		return getBalance( request, resp, ConsistencyLevel.ALL, -1 );
+	}
+
+	/**
+	 * Network view on the balance. QUORUM stops as soon as a majority of the network, this node at <code>localHeight</code> included, reports the same height.
+	 */
+	public GetBalanceResponse getBalance ( GetBalanceRequest request, GetBalanceResponse resp, ConsistencyLevel level, long localHeight ) {
 
-		// Pool for the vote call
-		final List < NetworkNode > nodes = networkNodeService.getNodes();
+		final List < NetworkNode > allNodes = networkNodeService.getNodes();
 
-		final ExecutorService threadPool = Executors.newFixedThreadPool( nodes.size() );
+		final List < NetworkNode > nodes = getAvailableNodes( allNodes );
 
-		final List < GetBalanceTask > tasks = new ArrayList<>( networkNodeService.getNodes().size() );
+		final List < GetBalanceTask > tasks = new ArrayList<>( nodes.size() );
 
-		networkNodeService.getNodes().forEach( n -> {
+		nodes.forEach( n -> {
 
 			log.debug( "Get balance from validation node: " + n.getUuid() );
 
-			final GetBalanceTask task = new GetBalanceTask( n.getHttpBaseUrl() + io.zdp.api.model.v1.Urls.URL_GET_BALANCE, restTemplate, request );
+			tasks.add( new GetBalanceTask( n, transport, request ) );
 
-			tasks.add( task );
+		} );
 
-			threadPool.submit( task );
+		final int majority = ( allNodes.size() + 1 ) / 2 + 1;
 
-		} );
+		final List < GetBalanceTask > completed;
 
-		try {
-			threadPool.awaitTermination( 5, TimeUnit.SECONDS );
-		} catch ( InterruptedException e ) {
-			log.error( "Error: ", e );
+		if ( level == ConsistencyLevel.QUORUM ) {
+			completed = fanOut( tasks, new ArrayDeque<>(), done -> isHeightAgreed( done, localHeight, majority ) );
+		} else {
+			completed = fanOut( tasks );
 		}
 
-		log.debug( "Finished getting balance: " );
+		log.debug( "Finished getting balance: " + completed.size() + " of " + tasks.size() + " answered" );
 
-		for ( final GetBalanceTask task : tasks ) {
+		for ( final GetBalanceTask task : completed ) {
 
 			final GetBalanceResponse tr = task.getResponse();
 
@@ -320,4 +934,45 @@ public class ValidationNetworkClient {
 
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Network view on many balances with one call per node, the highest height wins for every account
+	 */
+	public GetBalancesResponse getBalances ( GetBalancesRequest request, GetBalancesResponse resp ) {
+
+		final List < NetworkNode > nodes = getAvailableNodes( networkNodeService.getNodes() );
+
+		final List < GetBalancesTask > tasks = new ArrayList<>( nodes.size() );
+
+		nodes.forEach( n -> tasks.add( new GetBalancesTask( n, transport, request ) ) );
+
+		final List < GetBalancesTask > completed = fanOut( tasks );
+
+		log.debug( "Finished getting " + request.getAccountUuids().size() + " balances: " + completed.size() + " of " + tasks.size() + " answered" );
+
+		for ( int i = 0; i < request.getAccountUuids().size(); i++ ) {
+
+			final GetBalanceResponse balance = new GetBalanceResponse();
+
+			for ( final GetBalancesTask task : completed ) {
+
+				final List < GetBalanceResponse > balances = task.getResponse().getBalances();
+
+				final GetBalanceResponse tr = i < balances.size() ? balances.get( i ) : null;
+
+				if ( tr != null && tr.getAmount() != null && ( balance.getAmount() == null || tr.getHeight() > balance.getHeight() ) ) {
+					balance.setAmount( tr.getAmount() );
+					balance.setHeight( tr.getHeight() );
+					balance.setChainHash( tr.getChainHash() );
+				}
+
+			}
+
+			resp.getBalances().add( balance );
+
+		}
+
+		return resp;
+
+	}
+
+}
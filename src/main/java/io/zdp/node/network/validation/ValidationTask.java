@@ -0,0 +1,61 @@
+package io.zdp.node.network.validation;
+
+import java.util.concurrent.CompletableFuture;
+
+import io.zdp.model.network.NetworkNode;
+
+/**
+ * Single call to a validation node
+ */
+public abstract class ValidationTask < R > {
+
+	protected final NetworkNode node;
+
+	protected final ValidationTransport transport;
+
+	// Set by the calling thread, read by the expiry and completion threads
+	private volatile CompletableFuture < R > call;
+
+	protected ValidationTask ( NetworkNode node, ValidationTransport transport ) {
+		super();
+		this.node = node;
+		this.transport = transport;
+	}
+
+	protected abstract CompletableFuture < R > send ( );
+
+	/**
+	 * Start the call, does not block
+	 */
+	public CompletableFuture < R > execute ( ) {
+		call = send();
+		return call;
+	}
+
+	public void cancel ( ) {
+		final CompletableFuture < R > c = call;
+		if ( c != null ) {
+			c.cancel( true );
+		}
+	}
+
+	public boolean isDone ( ) {
+		final CompletableFuture < R > c = call;
+		return c != null && c.isDone();
+	}
+
+	public boolean isSuccessful ( ) {
+		final CompletableFuture < R > c = call;
+		return c != null && c.isDone() && false == c.isCompletedExceptionally();
+	}
+
+	public R getResponse ( ) {
+		final CompletableFuture < R > c = call;
+		return c != null && c.isDone() && false == c.isCompletedExceptionally() ? c.join() : null;
+	}
+
+	public NetworkNode getNode ( ) {
+		return node;
+	}
+
+}
@@ -0,0 +1,38 @@
+package io.zdp.node.network.validation;
+
+import java.util.concurrent.CompletableFuture;
+
+import io.zdp.api.model.v1.GetBalanceRequest;
+import io.zdp.api.model.v1.GetBalanceResponse;
+import io.zdp.model.network.NetworkNode;
+import io.zdp.node.web.api.client.model.GetBalancesRequest;
+import io.zdp.node.web.api.client.model.GetBalancesResponse;
+import io.zdp.node.web.api.validation.model.ValidationCommitRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchResponse;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferResponse;
+
+/**
+ * Calls to a validation node, none of them block. Cancelling a returned future aborts the call.
+ */
+public interface ValidationTransport {
+
+	CompletableFuture < ValidationPrepareTransferResponse > prepare ( NetworkNode node, ValidationPrepareTransferRequest request );
+
+	CompletableFuture < ValidationPrepareBatchResponse > prepare ( NetworkNode node, ValidationPrepareBatchRequest request );
+
+	CompletableFuture < Boolean > commit ( NetworkNode node, ValidationCommitRequest request );
+
+	CompletableFuture < Boolean > rollback ( NetworkNode node, ValidationPrepareTransferRequest request );
+
+	CompletableFuture < Boolean > rollback ( NetworkNode node, ValidationPrepareBatchRequest request );
+
+	CompletableFuture < GetBalanceResponse > getBalance ( NetworkNode node, GetBalanceRequest request );
+
+	/**
+	 * Node's local balances of many accounts
+	 */
+	CompletableFuture < GetBalancesResponse > getBalances ( NetworkNode node, GetBalancesRequest request );
+
+}
@@ -0,0 +1,73 @@
+package io.zdp.node.network.validation;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import io.zdp.api.model.v1.GetBalanceRequest;
+import io.zdp.api.model.v1.GetBalanceResponse;
+import io.zdp.model.network.NetworkNode;
+import io.zdp.node.network.validation.tcp.TcpValidationTransport;
+import io.zdp.node.web.api.client.model.GetBalancesRequest;
+import io.zdp.node.web.api.client.model.GetBalancesResponse;
+import io.zdp.node.web.api.validation.model.ValidationCommitRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchResponse;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferResponse;
+
+/**
+ * Picks the transport per validation node: TCP where both sides support it, HTTP otherwise
+ */
+@Primary
+@Service
+public class ValidationTransportRouter implements ValidationTransport {
+
+	@Autowired
+	private AsyncHttpTransport httpTransport;
+
+	@Autowired
+	private TcpValidationTransport tcpTransport;
+
+	private ValidationTransport select ( NetworkNode node ) {
+		return tcpTransport.isAvailable( node ) ? tcpTransport : httpTransport;
+	}
+
+	@Override
+	public CompletableFuture < ValidationPrepareTransferResponse > prepare ( NetworkNode node, ValidationPrepareTransferRequest request ) {
+		return select( node ).prepare( node, request );
+	}
+
+	@Override
+	public CompletableFuture < ValidationPrepareBatchResponse > prepare ( NetworkNode node, ValidationPrepareBatchRequest request ) {
+		return select( node ).prepare( node, request );
+	}
+
+	@Override
+	public CompletableFuture < Boolean > commit ( NetworkNode node, ValidationCommitRequest request ) {
+		return select( node ).commit( node, request );
+	}
+
+	@Override
+	public CompletableFuture < Boolean > rollback ( NetworkNode node, ValidationPrepareTransferRequest request ) {
+		return select( node ).rollback( node, request );
+	}
+
+	@Override
+	public CompletableFuture < Boolean > rollback ( NetworkNode node, ValidationPrepareBatchRequest request ) {
+		return select( node ).rollback( node, request );
+	}
+
+	@Override
+	public CompletableFuture < GetBalanceResponse > getBalance ( NetworkNode node, GetBalanceRequest request ) {
+		return select( node ).getBalance( node, request );
+	}
+
+	@Override
+	public CompletableFuture < GetBalancesResponse > getBalances ( NetworkNode node, GetBalancesRequest request ) {
+		return select( node ).getBalances( node, request );
+	}
+
+}
@@ -0,0 +1,116 @@
+package io.zdp.node.network.validation.tcp;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Validation protocol frame:
+ * 
+ * <pre>
+ * int    length of the rest of the frame
+ * byte   protocol version
+ * byte   message type, high bit set on responses
+ * long   request id, responses carry the id of their request
+ * byte[] payload
+ * </pre>
+ */
+public final class Frame {
+
+	public static final byte VERSION = 1;
+
+	public static final byte PREPARE = 1;
+	public static final byte PREPARE_BATCH = 2;
+	public static final byte COMMIT = 3;
+	public static final byte ROLLBACK = 4;
+	public static final byte BALANCE = 5;
+	public static final byte ROLLBACK_BATCH = 6;
+	public static final byte BALANCE_BATCH = 7;
+	public static final byte ERROR = 127;
+
+	private static final byte RESPONSE = (byte) 0x80;
+
+	private static final int HEADER_LENGTH = 10;
+
+	private static final int MAX_LENGTH = 16 * 1024 * 1024;
+
+	private final byte type;
+
+	private final long requestId;
+
+	private final byte [ ] payload;
+
+	public Frame ( byte type, long requestId, byte [ ] payload ) {
+		super();
+		this.type = type;
+		this.requestId = requestId;
+		this.payload = payload;
+	}
+
+	public static Frame read ( DataInputStream in ) throws IOException {
+
+		final int length = in.readInt();
+
+		if ( length < HEADER_LENGTH || length > MAX_LENGTH ) {
+			throw new IOException( "Invalid frame length: " + length );
+		}
+
+		final byte version = in.readByte();
+
+		if ( version != VERSION ) {
+			throw new IOException( "Unsupported protocol version: " + version );
+		}
+
+		final byte type = in.readByte();
+		final long requestId = in.readLong();
+
+		final byte [ ] payload = new byte [ length - HEADER_LENGTH ];
+		in.readFully( payload );
+
+		return new Frame( type, requestId, payload );
+
+	}
+
+	public void write ( DataOutputStream out ) throws IOException {
+		out.writeInt( HEADER_LENGTH + payload.length );
+		out.writeByte( VERSION );
+		out.writeByte( type );
+		out.writeLong( requestId );
+		out.write( payload );
+	}
+
+	public Frame reply ( byte [ ] payload ) {
+		return new Frame( (byte) ( type | RESPONSE ), requestId, payload );
+	}
+
+	public Frame error ( String message ) {
+		return new Frame( (byte) ( ERROR | RESPONSE ), requestId, String.valueOf( message ).getBytes( StandardCharsets.UTF_8 ) );
+	}
+
+	public boolean isResponse ( ) {
+		return ( type & RESPONSE ) != 0;
+	}
+
+	public boolean isError ( ) {
+		return getType() == ERROR;
+	}
+
+	public byte getType ( ) {
+		return (byte) ( type & ~RESPONSE );
+	}
+
+	public long getRequestId ( ) {
+		return requestId;
+	}
+
+	public byte [ ] getPayload ( ) {
+		return payload;
+	}
+
+	@Override
+	public String toString ( ) {
+		return "Frame [type=" + getType() + ", response=" + isResponse() + ", requestId=" + requestId + ", length=" + payload.length + "]";
+	}
+
+}
@@ -0,0 +1,152 @@
+package io.zdp.node.network.validation.tcp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Long-lived connection to a validation node. 
+ * 
+ * Any number of requests can be in flight at once, responses are matched to requests by id and may come back in any order.
+ */
+public class TcpConnection implements Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger( TcpConnection.class );
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final String address;
+
+	private final Socket socket;
+
+	private final DataInputStream in;
+
+	private final DataOutputStream out;
+
+	private final AtomicLong ids = new AtomicLong();
+
+	private final Map < Long, CompletableFuture < Frame > > inflight = new ConcurrentHashMap<>();
+
+	private volatile boolean closed;
+
+	public TcpConnection ( String host, int port, int connectTimeout, ThreadFactory threadFactory ) throws IOException {
+
+		this.address = host + ":" + port;
+
+		socket = new Socket();
+		socket.setTcpNoDelay( true );
+		socket.setKeepAlive( true );
+		socket.connect( new InetSocketAddress( host, port ), connectTimeout );
+
+		in = new DataInputStream( new BufferedInputStream( socket.getInputStream(), BUFFER_SIZE ) );
+		out = new DataOutputStream( new BufferedOutputStream( socket.getOutputStream(), BUFFER_SIZE ) );
+
+		threadFactory.newThread( this::readResponses ).start();
+
+		log.debug( "Connected to " + address );
+
+	}
+
+	/**
+	 * Send a request, the future completes with the response frame
+	 */
+	public CompletableFuture < Frame > send ( byte type, byte [ ] payload ) {
+
+		final long requestId = ids.incrementAndGet();
+
+		final CompletableFuture < Frame > response = new CompletableFuture<>();
+
+		inflight.put( requestId, response );
+
+		response.whenComplete( ( r, e ) -> inflight.remove( requestId ) );
+
+		if ( closed ) {
+			response.completeExceptionally( new IOException( "Connection closed: " + address ) );
+			return response;
+		}
+
+		try {
+			synchronized ( out ) {
+				new Frame( type, requestId, payload ).write( out );
+				out.flush();
+			}
+		} catch ( IOException e ) {
+			close( e );
+		}
+
+		return response;
+
+	}
+
+	private void readResponses ( ) {
+
+		try {
+
+			while ( false == closed ) {
+
+				final Frame frame = Frame.read( in );
+
+				final CompletableFuture < Frame > response = inflight.remove( frame.getRequestId() );
+
+				if ( response == null ) {
+					continue;
+				}
+
+				if ( frame.isError() ) {
+					response.completeExceptionally( new IOException( address + ": " + new String( frame.getPayload(), StandardCharsets.UTF_8 ) ) );
+				} else {
+					response.complete( frame );
+				}
+
+			}
+
+		} catch ( IOException e ) {
+			close( e );
+		}
+
+	}
+
+	public boolean isOpen ( ) {
+		return false == closed;
+	}
+
+	@Override
+	public void close ( ) {
+		close( new IOException( "Connection closed: " + address ) );
+	}
+
+	private void close ( IOException cause ) {
+
+		if ( closed ) {
+			return;
+		}
+
+		closed = true;
+
+		log.debug( "Closing connection to " + address + ": " + cause.getMessage() );
+
+		try {
+			socket.close();
+		} catch ( IOException e ) {
+			log.debug( "Error: " + e.getMessage() );
+		}
+
+		inflight.values().forEach( f -> f.completeExceptionally( cause ) );
+
+	}
+
+}
@@ -0,0 +1,68 @@
+package io.zdp.node.network.validation.tcp;
+
+import java.io.IOException;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.zdp.node.web.api.validation.model.ValidationCommitRequest;
+import io.zdp.node.web.api.validation.model.ValidationMessageCodec;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchResponse;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferResponse;
+
+/**
+ * Frame payload encoding: binary for the voting and commit messages, JSON for everything else
+ */
+@Component
+public class TcpMessageCodec {
+
+	private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+	public byte [ ] encode ( Object message ) throws IOException {
+
+		if ( message instanceof ValidationPrepareTransferRequest ) {
+			return ValidationMessageCodec.encode( (ValidationPrepareTransferRequest) message );
+		} else if ( message instanceof ValidationPrepareTransferResponse ) {
+			return ValidationMessageCodec.encode( (ValidationPrepareTransferResponse) message );
+		} else if ( message instanceof ValidationPrepareBatchRequest ) {
+			return ValidationMessageCodec.encode( (ValidationPrepareBatchRequest) message );
+		} else if ( message instanceof ValidationPrepareBatchResponse ) {
+			return ValidationMessageCodec.encode( (ValidationPrepareBatchResponse) message );
+		} else if ( message instanceof ValidationCommitRequest ) {
+			return ValidationMessageCodec.encode( (ValidationCommitRequest) message );
+		}
+
+		return mapper.writeValueAsBytes( message );
+
+	}
+
+	@SuppressWarnings ( "unchecked" )
+	public < T > T decode ( byte [ ] payload, Class < T > type ) throws IOException {
+
+		try {
+
+			if ( type == ValidationPrepareTransferRequest.class ) {
+				return (T) ValidationMessageCodec.decodePrepareRequest( payload );
+			} else if ( type == ValidationPrepareTransferResponse.class ) {
+				return (T) ValidationMessageCodec.decodePrepareResponse( payload );
+			} else if ( type == ValidationPrepareBatchRequest.class ) {
+				return (T) ValidationMessageCodec.decodePrepareBatchRequest( payload );
+			} else if ( type == ValidationPrepareBatchResponse.class ) {
+				return (T) ValidationMessageCodec.decodePrepareBatchResponse( payload );
+			} else if ( type == ValidationCommitRequest.class ) {
+				return (T) ValidationMessageCodec.decodeCommitRequest( payload );
+			}
+
+		} catch ( IllegalArgumentException e ) {
+			throw new IOException( "Malformed " + type.getSimpleName() + ": " + e.getMessage(), e );
+		}
+
+		return mapper.readValue( payload, type );
+
+	}
+
+}
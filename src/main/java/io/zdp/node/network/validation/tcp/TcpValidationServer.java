@@ -0,0 +1,240 @@
+package io.zdp.node.network.validation.tcp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.zdp.api.model.v1.GetBalanceRequest;
+import io.zdp.node.service.validation.CommitService;
+import io.zdp.node.service.validation.PrepareService;
+import io.zdp.node.service.validation.RollbackService;
+import io.zdp.node.storage.account.service.AccountService;
+import io.zdp.node.web.api.client.model.GetBalancesRequest;
+import io.zdp.node.web.api.validation.model.ValidationCommitRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferRequest;
+
+/**
+ * Serves the validation protocol over TCP. Requests are handled on a worker pool, so responses go back in the order they are ready.
+ * Requests that find the pool's queue full are answered with an error right away.
+ */
+@Service
+public class TcpValidationServer {
+
+	private Logger log = LoggerFactory.getLogger( this.getClass() );
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	@Value ( "${local.node.tcp.server.enabled:false}" )
+	private boolean enabled;
+
+	@Value ( "${local.node.tcp.server.host:localhost}" )
+	private String host;
+
+	@Value ( "${local.node.tcp.server.port:9005}" )
+	private int port;
+
+	@Value ( "${local.node.tcp.server.threads:64}" )
+	private int threads;
+
+	@Value ( "${local.node.tcp.server.queue:1024}" )
+	private int queueSize;
+
+	@Autowired
+	private PrepareService prepareService;
+
+	@Autowired
+	private CommitService commitService;
+
+	@Autowired
+	private RollbackService rollbackService;
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private TcpMessageCodec codec;
+
+	private final ThreadFactory connectionThreadFactory = new ThreadFactoryBuilder().setNameFormat( "validation-tcp-server-%d" ).setDaemon( true ).build();
+
+	private ServerSocket serverSocket;
+
+	private ExecutorService workers;
+
+	private volatile boolean running;
+
+	@PostConstruct
+	public void init ( ) throws IOException {
+
+		if ( false == enabled ) {
+			log.debug( "Validation TCP server disabled" );
+			return;
+		}
+
+		workers = new ThreadPoolExecutor( threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>( queueSize ),
+				new ThreadFactoryBuilder().setNameFormat( "validation-tcp-worker-%d" ).setDaemon( true ).build(), new ThreadPoolExecutor.AbortPolicy() );
+
+		serverSocket = new ServerSocket();
+		serverSocket.setReuseAddress( true );
+		serverSocket.bind( new InetSocketAddress( host, port ) );
+
+		running = true;
+
+		connectionThreadFactory.newThread( this::accept ).start();
+
+		log.info( "Validation TCP server listening on " + host + ":" + port );
+
+	}
+
+	@PreDestroy
+	public void close ( ) {
+
+		if ( false == running ) {
+			return;
+		}
+
+		running = false;
+
+		try {
+			serverSocket.close();
+		} catch ( IOException e ) {
+			log.error( "Error: ", e );
+		}
+
+		workers.shutdownNow();
+
+	}
+
+	/**
+	 * Port to advertise to other validation nodes, 0 if the server is not running
+	 */
+	public int getPort ( ) {
+		return running ? serverSocket.getLocalPort() : 0;
+	}
+
+	private void accept ( ) {
+
+		while ( running ) {
+
+			try {
+
+				final Socket socket = serverSocket.accept();
+				socket.setTcpNoDelay( true );
+
+				connectionThreadFactory.newThread( ( ) -> serve( socket ) ).start();
+
+			} catch ( IOException e ) {
+				if ( running ) {
+					log.error( "Error: ", e );
+				}
+			}
+
+		}
+
+	}
+
+	private void serve ( Socket socket ) {
+
+		log.debug( "Validation node connected: " + socket.getRemoteSocketAddress() );
+
+		try ( Socket s = socket ) {
+
+			final DataInputStream in = new DataInputStream( new BufferedInputStream( s.getInputStream(), BUFFER_SIZE ) );
+			final DataOutputStream out = new DataOutputStream( new BufferedOutputStream( s.getOutputStream(), BUFFER_SIZE ) );
+
+			while ( running ) {
+
+				final Frame request = Frame.read( in );
+
+				try {
+					workers.execute( ( ) -> reply( out, handle( request ) ) );
+				} catch ( RejectedExecutionException e ) {
+					log.debug( "Validation TCP server busy, reject request from " + socket.getRemoteSocketAddress() );
+					reply( out, request.error( "Server busy" ) );
+				}
+
+			}
+
+		} catch ( IOException e ) {
+			log.debug( "Validation node disconnected: " + socket.getRemoteSocketAddress() + ", " + e.getMessage() );
+		}
+
+	}
+
+	private void reply ( DataOutputStream out, Frame response ) {
+
+		try {
+			synchronized ( out ) {
+				response.write( out );
+				out.flush();
+			}
+		} catch ( IOException e ) {
+			log.debug( "Can't send response: " + e.getMessage() );
+		}
+
+	}
+
+	private Frame handle ( Frame request ) {
+
+		try {
+
+			final Object response;
+
+			switch ( request.getType() ) {
+			case Frame.PREPARE:
+				response = prepareService.prepare( codec.decode( request.getPayload(), ValidationPrepareTransferRequest.class ) );
+				break;
+			case Frame.PREPARE_BATCH:
+				response = prepareService.prepare( codec.decode( request.getPayload(), ValidationPrepareBatchRequest.class ) );
+				break;
+			case Frame.COMMIT:
+				response = commitService.commit( codec.decode( request.getPayload(), ValidationCommitRequest.class ) );
+				break;
+			case Frame.ROLLBACK:
+				response = rollbackService.rollback( codec.decode( request.getPayload(), ValidationPrepareTransferRequest.class ) );
+				break;
+			case Frame.ROLLBACK_BATCH:
+				response = rollbackService.rollback( codec.decode( request.getPayload(), ValidationPrepareBatchRequest.class ) );
+				break;
+			case Frame.BALANCE:
+				response = accountService.getLocalAccountBalance( codec.decode( request.getPayload(), GetBalanceRequest.class ) );
+				break;
+			case Frame.BALANCE_BATCH:
+				response = accountService.getLocalAccountBalances( codec.decode( request.getPayload(), GetBalancesRequest.class ) );
+				break;
+			default:
+				return request.error( "Unknown message type: " + request.getType() );
+			}
+
+			return request.reply( codec.encode( response ) );
+
+		} catch ( Exception e ) {
+			log.error( "Error: ", e );
+			return request.error( e.getMessage() );
+		}
+
+	}
+
+}
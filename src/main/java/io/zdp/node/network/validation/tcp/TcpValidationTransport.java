@@ -0,0 +1,263 @@
+package io.zdp.node.network.validation.tcp;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.zdp.api.model.v1.GetBalanceRequest;
+import io.zdp.api.model.v1.GetBalanceResponse;
+import io.zdp.model.network.NetworkNode;
+import io.zdp.node.network.validation.AsyncHttpTransport;
+import io.zdp.node.network.validation.ValidationTransport;
+import io.zdp.node.web.api.client.model.GetBalancesRequest;
+import io.zdp.node.web.api.client.model.GetBalancesResponse;
+import io.zdp.node.web.api.validation.model.ValidationCommitRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchResponse;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferResponse;
+
+/**
+ * Binary TCP transport, one multiplexed connection per validation node.
+ * 
+ * Nodes advertise their TCP port in the validation ping response, nodes that don't are reached over HTTP.
+ */
+@Service
+public class TcpValidationTransport implements ValidationTransport {
+
+	private Logger log = LoggerFactory.getLogger( this.getClass() );
+
+	@Value ( "${local.node.tcp.server.enabled:false}" )
+	private boolean enabled;
+
+	@Value ( "${validation.tcp.connect.timeout:2000}" )
+	private int connectTimeout;
+
+	@Autowired
+	private AsyncHttpTransport httpTransport;
+
+	@Autowired
+	private TcpMessageCodec codec;
+
+	// Node uuid -> connection, incomplete while connecting
+	private final Map < String, CompletableFuture < TcpConnection > > connections = new ConcurrentHashMap<>();
+
+	// Node uuid -> advertised TCP port, 0 if none
+	private final Cache < String, Integer > ports = CacheBuilder.newBuilder().expireAfterWrite( 60, TimeUnit.SECONDS ).build();
+
+	private final Set < String > discovering = ConcurrentHashMap.newKeySet();
+
+	private final ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat( "validation-tcp-%d" ).setDaemon( true ).build();
+
+	private final ExecutorService connector = Executors.newCachedThreadPool( new ThreadFactoryBuilder().setNameFormat( "validation-tcp-connect-%d" ).setDaemon( true ).build() );
+
+	@PreDestroy
+	public void close ( ) {
+		connector.shutdownNow();
+		connections.values().forEach( c -> c.thenAccept( TcpConnection::close ) );
+		connections.clear();
+	}
+
+	/**
+	 * True if the node can be reached over TCP. Unknown nodes are asked for their port in the background and reached over HTTP until they answer.
+	 */
+	public boolean isAvailable ( NetworkNode node ) {
+
+		if ( false == enabled ) {
+			return false;
+		}
+
+		final Integer port = ports.getIfPresent( node.getUuid() );
+
+		if ( port == null ) {
+			discover( node );
+			return false;
+		}
+
+		return port > 0;
+
+	}
+
+	private void discover ( NetworkNode node ) {
+
+		if ( false == discovering.add( node.getUuid() ) ) {
+			return;
+		}
+
+		httpTransport.ping( node ).whenComplete( ( resp, e ) -> {
+
+			final int port = e == null && resp != null ? resp.getTcpPort() : 0;
+
+			log.debug( "Validation node " + node.getUuid() + " tcp port: " + port );
+
+			ports.put( node.getUuid(), port );
+
+			discovering.remove( node.getUuid() );
+
+		} );
+
+	}
+
+	@Override
+	public CompletableFuture < ValidationPrepareTransferResponse > prepare ( NetworkNode node, ValidationPrepareTransferRequest request ) {
+		return call( node, Frame.PREPARE, request, ValidationPrepareTransferResponse.class );
+	}
+
+	@Override
+	public CompletableFuture < ValidationPrepareBatchResponse > prepare ( NetworkNode node, ValidationPrepareBatchRequest request ) {
+		return call( node, Frame.PREPARE_BATCH, request, ValidationPrepareBatchResponse.class );
+	}
+
+	@Override
+	public CompletableFuture < Boolean > commit ( NetworkNode node, ValidationCommitRequest request ) {
+		return call( node, Frame.COMMIT, request, Boolean.class );
+	}
+
+	@Override
+	public CompletableFuture < Boolean > rollback ( NetworkNode node, ValidationPrepareTransferRequest request ) {
+		return call( node, Frame.ROLLBACK, request, Boolean.class );
+	}
+
+	@Override
+	public CompletableFuture < Boolean > rollback ( NetworkNode node, ValidationPrepareBatchRequest request ) {
+		return call( node, Frame.ROLLBACK_BATCH, request, Boolean.class );
+	}
+
+	@Override
+	public CompletableFuture < GetBalanceResponse > getBalance ( NetworkNode node, GetBalanceRequest request ) {
+		return call( node, Frame.BALANCE, request, GetBalanceResponse.class );
+	}
+
+	@Override
+	public CompletableFuture < GetBalancesResponse > getBalances ( NetworkNode node, GetBalancesRequest request ) {
+		return call( node, Frame.BALANCE_BATCH, request, GetBalancesResponse.class );
+	}
+
+	private < T > CompletableFuture < T > call ( NetworkNode node, byte type, Object request, Class < T > responseType ) {
+
+		final byte [ ] payload;
+
+		try {
+			payload = codec.encode( request );
+		} catch ( IOException e ) {
+			final CompletableFuture < T > failed = new CompletableFuture<>();
+			failed.completeExceptionally( e );
+			return failed;
+		}
+
+		final CompletableFuture < Frame > frame = connection( node ).thenCompose( c -> c.send( type, payload ) );
+
+		final CompletableFuture < T > result = frame.thenApply( f -> {
+			try {
+				return codec.decode( f.getPayload(), responseType );
+			} catch ( IOException e ) {
+				throw new UncheckedIOException( e );
+			}
+		} );
+
+		result.whenComplete( ( r, e ) -> {
+			if ( result.isCancelled() ) {
+				frame.cancel( true );
+			}
+		} );
+
+		return result;
+
+	}
+
+	/**
+	 * Open connection to the node. A missing one is opened in the background, calls made meanwhile wait for it instead of connecting
+	 * again.
+	 */
+	private CompletableFuture < TcpConnection > connection ( NetworkNode node ) {
+
+		final CompletableFuture < TcpConnection > existing = connections.get( node.getUuid() );
+
+		if ( isUsable( existing ) ) {
+			return existing;
+		}
+
+		final Integer port = ports.getIfPresent( node.getUuid() );
+
+		if ( port == null || port == 0 ) {
+			final CompletableFuture < TcpConnection > failed = new CompletableFuture<>();
+			failed.completeExceptionally( new IOException( "No tcp port for " + node.getUuid() ) );
+			return failed;
+		}
+
+		final CompletableFuture < TcpConnection > connecting = new CompletableFuture<>();
+
+		final CompletableFuture < TcpConnection > current = connections.compute( node.getUuid(), ( uuid, c ) -> isUsable( c ) ? c : connecting );
+
+		if ( current == connecting ) {
+			try {
+				connector.execute( ( ) -> connect( node, port, connecting ) );
+			} catch ( RejectedExecutionException e ) {
+				connections.remove( node.getUuid(), connecting );
+				connecting.completeExceptionally( e );
+			}
+		}
+
+		return current;
+
+	}
+
+	private void connect ( NetworkNode node, int port, CompletableFuture < TcpConnection > connecting ) {
+
+		try {
+
+			connecting.complete( new TcpConnection( node.getHostname(), port, connectTimeout, threadFactory ) );
+
+		} catch ( IOException e ) {
+
+			log.debug( "Can't connect to " + node.getUuid() + ", fall back to http: " + e.getMessage() );
+
+			// Go over HTTP until the node is asked again
+			ports.put( node.getUuid(), 0 );
+
+			connections.remove( node.getUuid(), connecting );
+
+			connecting.completeExceptionally( e );
+
+		}
+
+	}
+
+	/**
+	 * Still connecting or connected and open
+	 */
+	private static boolean isUsable ( CompletableFuture < TcpConnection > c ) {
+
+		if ( c == null ) {
+			return false;
+		}
+
+		if ( false == c.isDone() ) {
+			return true;
+		}
+
+		return false == c.isCompletedExceptionally() && c.join().isOpen();
+
+	}
+
+}
\ No newline at end of file
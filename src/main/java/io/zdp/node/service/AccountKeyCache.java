@@ -0,0 +1,97 @@
+package io.zdp.node.service;
+
+import java.security.PublicKey;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import io.zdp.crypto.Base58;
+import io.zdp.crypto.Hashing;
+import io.zdp.crypto.Keys;
+import io.zdp.crypto.account.ZDPAccountUuid;
+
+/**
+ * Parsed account uuids and decoded public keys of active senders.
+ *
+ * Saves the Base58 decoding, hashing and EC point decompression for keys and addresses seen recently. Cached values are shared and must
+ * not be modified.
+ */
+@Service
+public class AccountKeyCache {
+
+	private Logger log = LoggerFactory.getLogger(this.getClass());
+
+	@Value("${validation.keys.cache.size:100000}")
+	private long maxSize;
+
+	// Account uuid -> parsed uuid
+	private Cache<String, ZDPAccountUuid> accountUuids;
+
+	// Base58 public key -> public key hash
+	private Cache<String, byte[]> publicKeyHashes;
+
+	// Curve and Base58 public key -> decoded key
+	private Cache<String, PublicKey> publicKeys;
+
+	@PostConstruct
+	public void init() {
+
+		accountUuids = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+		publicKeyHashes = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+		publicKeys = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+
+		log.info("Account key cache size: " + maxSize);
+
+	}
+
+	public ZDPAccountUuid getAccountUuid(String uuid) {
+		try {
+			return get(accountUuids, uuid, () -> new ZDPAccountUuid(uuid));
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Invalid account uuid: " + uuid, e);
+		}
+	}
+
+	public byte[] getPublicKeyHash(String publicKey) throws Exception {
+		return get(publicKeyHashes, publicKey, () -> Hashing.hashPublicKey(Base58.decode(publicKey)));
+	}
+
+	public PublicKey getPublicKey(String publicKey, String curve) throws Exception {
+		return get(publicKeys, curve + ":" + publicKey, () -> Keys.toPublicKey(Base58.decode(publicKey), curve));
+	}
+
+	private static <V> V get(Cache<String, V> cache, String key, Callable<V> loader) throws Exception {
+
+		try {
+			return cache.get(key, loader);
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+		}
+
+	}
+
+	public double getAccountUuidHitRate() {
+		return accountUuids.stats().hitRate();
+	}
+
+	public double getPublicKeyHashHitRate() {
+		return publicKeyHashes.stats().hitRate();
+	}
+
+	public double getPublicKeyHitRate() {
+		return publicKeys.stats().hitRate();
+	}
+
+}
@@ -0,0 +1,86 @@
+package io.zdp.node.service;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Admission control for client requests, so an overloaded node turns requests away at once instead of piling up blocked threads.
+ *
+ * Every endpoint group has its own {@link ConcurrencyLimiter}, configured as
+ * <code>initial limit, min limit, max limit, queue size, queue timeout ms</code>.
+ */
+@Service
+public class AdmissionService {
+
+	private Logger log = LoggerFactory.getLogger(this.getClass());
+
+	@Value("${admission.transfers:32,4,256,64,50}")
+	private String transfersConfig;
+
+	@Value("${admission.transfer.batches:2,1,16,4,50}")
+	private String transferBatchesConfig;
+
+	@Value("${admission.balances:64,8,512,128,20}")
+	private String balancesConfig;
+
+	@Value("${admission.balance.batches:4,1,32,8,20}")
+	private String balanceBatchesConfig;
+
+	@Value("${admission.latency.tolerance:2.0}")
+	private double tolerance;
+
+	private ConcurrencyLimiter transfers;
+
+	private ConcurrencyLimiter transferBatches;
+
+	private ConcurrencyLimiter balances;
+
+	private ConcurrencyLimiter balanceBatches;
+
+	@PostConstruct
+	public void init() {
+
+		transfers = create("transfers", transfersConfig);
+		transferBatches = create("transfer batches", transferBatchesConfig);
+		balances = create("balances", balancesConfig);
+		balanceBatches = create("balance batches", balanceBatchesConfig);
+
+	}
+
+	private ConcurrencyLimiter create(String name, String config) {
+
+		final String[] values = config.split(",");
+
+		if (values.length != 5) {
+			throw new IllegalArgumentException("Admission config of " + name + " must be 'initial,min,max,queue,timeout': " + config);
+		}
+
+		final ConcurrencyLimiter limiter = new ConcurrencyLimiter(name, Integer.parseInt(values[0].trim()), Integer.parseInt(values[1].trim()), Integer.parseInt(values[2].trim()), Integer.parseInt(values[3].trim()), Long.parseLong(values[4].trim()), tolerance);
+
+		log.info("Admission of " + name + ": " + config);
+
+		return limiter;
+
+	}
+
+	public ConcurrencyLimiter getTransfers() {
+		return transfers;
+	}
+
+	public ConcurrencyLimiter getTransferBatches() {
+		return transferBatches;
+	}
+
+	public ConcurrencyLimiter getBalances() {
+		return balances;
+	}
+
+	public ConcurrencyLimiter getBalanceBatches() {
+		return balanceBatches;
+	}
+
+}
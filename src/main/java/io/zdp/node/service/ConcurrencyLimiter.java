@@ -0,0 +1,202 @@
+package io.zdp.node.service;
+
+import java.util.concurrent.TimeUnit;
+
+import io.zdp.node.error.OverloadedException;
+
+/**
+ * Limits the number of requests in flight, the limit adapts to the observed latency.
+ *
+ * While latency stays within <code>tolerance</code> times the lowest latency seen, a busy limiter raises its limit; as requests start to
+ * queue up inside the node and latency grows, the limit shrinks in proportion. Requests over the limit wait in a short queue for up to
+ * <code>queueTimeout</code> ms, beyond that they are rejected at once with an {@link OverloadedException}.
+ */
+public class ConcurrencyLimiter {
+
+	private final String name;
+
+	private final int minLimit;
+
+	private final int maxLimit;
+
+	private final int queueSize;
+
+	private final long queueTimeout;
+
+	private final double tolerance;
+
+	private double limit;
+
+	private int inFlight;
+
+	private int waiting;
+
+	// Latencies in ns, the lowest one slowly follows the current one so the baseline adapts to a changed load
+	private double minLatency = Double.MAX_VALUE;
+
+	private double latency;
+
+	// Statistics
+	private long admitted;
+
+	private long rejected;
+
+	/**
+	 * A started request, release it once done
+	 */
+	public final class Permit {
+
+		private final long started = System.nanoTime();
+
+		private boolean released;
+
+		private Permit() {
+		}
+
+		public void release() {
+
+			synchronized (ConcurrencyLimiter.this) {
+
+				if (released) {
+					return;
+				}
+
+				released = true;
+
+				onRelease(System.nanoTime() - started);
+
+			}
+
+		}
+
+	}
+
+	public ConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit, int queueSize, long queueTimeout, double tolerance) {
+		this.name = name;
+		this.minLimit = Math.max(minLimit, 1);
+		this.maxLimit = Math.max(maxLimit, this.minLimit);
+		this.limit = Math.min(Math.max(initialLimit, this.minLimit), this.maxLimit);
+		this.queueSize = queueSize;
+		this.queueTimeout = queueTimeout;
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * @throws OverloadedException if the limit is reached and the queue is full or no permit was freed in time
+	 */
+	public synchronized Permit acquire() {
+
+		if (inFlight < (int) limit) {
+			return admit();
+		}
+
+		if (waiting >= queueSize) {
+			throw reject("queue full");
+		}
+
+		waiting++;
+
+		try {
+
+			long remaining = TimeUnit.MILLISECONDS.toNanos(queueTimeout);
+
+			while (inFlight >= (int) limit) {
+
+				if (remaining <= 0) {
+					throw reject("queue timeout");
+				}
+
+				final long st = System.nanoTime();
+
+				TimeUnit.NANOSECONDS.timedWait(this, remaining);
+
+				remaining -= System.nanoTime() - st;
+
+			}
+
+			return admit();
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw reject("interrupted");
+		} finally {
+			waiting--;
+		}
+
+	}
+
+	private Permit admit() {
+		inFlight++;
+		admitted++;
+		return new Permit();
+	}
+
+	private OverloadedException reject(String reason) {
+
+		rejected++;
+
+		// Roughly the time for the requests in flight to finish
+		final long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toMillis((long) latency));
+
+		return new OverloadedException(name + " overloaded (" + reason + "), " + inFlight + " in flight, limit " + (int) limit, retryAfter);
+
+	}
+
+	private void onRelease(long rtt) {
+
+		final boolean busy = inFlight >= limit / 2;
+
+		inFlight--;
+
+		latency = latency == 0 ? rtt : latency + (rtt - latency) * 0.1;
+
+		minLatency = rtt < minLatency ? rtt : minLatency + (rtt - minLatency) * 0.00001;
+
+		// Latency within tolerance -> 1, twice that or more -> 0.5
+		final double gradient = Math.max(0.5, Math.min(1.0, tolerance * minLatency / latency));
+
+		double next = limit * gradient;
+
+		// Only grow while the limit is actually used
+		if (busy) {
+			next += Math.sqrt(limit);
+		}
+
+		limit = Math.max(minLimit, Math.min(maxLimit, limit * 0.95 + next * 0.05));
+
+		notifyAll();
+
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public synchronized int getLimit() {
+		return (int) limit;
+	}
+
+	public synchronized int getInFlight() {
+		return inFlight;
+	}
+
+	public synchronized int getWaiting() {
+		return waiting;
+	}
+
+	public synchronized long getAdmitted() {
+		return admitted;
+	}
+
+	public synchronized long getRejected() {
+		return rejected;
+	}
+
+	/**
+	 * Average latency, ms
+	 */
+	public synchronized long getLatency() {
+		return TimeUnit.NANOSECONDS.toMillis((long) latency);
+	}
+
+}
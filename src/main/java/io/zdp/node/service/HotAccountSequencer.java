@@ -0,0 +1,230 @@
+package io.zdp.node.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import io.zdp.node.error.OverloadedException;
+
+/**
+ * Runs the transfers of each hot account one group at a time, in arrival order.
+ *
+ * Transfers queued for an account while its previous group is in progress are folded into the next group, up to <code>maxGroup</code>
+ * of them and as long as their counterparties differ, so the account takes one prepare and commit round per group instead of one per
+ * transfer. At most <code>maxQueue</code> transfers wait per account, beyond that they are rejected with an {@link OverloadedException}.
+ */
+public class HotAccountSequencer<T, R> {
+
+	/**
+	 * Makes the transfers of a group, one result per transfer in the same order
+	 */
+	public interface GroupProcessor<T, R> {
+
+		List<R> process(String account, List<T> group);
+
+	}
+
+	private final int maxGroup;
+
+	private final int maxQueue;
+
+	private final Executor executor;
+
+	private final Function<T, Object> counterparty;
+
+	private final GroupProcessor<T, R> processor;
+
+	private final ConcurrentHashMap<String, Lane> lanes = new ConcurrentHashMap<>();
+
+	// Statistics
+	private final AtomicLong groups = new AtomicLong();
+	private final AtomicLong transfers = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+
+	private static final class Entry<T, R> {
+
+		private final T transfer;
+
+		private final CompletableFuture<R> result = new CompletableFuture<>();
+
+		private Entry(T transfer) {
+			this.transfer = transfer;
+		}
+
+	}
+
+	/**
+	 * Queue of one account, guarded by itself
+	 */
+	private final class Lane {
+
+		private final String account;
+
+		private final ArrayDeque<Entry<T, R>> queue = new ArrayDeque<>();
+
+		private boolean running;
+
+		// Duration of the last group, ns
+		private long groupTime;
+
+		private Lane(String account) {
+			this.account = account;
+		}
+
+	}
+
+	public HotAccountSequencer(int maxGroup, int maxQueue, Executor executor, Function<T, Object> counterparty, GroupProcessor<T, R> processor) {
+		this.maxGroup = Math.max(maxGroup, 1);
+		this.maxQueue = maxQueue;
+		this.executor = executor;
+		this.counterparty = counterparty;
+		this.processor = processor;
+	}
+
+	/**
+	 * Queue a transfer of the account, the result completes once its group is done
+	 *
+	 * @throws OverloadedException if too many transfers of the account wait already
+	 */
+	public CompletableFuture<R> submit(String account, T transfer) {
+
+		final Lane lane = lanes.computeIfAbsent(account, Lane::new);
+
+		final Entry<T, R> entry = new Entry<>(transfer);
+
+		synchronized (lane) {
+
+			if (lane.queue.size() >= maxQueue) {
+
+				rejected.incrementAndGet();
+
+				// Roughly the time to work off the queue
+				final long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toMillis(lane.groupTime) * (lane.queue.size() / maxGroup + 1));
+
+				throw new OverloadedException("Hot account " + account + " overloaded, " + lane.queue.size() + " transfer(s) queued", retryAfter);
+
+			}
+
+			lane.queue.add(entry);
+
+			if (lane.running) {
+				return entry.result;
+			}
+
+			lane.running = true;
+
+		}
+
+		try {
+			executor.execute(() -> drain(lane));
+		} catch (RejectedExecutionException e) {
+
+			synchronized (lane) {
+				lane.running = false;
+				lane.queue.remove(entry);
+			}
+
+			throw e;
+
+		}
+
+		return entry.result;
+
+	}
+
+	private void drain(Lane lane) {
+
+		while (true) {
+
+			final List<Entry<T, R>> group = new ArrayList<>();
+
+			synchronized (lane) {
+
+				final Set<Object> counterparties = new HashSet<>();
+
+				// Consecutive transfers only, a repeated counterparty starts the next group
+				while (group.size() < maxGroup && false == lane.queue.isEmpty() && counterparties.add(counterparty.apply(lane.queue.peek().transfer))) {
+					group.add(lane.queue.poll());
+				}
+
+				if (group.isEmpty()) {
+					lane.running = false;
+					return;
+				}
+
+			}
+
+			process(lane, group);
+
+		}
+
+	}
+
+	private void process(Lane lane, List<Entry<T, R>> group) {
+
+		final long st = System.nanoTime();
+
+		groups.incrementAndGet();
+		transfers.addAndGet(group.size());
+
+		final List<T> batch = new ArrayList<>(group.size());
+
+		group.forEach(e -> batch.add(e.transfer));
+
+		try {
+
+			final List<R> results = processor.process(lane.account, batch);
+
+			for (int i = 0; i < group.size(); i++) {
+				group.get(i).result.complete(results.get(i));
+			}
+
+		} catch (RuntimeException e) {
+			group.forEach(entry -> entry.result.completeExceptionally(e));
+		}
+
+		synchronized (lane) {
+			lane.groupTime = System.nanoTime() - st;
+		}
+
+	}
+
+	public long getGroups() {
+		return groups.get();
+	}
+
+	public long getTransfers() {
+		return transfers.get();
+	}
+
+	public long getRejected() {
+		return rejected.get();
+	}
+
+	/**
+	 * Transfers waiting for their group over all accounts
+	 */
+	public int getQueued() {
+
+		int queued = 0;
+
+		for (Lane lane : lanes.values()) {
+			synchronized (lane) {
+				queued += lane.queue.size();
+			}
+		}
+
+		return queued;
+
+	}
+
+}
@@ -1,25 +1,54 @@
 package io.zdp.node.service;
 
-import java.math.BigDecimal;
-
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.StringUtils;
+import org.bouncycastle.util.encoders.Hex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import io.zdp.api.model.v1.TransferRequest;
 import io.zdp.api.model.v1.TransferResponse;
+import io.zdp.crypto.account.ZDPAccountUuid;
+import io.zdp.node.common.Amount;
 import io.zdp.node.common.StringHelper;
 import io.zdp.node.domain.ValidatedTransferRequest;
+import io.zdp.node.error.OverloadedException;
 import io.zdp.node.error.TransferException;
 import io.zdp.node.network.validation.ValidationNetworkClient;
-import io.zdp.node.storage.account.dao.AccountDao;
 import io.zdp.node.storage.account.domain.Account;
+import io.zdp.node.storage.account.service.AccountService;
 import io.zdp.node.storage.transfer.dao.CurrentTransferDao;
-import io.zdp.node.storage.transfer.dao.TransferHeaderDao;
 import io.zdp.node.storage.transfer.domain.CurrentTransfer;
 import io.zdp.node.storage.transfer.domain.TransferHeader;
+import io.zdp.node.storage.transfer.service.TransferHeaderService;
+import io.zdp.node.web.api.client.model.TransfersRequest;
+import io.zdp.node.web.api.client.model.TransfersResponse;
 import io.zdp.node.web.api.validation.model.ValidationPrepareTransferResponse;
 import io.zdp.node.web.api.validation.model.ValidationPrepareTransferResponse.Status;
 
@@ -28,18 +57,18 @@ public class TransferService {
 
 	private Logger log = LoggerFactory.getLogger( this.getClass() );
 
-	public static final BigDecimal TX_FEE = BigDecimal.valueOf( 0.0001 );
+	public static final long TX_FEE = TransferValidationService.TX_FEE;
 
 	public static final String TX_PREFIX = "tx";
 
 	@Autowired
-	private AccountDao accountDao;
+	private AccountService accountService;
 
 	@Autowired
 	private CurrentTransferDao transferDao;
 
 	@Autowired
-	private TransferHeaderDao transferHeaderDao;
+	private TransferHeaderService transferHeaderService;
 
 	@Autowired
 	private TransferValidationService validationService;
@@ -47,6 +76,65 @@ public class TransferService {
 	@Autowired
 	private ValidationNetworkClient validationNetworkClient;
 
+	@Autowired
+	private AccountKeyCache keyCache;
+
+	@Value ( "${validation.transfer.batch.max:10000}" )
+	private int maxBatchTransfers;
+
+	@Value ( "${validation.transfer.batch.threads:16}" )
+	private int batchThreads;
+
+	@Value ( "${validation.network.timeout:5000}" )
+	private long timeout;
+
+	@Value ( "${transfers.hot.accounts:}" )
+	private String hotAccountsConfig;
+
+	@Value ( "${transfers.hot.group.size:256}" )
+	private int hotGroupSize;
+
+	@Value ( "${transfers.hot.queue:10000}" )
+	private int hotQueueSize;
+
+	@Value ( "${transfers.hot.threads:4}" )
+	private int hotThreads;
+
+	private ExecutorService batchPool;
+
+	// Public key hashes of the hot accounts, hex
+	private final Set < String > hotAccounts = new HashSet<>();
+
+	private ExecutorService hotPool;
+
+	private HotAccountSequencer < ValidatedTransferRequest, TransferResponse > hotSequencer;
+
+	// Commits of the last group of each hot account
+	private final Map < String, CompletableFuture < Void > > hotCommits = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void init ( ) throws Exception {
+
+		batchPool = Executors.newFixedThreadPool( batchThreads, new ThreadFactoryBuilder().setNameFormat( "transfer-batch-%d" ).setDaemon( true ).build() );
+
+		for ( final String uuid : StringUtils.split( hotAccountsConfig, ',' ) ) {
+			hotAccounts.add( Hex.toHexString( keyCache.getAccountUuid( uuid.trim() ).getPublicKeyHash() ) );
+		}
+
+		hotPool = Executors.newFixedThreadPool( hotThreads, new ThreadFactoryBuilder().setNameFormat( "hot-account-%d" ).setDaemon( true ).build() );
+
+		hotSequencer = new HotAccountSequencer<>( hotGroupSize, hotQueueSize, hotPool, this::getCounterparty, this::transferGroup );
+
+		log.info( "Hot accounts: " + hotAccounts.size() + ", max " + hotGroupSize + " transfer(s) per group" );
+
+	}
+
+	@PreDestroy
+	public void close ( ) {
+		batchPool.shutdownNow();
+		hotPool.shutdownNow();
+	}
+
 	/**
 	 * Make a transfer
 	 */
@@ -59,14 +147,28 @@ public class TransferService {
 		// Validate transfer request
 		final ValidatedTransferRequest enrichedTransferRequest = validationService.validate( request );
 
+		// Transfers of a hot account are made in groups by its sequencer
+		final String hot = getHotAccount( enrichedTransferRequest );
+
+		if ( hot != null ) {
+			return await( hotSequencer.submit( hot, enrichedTransferRequest ) );
+		}
+
 		// Ask Validation network
 		ValidationPrepareTransferResponse prepared = validationNetworkClient.prepare( enrichedTransferRequest );
 
 		if ( prepared.getStatus().equals( Status.APPROVED ) ) {
 
-			save( enrichedTransferRequest, resp );
+			final CurrentTransfer transfer;
+
+			try {
+				transfer = save( enrichedTransferRequest, resp );
+			} catch ( TransferException e ) {
+				validationNetworkClient.rollback( enrichedTransferRequest );
+				throw e;
+			}
 
-			validationNetworkClient.commit( enrichedTransferRequest );
+			validationNetworkClient.commit( enrichedTransferRequest, transfer );
 
 		} else {
 
@@ -80,74 +182,649 @@ public class TransferService {
 
 	}
 
-	@Transactional ( readOnly = false )
-	private void save ( ValidatedTransferRequest req, final TransferResponse resp ) throws TransferException {
+	public TransfersResponse transfer ( TransfersRequest request ) {
+
+		final TransfersResponse resp = new TransfersResponse();
+
+		if ( request.getTransfers().size() > maxBatchTransfers ) {
+			resp.getResponseMetadata().setComment( "Too many transfers, max " + maxBatchTransfers );
+			return resp;
+		}
+
+		long st = System.currentTimeMillis();
+
+		resp.setTransfers( transfer( request.getTransfers() ) );
+
+		long et = System.currentTimeMillis();
+
+		log.debug( request.getTransfers().size() + " transfers took: " + ( et - st ) + " ms." );
+
+		return resp;
+
+	}
+
+	/**
+	 * Make many transfers, one response per request in the same order.
+	 * 
+	 * Requests are validated in parallel, then transfers that don't share accounts are prepared together in one round. Transfers of the
+	 * same account go into later rounds in request order, a round waits for the commits of the previous one so the accounts are unlocked.
+	 * Transfers of hot accounts are handed to their sequencers instead.
+	 */
+	public List < TransferResponse > transfer ( List < TransferRequest > requests ) {
+
+		log.debug( "Requests: " + requests.size() );
+
+		final int count = requests.size();
+
+		final TransferResponse [ ] responses = new TransferResponse [ count ];
+
+		final ValidatedTransferRequest [ ] validated = new ValidatedTransferRequest [ count ];
+
+		// Validate
+		final CompletableFuture < ? > [ ] validations = new CompletableFuture < ? > [ count ];
+
+		for ( int i = 0; i < count; i++ ) {
+
+			final int index = i;
+
+			validations[i] = CompletableFuture.runAsync( ( ) -> {
+				try {
+					validated[index] = validationService.validate( requests.get( index ) );
+				} catch ( TransferException e ) {
+					responses[index] = TransferResponse.error( e.getError() );
+				}
+			}, batchPool );
+
+		}
+
+		CompletableFuture.allOf( validations ).join();
+
+		// Group into rounds of transfers with distinct accounts
+		final List < List < Integer > > rounds = new ArrayList<>();
+
+		final Map < String, Integer > lastRound = new HashMap<>();
+
+		final Set < String > transactionUuids = new HashSet<>();
+
+		final Map < Integer, CompletableFuture < TransferResponse > > hotResults = new HashMap<>();
+
+		for ( int i = 0; i < count; i++ ) {
+
+			final ValidatedTransferRequest req = validated[i];
+
+			if ( req == null ) {
+				continue;
+			}
+
+			// Same signed transfer twice
+			if ( false == transactionUuids.add( req.getTransactionUuid() ) ) {
+				validated[i] = null;
+				responses[i] = TransferResponse.error( TransferResponse.ERROR_TX_REPLAY );
+				continue;
+			}
+
+			final String hot = getHotAccount( req );
+
+			if ( hot != null ) {
+
+				try {
+					hotResults.put( i, hotSequencer.submit( hot, req ) );
+				} catch ( OverloadedException e ) {
+					log.info( e.getMessage() );
+					responses[i] = TransferResponse.error( TransferResponse.ERROR_REJECTED );
+				}
+
+				validated[i] = null;
+
+				continue;
+
+			}
+
+			final String from = req.getFromAccountUuid().getUuid();
+			final String to = req.getToAccountUuid().getUuid();
+
+			final int round = Math.max( lastRound.getOrDefault( from, -1 ), lastRound.getOrDefault( to, -1 ) ) + 1;
+
+			if ( round == rounds.size() ) {
+				rounds.add( new ArrayList<>() );
+			}
+
+			rounds.get( round ).add( i );
+
+			lastRound.put( from, round );
+			lastRound.put( to, round );
+
+		}
+
+		log.debug( count + " transfer(s) in " + rounds.size() + " round(s)" );
+
+		// Prepare and commit round by round
+		for ( int r = 0; r < rounds.size(); r++ ) {
+
+			final List < Integer > round = rounds.get( r );
+
+			final List < ValidatedTransferRequest > reqs = new ArrayList<>( round.size() );
+
+			round.forEach( i -> reqs.add( validated[i] ) );
+
+			final List < CompletableFuture < Void > > commits = new ArrayList<>( round.size() );
+
+			try {
+
+				final List < ValidationPrepareTransferResponse > prepared = validationNetworkClient.prepare( reqs );
+
+				for ( int j = 0; j < round.size(); j++ ) {
+
+					final int i = round.get( j );
+
+					responses[i] = new TransferResponse();
+
+					if ( prepared.get( j ).getStatus().equals( Status.APPROVED ) ) {
+
+						try {
+							final CurrentTransfer transfer = save( validated[i], responses[i] );
+							commits.add( validationNetworkClient.commit( validated[i], transfer ) );
+						} catch ( TransferException e ) {
+							responses[i] = TransferResponse.error( e.getError() );
+							validationNetworkClient.rollback( validated[i] );
+						}
+
+					} else {
+
+						responses[i].setError( TransferResponse.ERROR_REJECTED );
+
+						validationNetworkClient.rollback( validated[i] );
+
+					}
+
+				}
+
+			} catch ( Exception e ) {
+
+				log.error( "Error: ", e );
+
+				for ( final int i : round ) {
+					if ( responses[i] == null ) {
+						responses[i] = TransferResponse.error( TransferResponse.ERROR_SYSTEM );
+					}
+				}
+
+			}
+
+			if ( r + 1 < rounds.size() && false == commits.isEmpty() ) {
+				try {
+					CompletableFuture.allOf( commits.toArray( new CompletableFuture < ? > [ commits.size() ] ) ).get( timeout, TimeUnit.MILLISECONDS );
+				} catch ( TimeoutException e ) {
+					log.warn( "Commits of round " + r + " not delivered in " + timeout + " ms, go on" );
+				} catch ( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+					break;
+				} catch ( Exception e ) {
+					log.error( "Error: ", e );
+				}
+			}
+
+		}
+
+		for ( final Map.Entry < Integer, CompletableFuture < TransferResponse > > e : hotResults.entrySet() ) {
+			try {
+				responses[e.getKey()] = await( e.getValue() );
+			} catch ( TransferException ex ) {
+				responses[e.getKey()] = TransferResponse.error( ex.getError() );
+			} catch ( OverloadedException ex ) {
+				log.info( ex.getMessage() );
+				responses[e.getKey()] = TransferResponse.error( TransferResponse.ERROR_REJECTED );
+			} catch ( Exception ex ) {
+				log.error( "Error: ", ex );
+			}
+		}
+
+		// Left over if interrupted
+		for ( int i = 0; i < count; i++ ) {
+			if ( responses[i] == null ) {
+				responses[i] = TransferResponse.error( TransferResponse.ERROR_SYSTEM );
+			}
+		}
+
+		return Arrays.asList( responses );
+
+	}
+
+	/**
+	 * Move the accounts, then record the transfer.
+	 * 
+	 * The accounts are written in one transaction of their own (the account store), and only once it committed the transfer header goes to
+	 * the transfer store, so a transfer rejected because its accounts changed since validation leaves no header behind and may be retried.
+	 * The accounts loaded for validation stay as they are until then.
+	 */
+	private CurrentTransfer save ( ValidatedTransferRequest req, final TransferResponse resp ) throws TransferException {
+
+		// Accounts as loaded for validation
+		final Account loadedFrom = req.getFromAccount();
 
 		// If no FROM account, stop no
-		if ( req.getFromAccount() == null ) {
+		if ( loadedFrom == null ) {
 			throw new TransferException( TransferResponse.ERROR_INVALID_FROM_ACCOUNT );
 		}
 
+		if ( loadedFrom.getBalanceRaw() < req.getTotalAmount() ) {
+			throw new TransferException( TransferResponse.ERROR_INSUFFICIENT_FUNDS );
+		}
+
+		final boolean newTo = req.getToAccount() == null;
+
+		// If no TO account, create ONE
+		final Account loadedTo = newTo ? newAccount( req.getToAccountUuid() ) : req.getToAccount();
+
+		if ( newTo ) {
+			log.debug( "Create new TO account: " + loadedTo );
+		}
+
+		final long newToBalance;
+
+		try {
+			newToBalance = Amount.add( loadedTo.getBalanceRaw(), req.getAmount() );
+		} catch ( ArithmeticException e ) {
+			throw new TransferException( TransferResponse.ERROR_INVALID_AMOUNT );
+		}
+
+		// Update balances, unless another transfer moved the accounts since validation
+		final Account from = snapshot( loadedFrom, loadedFrom.getBalanceRaw() - req.getTotalAmount(), loadedFrom.getHeight() + 1 );
+		final Account to = snapshot( loadedTo, newToBalance, loadedTo.getHeight() + 1 );
+
+		try {
+			this.accountService.saveTransferAccounts( from, to, newTo );
+		} catch ( OptimisticLockingFailureException | DataIntegrityViolationException e ) {
+			log.info( "Accounts changed since validation, reject transfer: " + e.getMessage() );
+			throw new TransferException( TransferResponse.ERROR_REJECTED );
+		}
+
+		log.debug( "saved new from balance/height: " + from );
+		log.debug( "saved new to balance/height: " + to );
+
 		// Save transfer header
 		TransferHeader th = new TransferHeader();
 		th.setUuid( req.getTransactionSignature() );
-		this.transferHeaderDao.save( th );
+		this.transferHeaderService.save( th );
 
 		// Save Current Transfer
+		final CurrentTransfer transfer = saveCurrentTransfer( req, resp );
+
+		// Accounts as committed, sent to the validation network
+		req.setFromAccount( from );
+		req.setToAccount( to );
+
+		log.debug( "Response: " + resp );
+
+		return transfer;
+
+	}
+
+	private CurrentTransfer saveCurrentTransfer ( ValidatedTransferRequest req, final TransferResponse resp ) {
+
 		final CurrentTransfer transfer = new CurrentTransfer();
 		transfer.setUuid( req.getTransactionUuid() );
-		transfer.setAmount( req.getAmount().toPlainString() );
+		transfer.setAmount( req.getAmount() );
 		transfer.setDate( req.getTime() );
 		transfer.setFrom( req.getFromAccountUuid().getUuid() );
 		transfer.setTo( req.getToAccountUuid().getUuid() );
 		transfer.setMemo( StringHelper.cleanUpMemo( req.getMemo() ) );
-		transfer.setFee( req.getFee().toPlainString() );
+		transfer.setFee( req.getFee() );
 		this.transferDao.save( transfer );
 
 		resp.setUuid( req.getTransactionUuid() );
 
 		log.debug( "Saved tx: " + transfer );
 
-		// Update balances
-		final Account from = this.accountDao.findByUuid( req.getFromAccountUuid().getPublicKeyHash() );
+		return transfer;
 
-		if ( from.getBalance().compareTo( req.getTotalAmount() ) < 0 ) {
-			throw new TransferException( TransferResponse.ERROR_INSUFFICIENT_FUNDS );
+	}
+
+	/**
+	 * Hot account of the transfer as hex public key hash, if exactly one of its accounts is hot
+	 */
+	private String getHotAccount ( ValidatedTransferRequest req ) {
+
+		final String from = Hex.toHexString( req.getFromAccountUuid().getPublicKeyHash() );
+		final String to = Hex.toHexString( req.getToAccountUuid().getPublicKeyHash() );
+
+		final boolean hotFrom = hotAccounts.contains( from );
+
+		// Between two hot accounts both sequencers would move them, such a transfer goes on its own
+		if ( hotFrom == hotAccounts.contains( to ) ) {
+			return null;
 		}
 
-		Account to = this.accountDao.findByUuid( req.getToAccountUuid().getPublicKeyHash() );
+		return hotFrom ? from : to;
 
-		// If no TO account, create ONE
-		if ( req.getToAccount() == null ) {
+	}
+
+	/**
+	 * The other account of a hot account transfer, hex public key hash
+	 */
+	private Object getCounterparty ( ValidatedTransferRequest req ) {
+
+		final String from = Hex.toHexString( req.getFromAccountUuid().getPublicKeyHash() );
+
+		return hotAccounts.contains( from ) ? Hex.toHexString( req.getToAccountUuid().getPublicKeyHash() ) : from;
+
+	}
+
+	/**
+	 * Make a group of transfers of a hot account in one round: one prepare batch under a shared lock, the hot account written once with
+	 * the combined amounts, each transfer saved to the tx log and committed on its own.
+	 * 
+	 * Commits carry the hot account as of each transfer, validation nodes only ever move an account forward so they end up at the
+	 * state after the whole group whatever order the commits arrive in.
+	 */
+	private List < TransferResponse > transferGroup ( String hot, List < ValidatedTransferRequest > group ) {
+
+		log.debug( "Hot account " + hot + ": group of " + group.size() + " transfer(s)" );
+
+		final int count = group.size();
+
+		final TransferResponse [ ] responses = new TransferResponse [ count ];
+
+		// Validation nodes release the hot account on the commits of the previous group, nodes with an open circuit aren't waited for, they
+		// aren't asked to prepare either
+		awaitCommits( hotCommits.remove( hot ) );
+
+		final String lockUuid = UUID.randomUUID().toString();
+
+		group.forEach( req -> req.setLockUuid( lockUuid ) );
+
+		// Approved transfers not yet committed or rolled back, they hold locks on the validation nodes
+		final Set < Integer > approved = new LinkedHashSet<>();
+
+		final List < CompletableFuture < Void > > commits = new ArrayList<>( count );
+
+		try {
+
+			final List < ValidationPrepareTransferResponse > prepared = validationNetworkClient.prepare( group );
+
+			for ( int i = 0; i < count; i++ ) {
+
+				if ( prepared.get( i ).getStatus().equals( Status.APPROVED ) ) {
+					approved.add( i );
+				} else {
+					responses[i] = TransferResponse.error( TransferResponse.ERROR_REJECTED );
+					validationNetworkClient.rollback( group.get( i ) );
+				}
+
+			}
 
-			to = new Account();
-			to.setBalance( BigDecimal.ZERO );
-			to.setCurve( req.getToAccountUuid().getCurveAsIndex() );
-			to.setHeight( 0 );
-			to.setTransferHash( new byte [ ] {} );
-			to.setUuid( req.getToAccountUuid().getPublicKeyHash() );
+			if ( false == approved.isEmpty() ) {
 
-			log.debug( "Create new TO account: " + to );
+				final CurrentTransfer [ ] transfers = saveGroup( hot, group, new ArrayList<>( approved ), responses );
+
+				for ( int i = 0; i < count; i++ ) {
+
+					if ( false == approved.contains( i ) ) {
+						continue;
+					}
+
+					if ( transfers[i] != null ) {
+						commits.add( validationNetworkClient.commit( group.get( i ), transfers[i] ) );
+					} else {
+						validationNetworkClient.rollback( group.get( i ) );
+					}
+
+					approved.remove( i );
+
+				}
+
+			}
+
+		} catch ( Exception e ) {
+
+			log.error( "Error: ", e );
+
+			// Don't leave the accounts locked on the validation nodes until the leases expire
+			for ( final int i : approved ) {
+				validationNetworkClient.rollback( group.get( i ) );
+			}
+
+			for ( int i = 0; i < count; i++ ) {
+				if ( responses[i] == null ) {
+					responses[i] = TransferResponse.error( TransferResponse.ERROR_SYSTEM );
+				}
+			}
 
 		}
 
-		final BigDecimal newFromBalance = from.getBalance().subtract( req.getTotalAmount() );
-		from.setHeight( from.getHeight() + 1 );
-		from.setBalance( newFromBalance );
+		if ( false == commits.isEmpty() ) {
+			hotCommits.put( hot, CompletableFuture.allOf( commits.toArray( new CompletableFuture < ? > [ commits.size() ] ) ) );
+		}
 
-		this.accountDao.save( from );
+		return Arrays.asList( responses );
 
-		log.debug( "saved new from balance/height: " + from );
+	}
 
-		final BigDecimal newToBalance = to.getBalance().add( req.getAmount() );
-		to.setBalance( newToBalance );
-		to.setHeight( to.getHeight() + 1 );
-		this.accountDao.save( to );
+	/**
+	 * Apply the approved transfers of a group to the hot account in order, then write it and the counterparties at once.
+	 * 
+	 * @return the saved transfer per group index, null for the ones that failed, their responses are set then and they are left to the
+	 *         caller to roll back
+	 */
+	private CurrentTransfer [ ] saveGroup ( String hot, List < ValidatedTransferRequest > group, List < Integer > approved, TransferResponse [ ] responses ) {
 
-		log.debug( "saved new to balance/height: " + to );
+		final CurrentTransfer [ ] transfers = new CurrentTransfer [ group.size() ];
 
-		log.debug( "Response: " + resp );
+		// Stored state, the snapshots taken for validation may lag behind the previous groups
+		Account hotAccount = accountService.findByUuid( Hex.decode( hot ) );
+
+		final boolean newHot = hotAccount == null;
+
+		if ( newHot ) {
+			final ValidatedTransferRequest first = group.get( approved.get( 0 ) );
+			hotAccount = newAccount( isOutgoing( hot, first ) ? first.getFromAccountUuid() : first.getToAccountUuid() );
+		}
+
+		final long hotHeight = hotAccount.getHeight();
+
+		long balance = hotAccount.getBalanceRaw();
+		long height = hotHeight;
+
+		final List < Integer > moved = new ArrayList<>( approved.size() );
+		final List < Account > counterparties = new ArrayList<>( approved.size() );
+		final List < Boolean > newCounterparties = new ArrayList<>( approved.size() );
+
+		for ( final int i : approved ) {
+
+			final ValidatedTransferRequest req = group.get( i );
+
+			final boolean outgoing = isOutgoing( hot, req );
+
+			Account other = outgoing ? req.getToAccount() : req.getFromAccount();
+
+			final boolean newOther = other == null;
+
+			try {
+
+				// Same transfer queued twice
+				if ( transferHeaderService.exists( req.getTransactionSignature() ) ) {
+					throw new TransferException( TransferResponse.ERROR_TX_REPLAY );
+				}
+
+				final long total = req.getTotalAmount();
+
+				if ( outgoing ) {
+
+					if ( balance < total ) {
+						throw new TransferException( TransferResponse.ERROR_INSUFFICIENT_FUNDS );
+					}
+
+					if ( newOther ) {
+						other = newAccount( req.getToAccountUuid() );
+					}
+
+					other.setBalanceRaw( Amount.add( other.getBalanceRaw(), req.getAmount() ) );
+
+					balance -= total;
+
+				} else {
+
+					if ( newOther ) {
+						throw new TransferException( TransferResponse.ERROR_INVALID_FROM_ACCOUNT );
+					}
+
+					if ( other.getBalanceRaw() < total ) {
+						throw new TransferException( TransferResponse.ERROR_INSUFFICIENT_FUNDS );
+					}
+
+					balance = Amount.add( balance, req.getAmount() );
+
+					other.setBalanceRaw( other.getBalanceRaw() - total );
+
+				}
+
+			} catch ( TransferException e ) {
+				responses[i] = TransferResponse.error( e.getError() );
+				continue;
+			} catch ( ArithmeticException e ) {
+				responses[i] = TransferResponse.error( TransferResponse.ERROR_INVALID_AMOUNT );
+				continue;
+			}
+
+			other.setHeight( other.getHeight() + 1 );
+
+			height++;
+
+			// Hot account as of this transfer, for its commit
+			final Account snapshot = snapshot( hotAccount, balance, height );
+
+			req.setFromAccount( outgoing ? snapshot : other );
+			req.setToAccount( outgoing ? other : snapshot );
+
+			moved.add( i );
+			counterparties.add( other );
+			newCounterparties.add( newOther );
+
+		}
+
+		if ( moved.isEmpty() ) {
+			return transfers;
+		}
+
+		hotAccount.setBalanceRaw( balance );
+		hotAccount.setHeight( height );
+
+		try {
+			this.accountService.saveGroupAccounts( hotAccount, hotHeight, newHot, counterparties, newCounterparties );
+		} catch ( OptimisticLockingFailureException | DataIntegrityViolationException e ) {
+
+			log.info( "Accounts changed since validation, reject group of " + moved.size() + " transfer(s): " + e.getMessage() );
+
+			for ( final int i : moved ) {
+				responses[i] = TransferResponse.error( TransferResponse.ERROR_REJECTED );
+			}
+
+			return transfers;
+
+		}
+
+		log.debug( "Saved hot account balance/height: " + hotAccount );
+
+		for ( final int i : moved ) {
+
+			final ValidatedTransferRequest req = group.get( i );
+
+			final TransferHeader th = new TransferHeader();
+			th.setUuid( req.getTransactionSignature() );
+			this.transferHeaderService.save( th );
+
+			responses[i] = new TransferResponse();
+
+			transfers[i] = saveCurrentTransfer( req, responses[i] );
+
+		}
+
+		return transfers;
+
+	}
+
+	private static boolean isOutgoing ( String hot, ValidatedTransferRequest req ) {
+		return Hex.toHexString( req.getFromAccountUuid().getPublicKeyHash() ).equals( hot );
+	}
+
+	/**
+	 * Result of a transfer handed to a hot account sequencer, failures are rethrown as they were raised in its group
+	 */
+	private TransferResponse await ( CompletableFuture < TransferResponse > result ) throws TransferException {
+
+		try {
+			return result.get();
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new TransferException( TransferResponse.ERROR_SYSTEM );
+		} catch ( ExecutionException e ) {
+
+			final Throwable cause = e.getCause();
+
+			if ( cause instanceof TransferException ) {
+				throw ( TransferException ) cause;
+			}
+
+			if ( cause instanceof RuntimeException ) {
+				throw ( RuntimeException ) cause;
+			}
+
+			if ( cause instanceof Error ) {
+				throw ( Error ) cause;
+			}
+
+			throw new IllegalStateException( cause );
+
+		}
+
+	}
+
+	private void awaitCommits ( CompletableFuture < Void > commits ) {
+
+		if ( commits == null ) {
+			return;
+		}
+
+		try {
+			commits.get( timeout, TimeUnit.MILLISECONDS );
+		} catch ( TimeoutException e ) {
+			log.warn( "Commits not delivered in " + timeout + " ms, go on" );
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		} catch ( Exception e ) {
+			log.error( "Error: ", e );
+		}
+
+	}
+
+	private static Account newAccount ( ZDPAccountUuid uuid ) {
+
+		final Account a = new Account();
+		a.setBalanceRaw( 0 );
+		a.setCurve( uuid.getCurveAsIndex() );
+		a.setHeight( 0 );
+		a.setTransferHash( new byte [ ] {} );
+		a.setUuid( uuid.getPublicKeyHash() );
+
+		return a;
+
+	}
+
+	private static Account snapshot ( Account a, long balance, long height ) {
+
+		final Account s = new Account();
+		s.setUuid( a.getUuidAsBytes() );
+		s.setCurve( a.getCurve() );
+		s.setTransferHash( a.getTransferHash() );
+		s.setBalanceRaw( balance );
+		s.setHeight( height );
+
+		return s;
+
+	}
 
+	public HotAccountSequencer < ValidatedTransferRequest, TransferResponse > getHotSequencer ( ) {
+		return hotSequencer;
 	}
 
 }
\ No newline at end of file
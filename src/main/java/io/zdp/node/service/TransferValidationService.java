@@ -1,45 +1,87 @@
 package io.zdp.node.service;
 
-import java.math.BigDecimal;
 import java.security.PublicKey;
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
-import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.math.NumberUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import io.zdp.api.model.v1.TransferRequest;
 import io.zdp.api.model.v1.TransferResponse;
 import io.zdp.crypto.Base58;
-import io.zdp.crypto.Hashing;
-import io.zdp.crypto.Keys;
 import io.zdp.crypto.Signing;
 import io.zdp.crypto.account.ZDPAccountUuid;
+import io.zdp.node.common.Amount;
 import io.zdp.node.common.StringHelper;
 import io.zdp.node.domain.ValidatedTransferRequest;
 import io.zdp.node.error.TransferException;
 import io.zdp.node.storage.account.dao.AccountDao;
 import io.zdp.node.storage.account.domain.Account;
-import io.zdp.node.storage.transfer.dao.TransferHeaderDao;
-
+import io.zdp.node.storage.transfer.service.TransferHeaderService;
+
+/**
+ * Validates transfer requests in stages.
+ *
+ * Syntactic checks run on the calling thread and reject malformed requests before anything else is done. The account and replay lookups
+ * then run on a pool sized to the database connections while the signature is verified on a pool sized to the CPUs, and the results are
+ * joined into the validated request.
+ */
 @Service
 public class TransferValidationService {
 
 	private Logger log = LoggerFactory.getLogger(this.getClass());
 
-	public static final BigDecimal TX_FEE = BigDecimal.valueOf(0.0001);
+	public static final long TX_FEE = Amount.parse("0.0001");
 
 	@Autowired
 	private AccountDao accountDao;
 
 	@Autowired
-	private TransferHeaderDao transferHeaderDao;
+	private TransferHeaderService transferHeaderService;
+
+	@Autowired
+	private AccountKeyCache keyCache;
+
+	@Value("${validation.transfer.lookup.threads:32}")
+	private int lookupThreads;
+
+	@Value("${validation.transfer.verify.threads:0}")
+	private int verifyThreads;
+
+	private ExecutorService lookupPool;
+
+	private ExecutorService verifyPool;
+
+	@PostConstruct
+	public void init() {
+
+		final int verifyPoolSize = verifyThreads > 0 ? verifyThreads : Runtime.getRuntime().availableProcessors();
+
+		lookupPool = Executors.newFixedThreadPool(lookupThreads, new ThreadFactoryBuilder().setNameFormat("transfer-lookup-%d").setDaemon(true).build());
+		verifyPool = Executors.newFixedThreadPool(verifyPoolSize, new ThreadFactoryBuilder().setNameFormat("transfer-verify-%d").setDaemon(true).build());
+
+		log.info("Transfer validation threads: " + lookupThreads + " lookup, " + verifyPoolSize + " verify");
+
+	}
+
+	@PreDestroy
+	public void close() {
+		lookupPool.shutdownNow();
+		verifyPool.shutdownNow();
+	}
 
-	@Transactional(readOnly = true)
 	public ValidatedTransferRequest validate(final TransferRequest request) throws TransferException {
 
 		log.debug("Request: " + request);
@@ -61,104 +103,90 @@ public class TransferValidationService {
 				throw new TransferException(TransferResponse.ERROR_INVALID_TO_ACCOUNT);
 			}
 
-			// Should contain only digits and one optional dot
-			if (false == StringUtils.containsOnly(request.getAmount(), "0123456789.")) {
-				log.error("Amount is not valid: " + request.getAmount());
-				throw new TransferException(TransferResponse.ERROR_INVALID_AMOUNT);
-			}
+			// Should contain only digits and one optional dot, no more decimals than units hold
+			final long amount;
 
-			// Check amount
-			if (false == NumberUtils.isCreatable(request.getAmount())) {
+			try {
+				amount = Amount.parse(request.getAmount());
+				Amount.add(amount, TX_FEE);
+			} catch (NumberFormatException | ArithmeticException e) {
 				log.error("Amount is not valid: " + request.getAmount());
 				throw new TransferException(TransferResponse.ERROR_INVALID_AMOUNT);
 			}
 
 			// Validate amount (must be > 0)
-			if (request.getAmountAsBigDecimal().compareTo(BigDecimal.ZERO) <= 0) {
-				log.error("Amount is not valid: " + request.getAmountAsBigDecimal());
+			if (amount <= 0) {
+				log.error("Amount is not valid: " + request.getAmount());
 				throw new TransferException(TransferResponse.ERROR_INVALID_AMOUNT);
 			}
 
 			// Extract FROM address
 
-			final ZDPAccountUuid fromAccountUuid = new ZDPAccountUuid(request.getFrom());
+			final ZDPAccountUuid fromAccountUuid = keyCache.getAccountUuid(request.getFrom());
 
 			enrichedRequest.setFromAccountUuid(fromAccountUuid);
 
-			if (false == Arrays.equals(fromAccountUuid.getPublicKeyHash(), Hashing.hashPublicKey(Base58.decode(request.getPublicKey())))) {
+			if (false == Arrays.equals(fromAccountUuid.getPublicKeyHash(), keyCache.getPublicKeyHash(request.getPublicKey()))) {
 				log.error("Don't think the tx signer is authorized to act on this FROM account");
 				throw new TransferException(TransferResponse.ERROR_TX_SIGNATURE_UNAUTHORIZED);
 			}
 
-			final Account fromAccount = this.accountDao.findByUuid(fromAccountUuid.getPublicKeyHash());
-
-			enrichedRequest.setFromAccount(fromAccount);
-
-			/*
-
-			The node might not know the account yet, don't verify
-
-			if (fromAccount == null) {
-				log.debug("Not found FROM account: " + fromAccountUuid);
-				throw new TransferException(TransferResponse.ERROR_INVALID_FROM_ACCOUNT);
-			}
-			
-			*/
-
-			final ZDPAccountUuid toAccountUuid = new ZDPAccountUuid(request.getTo());
+			final ZDPAccountUuid toAccountUuid = keyCache.getAccountUuid(request.getTo());
 			enrichedRequest.setToAccountUuid(toAccountUuid);
 
-			final Account toAccount = this.accountDao.findByUuid(toAccountUuid.getPublicKeyHash());
-			enrichedRequest.setToAccount(toAccount);
+			final byte[] signature = request.getUniqueTransactionUuid();
 
-			// Validate signature
-			final String pubKeyCurve = fromAccountUuid.getCurve();
+			// Lookups and signature verification run concurrently, each lookup in its own read-only transaction
 
-			final PublicKey pubKey = Keys.toPublicKey(Base58.decode(request.getPublicKey()), pubKeyCurve);
+			// Most transfers are ruled out by the replay filter without a query
+			final CompletableFuture<Boolean> replay = transferHeaderService.mightExist(signature) ? CompletableFuture.supplyAsync(() -> transferHeaderService.exists(signature), lookupPool) : CompletableFuture.completedFuture(false);
 
-			byte[] signature = request.getUniqueTransactionUuid();
+			final CompletableFuture<Boolean> validSignature = CompletableFuture.supplyAsync(() -> {
+				try {
+					final PublicKey pubKey = keyCache.getPublicKey(request.getPublicKey(), fromAccountUuid.getCurve());
+					return Signing.isValidSignature(pubKey, signature, request.getSignature());
+				} catch (Exception e) {
+					log.debug("Can't verify signature: " + e.getMessage());
+					return false;
+				}
+			}, verifyPool);
 
-			enrichedRequest.setTransactionUuid(Base58.encode(signature));
+			final CompletableFuture<Account> fromAccount = CompletableFuture.supplyAsync(() -> accountDao.findByUuid(fromAccountUuid.getPublicKeyHash()), lookupPool);
+
+			final CompletableFuture<Account> toAccount = CompletableFuture.supplyAsync(() -> accountDao.findByUuid(toAccountUuid.getPublicKeyHash()), lookupPool);
 
 			// Check if such a tx exists, if so, return
-			if (transferHeaderDao.findByUuid(signature) != null) {
+			if (join(replay)) {
 				throw new TransferException(TransferResponse.ERROR_TX_REPLAY);
 			}
 
-			final boolean validSignature = Signing.isValidSignature(pubKey, signature, request.getSignature());
-
-			log.debug("validSignature: " + validSignature);
-
-			if (validSignature) {
+			final boolean signatureVerified = join(validSignature);
 
-				// From should have enough to transfer + fee
-				final BigDecimal totalAmount = request.getAmountAsBigDecimal().add(TX_FEE);
+			log.debug("validSignature: " + signatureVerified);
 
-				enrichedRequest.setAmount(request.getAmountAsBigDecimal());
+			if (false == signatureVerified) {
+				log.error("Signature not verified");
+				throw new TransferException(TransferResponse.ERROR_TX_SIGNATURE_UNAUTHORIZED);
+			}
 
-				log.debug("totalAmount: " + totalAmount);
+			// The node might not know the FROM account yet, don't verify
+			enrichedRequest.setFromAccount(join(fromAccount));
+			enrichedRequest.setToAccount(join(toAccount));
 
-				/*
-					
-					This node might have an older account record, so the balance check doesn't make sense at this stage.
-					
-					if (fromAccount.getBalance().compareTo(totalAmount) < 0) {
-						throw new TransferException(TransferResponse.ERROR_INSUFFICIENT_FUNDS);
-					}
+			/*
 				
-				*/
-
-				enrichedRequest.setMemo(StringHelper.cleanUpMemo(request.getMemo()));
-				enrichedRequest.setTransactionSignature(signature);
-				enrichedRequest.setTransactionUuid("tx" + Base58.encode(signature) + "z");
-
-			} else {
-
-				log.error("Signature not verified");
-
-				throw new TransferException(TransferResponse.ERROR_TX_SIGNATURE_UNAUTHORIZED);
+				This node might have an older account record, so the balance check doesn't make sense at this stage.
+				
+				if (fromAccount.getBalanceRaw() < enrichedRequest.getTotalAmount()) {
+					throw new TransferException(TransferResponse.ERROR_INSUFFICIENT_FUNDS);
+				}
+			
+			*/
 
-			}
+			enrichedRequest.setAmount(amount);
+			enrichedRequest.setMemo(StringHelper.cleanUpMemo(request.getMemo()));
+			enrichedRequest.setTransactionSignature(signature);
+			enrichedRequest.setTransactionUuid("tx" + Base58.encode(signature) + "z");
 
 		} catch (TransferException ex) {
 
@@ -180,4 +208,14 @@ public class TransferValidationService {
 
 	}
 
+	private static <T> T join(CompletableFuture<T> stage) throws Exception {
+
+		try {
+			return stage.get();
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+		}
+
+	}
+
 }
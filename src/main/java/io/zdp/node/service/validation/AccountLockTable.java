@@ -0,0 +1,538 @@
+package io.zdp.node.service.validation;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Accounts locked by prepared transfers, keyed by the raw account uuid (public key hash).
+ *
+ * Both accounts of a transfer are locked in one call under a single lease, which holds a unique token, the owner (the transfer uuid, or
+ * the lock uuid shared by the transfers of a hot account group) and the transfers holding it. An account locked by the transfers of a
+ * group stays locked until the last of them is committed or rolled back; commit and rollback only release locks of their own transfer,
+ * a lease nobody releases expires after <code>validation.lock.lease</code> ms. The table is a {@link ConcurrentHashMap} updated with compare-and-set operations only, so
+ * concurrent prepares never block each other and a losing one just gets a conflict.
+ *
+ * Optionally a conflicting prepare waits for the lock instead: up to <code>validation.lock.wait.queue</code> prepares per locked account
+ * park for at most <code>validation.lock.wait</code> ms and retry as soon as the holder releases it. A waiting prepare holds no locks, so
+ * waits can't deadlock.
+ */
+@Component
+public class AccountLockTable {
+
+	private Logger log = LoggerFactory.getLogger(this.getClass());
+
+	@Value("${validation.lock.lease:5000}")
+	private long lease;
+
+	@Value("${validation.lock.wait:0}")
+	private long wait;
+
+	@Value("${validation.lock.wait.queue:16}")
+	private int waitQueueSize;
+
+	// Outcomes of acquiring the lock of one account
+	private static final int CONFLICT = 0;
+	private static final int ACQUIRED = 1;
+	private static final int HELD = 2;
+
+	private final ConcurrentHashMap<Key, Lease> locks = new ConcurrentHashMap<>(4096, 0.75f, 64);
+
+	private final AtomicLong tokens = new AtomicLong();
+
+	// Prepares waiting for a locked account, only present while someone waits
+	private final ConcurrentHashMap<Key, WaitQueue> waitQueues = new ConcurrentHashMap<>();
+
+	private ScheduledExecutorService sweeper;
+
+	// Statistics
+	private final AtomicLong acquired = new AtomicLong();
+	private final AtomicLong conflicts = new AtomicLong();
+	private final AtomicLong expired = new AtomicLong();
+	private final AtomicLong waits = new AtomicLong();
+	private final AtomicLong waitTimeouts = new AtomicLong();
+	private final AtomicLong waitQueueFull = new AtomicLong();
+
+	/**
+	 * Raw account uuid as a map key, the bytes are not copied and must not be changed afterwards
+	 */
+	private static final class Key {
+
+		private final byte[] uuid;
+
+		private final int hash;
+
+		private Key(byte[] uuid) {
+			this.uuid = uuid;
+			this.hash = Arrays.hashCode(uuid);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Key && Arrays.equals(uuid, ((Key) obj).uuid);
+		}
+
+	}
+
+	/**
+	 * Monitor the prepares waiting for an account park on, guarded by itself
+	 */
+	private static final class WaitQueue {
+
+		private int waiting;
+
+	}
+
+	/**
+	 * Lock of the accounts of the prepared transfers of one owner, immutable
+	 */
+	public static final class Lease {
+
+		private final long token;
+
+		private final String owner;
+
+		// Transfers holding the lock
+		private final Set<String> transfers;
+
+		private final long expires;
+
+		private Lease(long token, String owner, Set<String> transfers, long expires) {
+			this.token = token;
+			this.owner = owner;
+			this.transfers = transfers;
+			this.expires = expires;
+		}
+
+		public long getToken() {
+			return token;
+		}
+
+		public String getOwner() {
+			return owner;
+		}
+
+		public Set<String> getTransfers() {
+			return transfers;
+		}
+
+		private boolean isExpired(long now) {
+			return expires - now <= 0;
+		}
+
+		/**
+		 * This lease held by one more transfer
+		 */
+		private Lease with(Lease l) {
+
+			final Set<String> t = new HashSet<>(transfers);
+			t.addAll(l.transfers);
+
+			return new Lease(l.token, owner, Collections.unmodifiableSet(t), l.expires);
+
+		}
+
+		/**
+		 * This lease without the transfer, null if nobody holds it then
+		 */
+		private Lease without(String transferUuid) {
+
+			if (transfers.size() == 1) {
+				return null;
+			}
+
+			final Set<String> t = new HashSet<>(transfers);
+			t.remove(transferUuid);
+
+			return new Lease(token, owner, Collections.unmodifiableSet(t), expires);
+
+		}
+
+		@Override
+		public String toString() {
+			return "Lease [token=" + token + ", owner=" + owner + ", transfers=" + transfers.size() + "]";
+		}
+
+	}
+
+	@PostConstruct
+	public void init() {
+
+		sweeper = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("account-lock-sweeper").setDaemon(true).build());
+
+		sweeper.scheduleWithFixedDelay(this::sweep, lease, lease, TimeUnit.MILLISECONDS);
+
+	}
+
+	@PreDestroy
+	public void close() {
+		if (sweeper != null) {
+			sweeper.shutdownNow();
+		}
+	}
+
+	/**
+	 * Lock both accounts for a transfer owning its locks alone, see {@link #tryLock(byte[], byte[], String, String)}
+	 */
+	public Lease tryLock(byte[] from, byte[] to, String transferUuid) {
+		return tryLock(from, to, transferUuid, transferUuid);
+	}
+
+	/**
+	 * Lock both accounts for the transfer, or none of them.
+	 *
+	 * Locks the owner already holds are shared: a repeated prepare of the same transfer succeeds and renews the lease, as does a prepare
+	 * of another transfer under the same lock uuid, which then holds the locks too. If the other account can't be locked, the transfer's
+	 * new hold on the first one is given back.
+	 *
+	 * @return the new lease, null if any of the accounts is locked by another owner
+	 */
+	public Lease tryLock(byte[] from, byte[] to, String owner, String transferUuid) {
+
+		final long now = System.nanoTime();
+
+		final Lease l = new Lease(tokens.incrementAndGet(), owner, Collections.singleton(transferUuid), now + TimeUnit.MILLISECONDS.toNanos(lease));
+
+		final Key fromKey = new Key(from);
+
+		final int fromResult = acquire(fromKey, l, now);
+
+		if (fromResult == CONFLICT) {
+			conflicts.incrementAndGet();
+			return null;
+		}
+
+		if (false == Arrays.equals(from, to) && acquire(new Key(to), l, now) == CONFLICT) {
+
+			// Held before, e.g. by an earlier prepare of the same transfer, it stays held
+			if (fromResult == ACQUIRED) {
+				release(fromKey, owner, transferUuid);
+			}
+
+			conflicts.incrementAndGet();
+
+			return null;
+
+		}
+
+		acquired.incrementAndGet();
+
+		log.debug("Locked accounts: " + l);
+
+		return l;
+
+	}
+
+	/**
+	 * Deadline (System.nanoTime()) for a prepare starting now to wait for its locks, several prepares of a batch may share it
+	 */
+	public long waitDeadline() {
+		return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(wait);
+	}
+
+	/**
+	 * Lock both accounts for the transfer, waiting for up to <code>validation.lock.wait</code> ms if any of them is locked
+	 *
+	 * @return the new lease, null if the accounts stayed locked by other transfers or too many prepares wait for them already
+	 */
+	public Lease lock(byte[] from, byte[] to, String transferUuid) {
+		return lock(from, to, transferUuid, transferUuid, waitDeadline());
+	}
+
+	/**
+	 * Lock both accounts for the transfer of the owner, waiting until the deadline (System.nanoTime()) if any of them is locked
+	 *
+	 * @return the new lease, null if the accounts stayed locked by other owners or too many prepares wait for them already
+	 */
+	public Lease lock(byte[] from, byte[] to, String owner, String transferUuid, long deadline) {
+
+		Lease l = tryLock(from, to, owner, transferUuid);
+
+		if (l != null || wait <= 0) {
+			return l;
+		}
+
+		final Key fromKey = new Key(from);
+		final Key toKey = new Key(to);
+
+		boolean waited = false;
+
+		try {
+
+			while (l == null) {
+
+				// Wait for whichever account is locked, then try both again
+				final Key blocked = heldByOther(fromKey, owner, System.nanoTime()) > 0 ? fromKey : toKey;
+
+				final WaitQueue q = waitQueues.computeIfAbsent(blocked, k -> new WaitQueue());
+
+				synchronized (q) {
+
+					// Dropped by the last waiter meanwhile, releases won't notify it anymore
+					if (waitQueues.get(blocked) != q) {
+						continue;
+					}
+
+					if (q.waiting >= waitQueueSize) {
+
+						if (q.waiting == 0) {
+							waitQueues.remove(blocked, q);
+						}
+
+						waitQueueFull.incrementAndGet();
+						return null;
+					}
+
+					if (false == waited) {
+						waited = true;
+						waits.incrementAndGet();
+					}
+
+					q.waiting++;
+
+					try {
+
+						long now;
+						long held;
+
+						while ((held = heldByOther(blocked, owner, now = System.nanoTime())) > 0) {
+
+							final long remaining = deadline - now;
+
+							if (remaining <= 0) {
+								waitTimeouts.incrementAndGet();
+								return null;
+							}
+
+							// A lease nobody releases wakes nobody up, look again once it expires
+							TimeUnit.NANOSECONDS.timedWait(q, Math.min(remaining, held));
+
+						}
+
+					} finally {
+
+						q.waiting--;
+
+						if (q.waiting == 0) {
+							waitQueues.remove(blocked, q);
+						}
+
+					}
+
+				}
+
+				l = tryLock(from, to, owner, transferUuid);
+
+				if (l == null && deadline - System.nanoTime() <= 0) {
+					waitTimeouts.incrementAndGet();
+					return null;
+				}
+
+			}
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+
+		log.debug("Locked accounts after waiting: " + l);
+
+		return l;
+
+	}
+
+	/**
+	 * Time left (ns) on the lease of another owner holding the account, 0 if it's free or ours
+	 */
+	private long heldByOther(Key key, String owner, long now) {
+
+		final Lease current = locks.get(key);
+
+		if (current == null || current.owner.equals(owner)) {
+			return 0;
+		}
+
+		return Math.max(0, current.expires - now);
+
+	}
+
+	/**
+	 * Add the transfer of the lease to the account's lock, taking over an expired one
+	 *
+	 * @return ACQUIRED if the transfer holds the lock now, HELD if it did already, CONFLICT if the account is locked by another owner
+	 */
+	private int acquire(Key key, Lease l, long now) {
+
+		while (true) {
+
+			final Lease current = locks.putIfAbsent(key, l);
+
+			if (current == null) {
+				return ACQUIRED;
+			}
+
+			final boolean stale = current.isExpired(now);
+
+			if (false == stale && false == current.owner.equals(l.owner)) {
+				return CONFLICT;
+			}
+
+			// Expired or our own, take it over or join it unless someone else got there first
+			if (locks.replace(key, current, stale ? l : current.with(l))) {
+
+				if (stale) {
+					expired.incrementAndGet();
+					return ACQUIRED;
+				}
+
+				return current.transfers.containsAll(l.transfers) ? HELD : ACQUIRED;
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * True if the account is locked by a transfer whose lease hasn't expired yet
+	 */
+	public boolean isLocked(byte[] account) {
+
+		final Lease current = locks.get(new Key(account));
+
+		return current != null && false == current.isExpired(System.nanoTime());
+
+	}
+
+	/**
+	 * Release the locks of a transfer owning its locks alone, see {@link #release(byte[], byte[], String, String)}
+	 */
+	public int release(byte[] from, byte[] to, String transferUuid) {
+		return release(from, to, transferUuid, transferUuid);
+	}
+
+	/**
+	 * Drop the transfer's hold on the locks of the accounts, an account is unlocked once no transfer of the owner holds it anymore. Locks
+	 * of other owners are left alone.
+	 *
+	 * @return number of unlocked accounts
+	 */
+	public int release(byte[] from, byte[] to, String owner, String transferUuid) {
+
+		int released = release(new Key(from), owner, transferUuid);
+
+		if (false == Arrays.equals(from, to)) {
+			released += release(new Key(to), owner, transferUuid);
+		}
+
+		log.debug("Released " + released + " account lock(s) of transfer " + transferUuid);
+
+		return released;
+
+	}
+
+	private int release(Key key, String owner, String transferUuid) {
+
+		while (true) {
+
+			final Lease current = locks.get(key);
+
+			if (current == null || false == current.owner.equals(owner) || false == current.transfers.contains(transferUuid)) {
+				return 0;
+			}
+
+			final Lease rest = current.without(transferUuid);
+
+			if (rest == null) {
+
+				if (locks.remove(key, current)) {
+					wakeUp(key);
+					return 1;
+				}
+
+			} else if (locks.replace(key, current, rest)) {
+				return 0;
+			}
+
+		}
+
+	}
+
+	private void wakeUp(Key key) {
+
+		final WaitQueue q = waitQueues.get(key);
+
+		if (q != null) {
+			synchronized (q) {
+				q.notifyAll();
+			}
+		}
+
+	}
+
+	/**
+	 * Drop expired leases
+	 */
+	void sweep() {
+
+		final long now = System.nanoTime();
+
+		// Removal is conditional on the lease, a renewed lock stays
+		locks.forEach((key, l) -> {
+			if (l.isExpired(now) && locks.remove(key, l)) {
+				expired.incrementAndGet();
+			}
+		});
+
+	}
+
+	public int size() {
+		return locks.size();
+	}
+
+	public long getAcquired() {
+		return acquired.get();
+	}
+
+	public long getConflicts() {
+		return conflicts.get();
+	}
+
+	public long getExpired() {
+		return expired.get();
+	}
+
+	public long getWaits() {
+		return waits.get();
+	}
+
+	public long getWaitTimeouts() {
+		return waitTimeouts.get();
+	}
+
+	public long getWaitQueueFull() {
+		return waitQueueFull.get();
+	}
+
+}
@@ -6,7 +6,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import io.zdp.model.network.NetworkTopologyService;
 import io.zdp.node.storage.account.domain.Account;
 import io.zdp.node.storage.account.service.AccountService;
 import io.zdp.node.storage.transfer.dao.CurrentTransferDao;
@@ -20,10 +19,10 @@ public class CommitService {
 	private Logger log = LoggerFactory.getLogger(this.getClass());
 
 	@Autowired
-	private LockedAccountsCache accountsInProgressCache;
+	private AccountLockTable lockTable;
 
 	@Autowired
-	private NetworkTopologyService networkService;
+	private ValidatorSignatureVerifier signatureVerifier;
 
 	@Autowired
 	private AccountService accountService;
@@ -40,7 +39,7 @@ public class CommitService {
 		log.debug("Commit request: " + req);
 
 		// Validate request (otherwise malicious actors can start locking accounts)
-		if (false == networkService.isValidServerRequest(req.getServerUuid(), req.toHashData(), req.getRequestSignature())) {
+		if (false == signatureVerifier.isValidServerRequest(req.getServerUuid(), req.toHashData(), req.getRequestSignature())) {
 			return false;
 		}
 
@@ -50,8 +49,7 @@ public class CommitService {
 
 		saveCurrentTransfer(req);
 
-		accountsInProgressCache.remove(req.getFromAccount().getUuid());
-		accountsInProgressCache.remove(req.getToAccount().getUuid());
+		lockTable.release(req.getFromAccount().getUuidAsBytes(), req.getToAccount().getUuidAsBytes(), req.getLockOwner(), req.getTransfer().getUuid());
 
 		return true;
 
@@ -71,43 +69,24 @@ public class CommitService {
 
 	private void updateAccounts(ValidationCommitRequest req) {
 
-		{
-			// Update or save FROM account;
-			Account from = accountService.findByUuid(req.getFromAccount().getUuidAsBytes());
+		updateAccount(req.getFromAccount());
 
-			if (from == null) {
-				from = new Account();
-				from.setCurve(req.getFromAccount().getCurve());
-				from.setUuid(req.getToAccount().getUuidAsBytes());
-			}
+		log.debug("Updated FROM account: " + req.getFromAccount());
 
-			from.setBalance(req.getFromAccount().getBalance());
-			from.setHeight(req.getFromAccount().getHeight());
-			from.setTransferHash(req.getFromAccount().getTransferHash());
+		updateAccount(req.getToAccount());
 
-			log.debug("Updated FROM account: " + req.getFromAccount());
+		log.debug("Updated TO account: " + req.getToAccount());
 
-			this.accountService.save(from);
-
-		}
-
-		{
-			// to account
-			Account to = accountService.findByUuid(req.getToAccount().getUuidAsBytes());
-
-			if (to == null) {
-				to = new Account();
-				to.setCurve(req.getToAccount().getCurve());
-				to.setUuid(req.getToAccount().getUuidAsBytes());
-			}
-
-			to.setBalance(req.getToAccount().getBalance());
-			to.setHeight(req.getToAccount().getHeight());
-			to.setTransferHash(req.getToAccount().getTransferHash());
+	}
 
-			log.debug("Updated TO account: " + req.getToAccount());
+	/**
+	 * Update or save the account as committed, unless it is already at that height or above: the outbox retries commits and delivers them
+	 * in no particular order, e.g. those of a hot account group, a stale commit must not overwrite a newer state
+	 */
+	private void updateAccount(Account committed) {
 
-			this.accountService.save(to);
+		if (false == accountService.saveIfNewer(committed)) {
+			log.debug("Account already at height " + committed.getHeight() + " or above, skip: " + committed);
 		}
 
 	}
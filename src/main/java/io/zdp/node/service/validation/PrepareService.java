@@ -1,16 +1,20 @@
 package io.zdp.node.service.validation;
 
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import io.zdp.crypto.account.ZDPAccountUuid;
-import io.zdp.model.network.NetworkTopologyService;
 import io.zdp.node.storage.account.domain.Account;
 import io.zdp.node.storage.account.service.AccountService;
-import io.zdp.node.storage.transfer.dao.TransferHeaderDao;
+import io.zdp.node.storage.transfer.service.TransferHeaderService;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchResponse;
 import io.zdp.node.web.api.validation.model.ValidationPrepareTransferRequest;
 import io.zdp.node.web.api.validation.model.ValidationPrepareTransferResponse;
 import io.zdp.node.web.api.validation.model.ValidationPrepareTransferResponse.Status;
@@ -21,50 +25,124 @@ public class PrepareService {
 	private Logger log = LoggerFactory.getLogger(this.getClass());
 
 	@Autowired
-	private LockedAccountsCache accountsInProgressCache;
+	private AccountLockTable lockTable;
 
 	@Autowired
-	private NetworkTopologyService networkService;
+	private ValidatorSignatureVerifier signatureVerifier;
 
 	@Autowired
 	private AccountService accountService;
 
 	@Autowired
-	private TransferHeaderDao transferHeaderDao;
+	private TransferHeaderService transferHeaderService;
 
-	@Transactional(readOnly = true)
 	public ValidationPrepareTransferResponse prepare(ValidationPrepareTransferRequest req) {
 
 		log.debug("Prepare transfer: " + req);
 
 		// Validate request (otherwise malicious actors can start locking accounts)
-		if (false == networkService.isValidServerRequest(req.getServerUuid(), req.toHashData(), req.getSignedRequest())) {
+		if (false == signatureVerifier.isValidServerRequest(req.getServerUuid(), req.toHashData(), req.getSignedRequest(), req.getSignatureProof())) {
 			return new ValidationPrepareTransferResponse(Status.UNAUTHORIZED);
 		}
 
-		final ZDPAccountUuid from = new ZDPAccountUuid(req.getFromAccountUuid());
-		final ZDPAccountUuid to = new ZDPAccountUuid(req.getToAccountUuid());
+		return vote(req, lockTable.waitDeadline(), true);
+
+	}
+
+	/**
+	 * Prepare a batch of transfers, the batch signature is verified once for all of them and its transfers share one lock wait deadline.
+	 * 
+	 * A transfer whose account an earlier transfer of the same batch locked under another lock uuid is refused at once: that lock is only
+	 * released once this batch was answered, waiting for it would only run into the deadline.
+	 */
+	public ValidationPrepareBatchResponse prepare(ValidationPrepareBatchRequest batch) {
+
+		log.debug("Prepare batch: " + batch);
+
+		final ValidationPrepareBatchResponse resp = new ValidationPrepareBatchResponse();
+
+		final long deadline = lockTable.waitDeadline();
+
+		final boolean validBatch = signatureVerifier.isValidServerRequest(batch.getServerUuid(), batch.toHashData(), batch.getSignedRequest());
+
+		// Account -> lock owner, for the accounts this batch locked so far
+		final Map<ByteBuffer, String> batchLocks = new HashMap<>();
+
+		for (ValidationPrepareTransferRequest req : batch.getRequests()) {
+
+			if (validBatch && batch.getServerUuid().equals(req.getServerUuid())) {
+
+				final boolean wait = false == isLockedByBatch(batchLocks, req.getFromAccountHash(), req.getLockOwner())
+						&& false == isLockedByBatch(batchLocks, req.getToAccountHash(), req.getLockOwner());
+
+				final ValidationPrepareTransferResponse vote = vote(req, deadline, wait);
+
+				if (Status.APPROVED.equals(vote.getStatus())) {
+					batchLocks.put(ByteBuffer.wrap(req.getFromAccountHash()), req.getLockOwner());
+					batchLocks.put(ByteBuffer.wrap(req.getToAccountHash()), req.getLockOwner());
+				}
+
+				resp.getResponses().add(vote);
+
+			} else {
+				resp.getResponses().add(new ValidationPrepareTransferResponse(Status.UNAUTHORIZED));
+			}
+
+		}
+
+		return resp;
+
+	}
+
+	private static boolean isLockedByBatch(Map<ByteBuffer, String> batchLocks, byte[] account, String owner) {
+
+		if (account == null) {
+			return false;
+		}
+
+		final String holder = batchLocks.get(ByteBuffer.wrap(account));
+
+		return holder != null && false == Objects.equals(holder, owner);
+
+	}
+
+	/**
+	 * Runs outside of a transaction, so a prepare waiting for a locked account doesn't hold a database connection. Without wait, locked
+	 * accounts reject the transfer at once.
+	 */
+	private ValidationPrepareTransferResponse vote(ValidationPrepareTransferRequest req, long deadline, boolean wait) {
+
+		final byte[] from = req.getFromAccountHash();
+		final byte[] to = req.getToAccountHash();
 
 		// Transaction replay?
-		if (transferHeaderDao.findByUuid(req.getRawTransferUuid()) != null) {
+		if (transferHeaderService.exists(req.getRawTransferUuid())) {
 			return new ValidationPrepareTransferResponse(Status.REPLAY_DETECTED);
 		}
 
-		// If in 'current transactions' cache on any of the nodes -> stop
-		if (accountsInProgressCache.inProgress(req.getFromAccountUuid())) {
-			return new ValidationPrepareTransferResponse(Status.ACCOUNT_LOCKED);
+		if (req.getTransferUuid() == null || from == null || to == null) {
+			return new ValidationPrepareTransferResponse(Status.REJECTED);
 		}
-		if (accountsInProgressCache.inProgress(req.getToAccountUuid())) {
+
+		// Start transaction, if any of the accounts stays locked by another transfer -> stop
+		final AccountLockTable.Lease lease = wait ? lockTable.lock(from, to, req.getLockOwner(), req.getTransferUuid(), deadline)
+				: lockTable.tryLock(from, to, req.getLockOwner(), req.getTransferUuid());
+
+		if (lease == null) {
 			return new ValidationPrepareTransferResponse(Status.ACCOUNT_LOCKED);
 		}
 
 		// Load account from local storage
-		Account fromAccount = this.accountService.findByUuid(from.getPublicKeyHash());
-		Account toAccount = this.accountService.findByUuid(to.getPublicKeyHash());
-
-		// Start transaction
-		accountsInProgressCache.add(req.getFromAccountUuid());
-		accountsInProgressCache.add(req.getToAccountUuid());
+		Account fromAccount;
+		Account toAccount;
+
+		try {
+			fromAccount = this.accountService.findByUuid(from);
+			toAccount = this.accountService.findByUuid(to);
+		} catch (RuntimeException e) {
+			lockTable.release(from, to, req.getLockOwner(), req.getTransferUuid());
+			throw e;
+		}
 
 		ValidationPrepareTransferResponse resp = new ValidationPrepareTransferResponse(Status.APPROVED);
 		resp.setFromAccount(fromAccount);
@@ -79,12 +157,11 @@ public class PrepareService {
 		log.debug("rollback transfer: " + req);
 
 		// Validate request (otherwise malicious actors can start unlocking accounts)
-		if (false == networkService.isValidServerRequest(req.getServerUuid(), req.toHashData(), req.getSignedRequest())) {
+		if (false == signatureVerifier.isValidServerRequest(req.getServerUuid(), req.toHashData(), req.getSignedRequest())) {
 			return false;
 		}
 
-		accountsInProgressCache.remove(req.getFromAccountUuid());
-		accountsInProgressCache.remove(req.getToAccountUuid());
+		lockTable.release(req.getFromAccountHash(), req.getToAccountHash(), req.getLockOwner(), req.getTransferUuid());
 
 		return true;
 
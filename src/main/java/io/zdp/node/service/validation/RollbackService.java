@@ -5,7 +5,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import io.zdp.model.network.NetworkTopologyService;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchRequest;
 import io.zdp.node.web.api.validation.model.ValidationPrepareTransferRequest;
 
 @Service
@@ -14,25 +14,51 @@ public class RollbackService {
 	private Logger log = LoggerFactory.getLogger(this.getClass());
 
 	@Autowired
-	private LockedAccountsCache accountsInProgressCache;
+	private AccountLockTable lockTable;
 
 	@Autowired
-	private NetworkTopologyService networkService;
+	private ValidatorSignatureVerifier signatureVerifier;
 
 	public boolean rollback(ValidationPrepareTransferRequest req) {
 
 		log.debug("rollback transfer: " + req);
 
 		// Validate request (otherwise malicious actors can start unlocking accounts)
-		if (false == networkService.isValidServerRequest(req.getServerUuid(), req.toHashData(), req.getSignedRequest())) {
+		if (false == signatureVerifier.isValidServerRequest(req.getServerUuid(), req.toHashData(), req.getSignedRequest(), req.getSignatureProof())) {
 			return false;
 		}
 
-		accountsInProgressCache.remove(req.getFromAccountUuid());
-		accountsInProgressCache.remove(req.getToAccountUuid());
+		release(req);
 
 		return true;
 
 	}
 
+	/**
+	 * Roll back a batch of transfers, the batch signature is verified once for all of them
+	 */
+	public boolean rollback(ValidationPrepareBatchRequest batch) {
+
+		log.debug("rollback batch: " + batch);
+
+		if (false == signatureVerifier.isValidServerRequest(batch.getServerUuid(), batch.toHashData(), batch.getSignedRequest())) {
+			return false;
+		}
+
+		for (ValidationPrepareTransferRequest req : batch.getRequests()) {
+
+			if (batch.getServerUuid().equals(req.getServerUuid())) {
+				release(req);
+			}
+
+		}
+
+		return true;
+
+	}
+
+	private void release(ValidationPrepareTransferRequest req) {
+		lockTable.release(req.getFromAccountHash(), req.getToAccountHash(), req.getLockOwner(), req.getTransferUuid());
+	}
+
 }
@@ -0,0 +1,238 @@
+package io.zdp.node.service.validation;
+
+import java.security.PublicKey;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.zdp.crypto.Base58;
+import io.zdp.crypto.Curves;
+import io.zdp.crypto.Keys;
+import io.zdp.crypto.Signing;
+import io.zdp.model.network.NetworkNode;
+import io.zdp.model.network.NetworkTopologyService;
+import io.zdp.node.web.api.validation.model.MerkleProof;
+
+/**
+ * Checks that requests come from a known validation node.
+ *
+ * Public keys of validation nodes are decoded once per topology refresh, and signatures are verified on a pool sized to the CPUs,
+ * so request threads of a busy node queue for it instead of all doing ECDSA at once.
+ *
+ * Requests signed through the Merkle root of a batch carry an inclusion proof; the root signature is verified once and remembered,
+ * so the rest of the batch costs a few hashes each.
+ */
+@Service
+public class ValidatorSignatureVerifier {
+
+	private Logger log = LoggerFactory.getLogger(this.getClass());
+
+	@Autowired
+	private NetworkTopologyService networkService;
+
+	@Value("${validation.verify.threads:0}")
+	private int threads;
+
+	private ExecutorService verifyPool;
+
+	// server uuid, root and signature of verified batches
+	private final Cache<String, Boolean> verifiedRoots = CacheBuilder.newBuilder().maximumSize(100000).expireAfterWrite(60, TimeUnit.SECONDS).build();
+
+	// Node uuid -> decoded public key, rebuilt when the topology is refreshed
+	private volatile Map<String, PublicKey> publicKeys = new ConcurrentHashMap<>();
+
+	private volatile Map<String, NetworkNode> nodes;
+
+	private Date lastUpdateDate = new Date(0);
+
+	// Statistics
+	private final AtomicLong verifications = new AtomicLong();
+	private final AtomicLong rejections = new AtomicLong();
+	private final AtomicLong verifyNanos = new AtomicLong();
+	private final AtomicLong rootCacheHits = new AtomicLong();
+
+	@PostConstruct
+	public void init() {
+
+		final int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+		verifyPool = Executors.newFixedThreadPool(poolSize, new ThreadFactoryBuilder().setNameFormat("signature-verify-%d").setDaemon(true).build());
+
+		log.info("Signature verification threads: " + poolSize);
+
+	}
+
+	@PreDestroy
+	public void close() {
+		verifyPool.shutdownNow();
+	}
+
+	public boolean isValidServerRequest(String serverUuid, byte[] hashData, byte[] signature) {
+
+		if (serverUuid == null || hashData == null || signature == null) {
+			rejections.incrementAndGet();
+			return false;
+		}
+
+		try {
+			return verifyPool.submit(() -> verify(serverUuid, hashData, signature)).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (ExecutionException e) {
+			log.error("Error: ", e);
+			return false;
+		}
+
+	}
+
+	/**
+	 * Signature over the request itself, or over the Merkle root the proof leads to
+	 */
+	public boolean isValidServerRequest(String serverUuid, byte[] hashData, byte[] signature, byte[] proof) {
+
+		if (proof == null) {
+			return isValidServerRequest(serverUuid, hashData, signature);
+		}
+
+		if (signature == null) {
+			return false;
+		}
+
+		final byte[] root = MerkleProof.rootOf(hashData, proof);
+
+		if (root == null) {
+			log.debug("Malformed signature proof from " + serverUuid);
+			return false;
+		}
+
+		final String key = serverUuid + ":" + Hex.toHexString(root) + ":" + Hex.toHexString(signature);
+
+		if (verifiedRoots.getIfPresent(key) != null) {
+			rootCacheHits.incrementAndGet();
+			return true;
+		}
+
+		if (false == isValidServerRequest(serverUuid, root, signature)) {
+			return false;
+		}
+
+		verifiedRoots.put(key, true);
+
+		return true;
+
+	}
+
+	private boolean verify(String serverUuid, byte[] hashData, byte[] signature) {
+
+		final long st = System.nanoTime();
+
+		boolean valid;
+
+		try {
+
+			final PublicKey key = getPublicKey(serverUuid);
+
+			if (key == null) {
+				// Not a node we know the key of, let the topology service decide
+				valid = networkService.isValidServerRequest(serverUuid, hashData, signature);
+			} else {
+				valid = Signing.isValidSignature(key, hashData, signature);
+			}
+
+		} catch (Exception e) {
+			log.debug("Can't verify request from " + serverUuid + ": " + e.getMessage());
+			valid = false;
+		}
+
+		verifications.incrementAndGet();
+		verifyNanos.addAndGet(System.nanoTime() - st);
+
+		if (false == valid) {
+			rejections.incrementAndGet();
+		}
+
+		return valid;
+
+	}
+
+	private PublicKey getPublicKey(String serverUuid) {
+
+		refreshNodes();
+
+		final NetworkNode node = nodes.get(serverUuid);
+
+		if (node == null || node.getPublicKey() == null) {
+			return null;
+		}
+
+		return publicKeys.computeIfAbsent(serverUuid, u -> {
+			try {
+				return Keys.toPublicKey(Base58.decode(node.getPublicKey()), Curves.VALIDATION_NODE_CURVE);
+			} catch (Exception e) {
+				log.error("Can't decode public key of " + serverUuid + ": ", e);
+				return null;
+			}
+		});
+
+	}
+
+	private synchronized void refreshNodes() {
+
+		if (nodes != null && false == networkService.getLastRefreshDate().after(lastUpdateDate)) {
+			return;
+		}
+
+		lastUpdateDate = networkService.getLastRefreshDate();
+
+		final Map<String, NetworkNode> byUuid = new HashMap<>();
+
+		networkService.getAllNodes().forEach(n -> byUuid.put(n.getUuid(), n));
+
+		// Keys may have changed with the topology
+		publicKeys = new ConcurrentHashMap<>();
+		nodes = byUuid;
+
+	}
+
+	public long getVerifications() {
+		return verifications.get();
+	}
+
+	public long getRejections() {
+		return rejections.get();
+	}
+
+	public long getRootCacheHits() {
+		return rootCacheHits.get();
+	}
+
+	/**
+	 * Average time of one signature verification, microseconds
+	 */
+	public long getAverageVerifyMicros() {
+		final long count = verifications.get();
+		return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(verifyNanos.get() / count);
+	}
+
+}
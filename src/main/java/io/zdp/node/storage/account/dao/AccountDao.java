@@ -1,6 +1,13 @@
 package io.zdp.node.storage.account.dao;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import io.zdp.node.storage.account.domain.Account;
 
@@ -8,4 +15,22 @@ public interface AccountDao extends JpaRepository<Account, Long> {
 
 	Account findByUuid(byte[] uuid);
 
+	List<Account> findByUuidIn(Collection<byte[]> uuids);
+
+	/**
+	 * Set balance and height unless the account moved past the expected height, returns the number of updated rows
+	 */
+	@Modifying
+	@Query("update Account a set a.balance = :balance, a.height = :height where a.uuid = :uuid and a.height = :expectedHeight")
+	int updateIfAtHeight(@Param("uuid") byte[] uuid, @Param("balance") long balance, @Param("height") long height, @Param("expectedHeight") long expectedHeight);
+
+	/**
+	 * Set balance, height and chain hash unless the account is at that height or above already, returns the number of updated rows. Joins
+	 * the caller's transaction, or runs in its own.
+	 */
+	@Transactional
+	@Modifying
+	@Query("update Account a set a.balance = :balance, a.height = :height, a.transferChainHash = :hash where a.uuid = :uuid and a.height < :height")
+	int updateIfBelowHeight(@Param("uuid") byte[] uuid, @Param("balance") long balance, @Param("height") long height, @Param("hash") byte[] hash);
+
 }
@@ -15,13 +15,13 @@ import org.bouncycastle.util.encoders.Hex;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import io.zdp.node.common.Amount;
+
 @SuppressWarnings ( "serial" )
 @Entity
 @Table ( name = "account" )
 public class Account implements Serializable {
 
-	public static final BigDecimal BALANCE_CO = new BigDecimal( 100000000 );
-
 	@Id
 	@Column ( name = "ID", nullable = false, updatable = false )
 	@GeneratedValue ( strategy = GenerationType.IDENTITY )
@@ -63,12 +63,27 @@ public class Account implements Serializable {
 		this.id = id;
 	}
 
+	/**
+	 * Balance for JSON and display, use getBalanceRaw for arithmetic
+	 */
 	public BigDecimal getBalance ( ) {
-		return new BigDecimal( balance ).divide( BALANCE_CO );
+		return Amount.toBigDecimal( balance );
 	}
 
 	public void setBalance ( BigDecimal balance ) {
-		this.balance = balance.multiply( BALANCE_CO ).longValue();
+		this.balance = Amount.fromBigDecimal( balance );
+	}
+
+	/**
+	 * Balance in units, see Amount
+	 */
+	@JsonIgnore
+	public long getBalanceRaw ( ) {
+		return balance;
+	}
+
+	public void setBalanceRaw ( long balance ) {
+		this.balance = balance;
 	}
 
 	public String getUuid ( ) {
@@ -128,7 +143,7 @@ public class Account implements Serializable {
 
 	@Override
 	public String toString ( ) {
-		return "Account [id=" + id + ", uuid=" + Hex.toHexString( uuid ) + ", balance=" + balance + " [" + getBalance().toPlainString() + "] " + ", transferHash=" + Hex.toHexString( transferChainHash ) + ", height=" + height + "]";
+		return "Account [id=" + id + ", uuid=" + Hex.toHexString( uuid ) + ", balance=" + balance + " [" + Amount.toString( balance ) + "] " + ", transferHash=" + Hex.toHexString( transferChainHash ) + ", height=" + height + "]";
 	}
 
 }
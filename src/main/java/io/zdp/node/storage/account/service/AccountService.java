@@ -1,12 +1,20 @@
 package io.zdp.node.storage.account.service;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
 
+import org.bouncycastle.util.encoders.Hex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,9 +23,14 @@ import io.zdp.api.model.v1.GetBalanceResponse;
 import io.zdp.crypto.Base58;
 import io.zdp.crypto.Curves;
 import io.zdp.crypto.account.ZDPAccountUuid;
+import io.zdp.node.common.Amount;
+import io.zdp.node.network.validation.ConsistencyLevel;
+import io.zdp.node.network.validation.NetworkBalanceCache;
 import io.zdp.node.network.validation.ValidationNetworkClient;
 import io.zdp.node.storage.account.dao.AccountDao;
 import io.zdp.node.storage.account.domain.Account;
+import io.zdp.node.web.api.client.model.GetBalancesRequest;
+import io.zdp.node.web.api.client.model.GetBalancesResponse;
 
 @Service
 public class AccountService {
@@ -27,9 +40,15 @@ public class AccountService {
 	@Autowired
 	private AccountDao accountDao;
 
+	@Autowired
+	private NetworkBalanceCache networkBalanceCache;
+
 	@Autowired
 	private ValidationNetworkClient validationNetworkClient;
 
+	@Value ( "${validation.balance.batch.max:10000}" )
+	private int maxBatchBalances;
+
 	@PostConstruct
 	public void init ( ) throws Exception {
 		if ( accountDao.count() == 0 ) {
@@ -37,7 +56,7 @@ public class AccountService {
 			log.debug( "Seems like a fresh node start!" );
 
 			Account genesis = new Account();
-			genesis.setBalance( new BigDecimal( 90000000000L ) );
+			genesis.setBalanceRaw( 90000000000L * Amount.UNIT );
 			genesis.setCurve( Curves.DEFAULT_CURVE_INDEX );
 			genesis.setHeight( 1 );
 			genesis.setTransferHash( new byte [ ] {} );
@@ -53,21 +72,27 @@ public class AccountService {
 	}
 
 	public GetBalanceResponse getBalance ( GetBalanceRequest request ) throws Exception {
+		return getBalance( request, ConsistencyLevel.ALL );
+	}
+
+	public GetBalanceResponse getBalance ( GetBalanceRequest request, ConsistencyLevel level ) throws Exception {
 
 		long st = System.currentTimeMillis();
 
 		final GetBalanceResponse localResponse = getLocalAccountBalance( request );
 
-		final GetBalanceResponse remoteResponse = new GetBalanceResponse();
+		if ( level == ConsistencyLevel.LOCAL ) {
+			return localResponse;
+		}
 
 		// Get network view on the balance
-		validationNetworkClient.getBalance( request, remoteResponse );
+		final GetBalanceResponse remoteResponse = networkBalanceCache.getBalance( request, level, localResponse.getHeight() );
 
 		long et = System.currentTimeMillis();
 		log.debug( "Getting balance took: " + ( et - st ) + " ms." );
 
 		if ( remoteResponse.getHeight() > localResponse.getHeight() ) {
-			updateLocalAccountBalance( request, localResponse, remoteResponse );
+			updateLocalAccountBalance( request.getAccountUuid(), remoteResponse );
 			return remoteResponse;
 		} else {
 			return localResponse;
@@ -75,27 +100,68 @@ public class AccountService {
 
 	}
 
-	@Transactional ( readOnly = false )
-	private void updateLocalAccountBalance ( GetBalanceRequest request, GetBalanceResponse localResponse, GetBalanceResponse remoteResponse ) {
+	/**
+	 * Balances of up to validation.balance.batch.max accounts: one local query and, unless LOCAL, one call per available validation node.
+	 * Batches don't stop early for QUORUM: every level but LOCAL waits for all nodes asked, up to their deadlines, and takes the highest
+	 * height any of them reports.
+	 */
+	public GetBalancesResponse getBalances ( GetBalancesRequest request, ConsistencyLevel level ) throws Exception {
+
+		if ( request.getAccountUuids().size() > maxBatchBalances ) {
+			final GetBalancesResponse resp = new GetBalancesResponse();
+			resp.getResponseMetadata().setComment( "Too many accounts, max " + maxBatchBalances );
+			return resp;
+		}
 
-		final byte [ ] accountUuid = new ZDPAccountUuid( request.getAccountUuid() ).getPublicKeyHash();
+		long st = System.currentTimeMillis();
 
-		Account account = this.accountDao.findByUuid( accountUuid );
+		final GetBalancesResponse localResponse = getLocalAccountBalances( request );
 
-		if ( account == null ) {
-			account = new Account();
+		if ( level == ConsistencyLevel.LOCAL ) {
+			return localResponse;
 		}
 
-		account.setBalance( new BigDecimal( remoteResponse.getAmount() ) );
-		account.setHeight( remoteResponse.getHeight() );
-		account.setTransferHash( remoteResponse.getChainHash() );
+		final GetBalancesResponse remoteResponse = validationNetworkClient.getBalances( request, new GetBalancesResponse() );
+
+		final GetBalancesResponse resp = new GetBalancesResponse();
+
+		for ( int i = 0; i < request.getAccountUuids().size(); i++ ) {
 
-		this.accountDao.save( account );
+			final GetBalanceResponse local = localResponse.getBalances().get( i );
+			final GetBalanceResponse remote = remoteResponse.getBalances().get( i );
+
+			if ( remote.getAmount() != null && remote.getHeight() > local.getHeight() ) {
+				updateLocalAccountBalance( request.getAccountUuids().get( i ), remote );
+				resp.getBalances().add( remote );
+			} else {
+				resp.getBalances().add( local );
+			}
+
+		}
+
+		long et = System.currentTimeMillis();
+		log.debug( "Getting " + request.getAccountUuids().size() + " balances took: " + ( et - st ) + " ms." );
+
+		return resp;
+
+	}
+
+	/**
+	 * Move a known account up to the network's state. The height check is part of the update, so an answer that is stale by the time it
+	 * is written never moves the account back. Accounts this node doesn't have are left alone, a balance doesn't tell their curve.
+	 */
+	private void updateLocalAccountBalance ( String accountUuidValue, GetBalanceResponse remoteResponse ) {
+
+		final byte [ ] accountUuid = new ZDPAccountUuid( accountUuidValue ).getPublicKeyHash();
+
+		if ( this.accountDao.updateIfBelowHeight( accountUuid, Amount.parse( remoteResponse.getAmount() ), remoteResponse.getHeight(), remoteResponse.getChainHash() ) == 1 ) {
+			log.debug( "Updated " + accountUuidValue + " to height " + remoteResponse.getHeight() + " from the network" );
+		}
 
 	}
 
 	@Transactional ( readOnly = true )
-	private GetBalanceResponse getLocalAccountBalance ( GetBalanceRequest req ) {
+	public GetBalanceResponse getLocalAccountBalance ( GetBalanceRequest req ) {
 
 		final GetBalanceResponse resp = new GetBalanceResponse();
 
@@ -105,7 +171,7 @@ public class AccountService {
 		Account account = this.accountDao.findByUuid( accountUuid );
 
 		if ( account != null ) {
-			resp.setAmount( account.getBalance().toPlainString() );
+			resp.setAmount( Amount.toString( account.getBalanceRaw() ) );
 			resp.setHeight( account.getHeight() );
 			resp.setChainHash( account.getTransferHash() );
 		}
@@ -113,6 +179,53 @@ public class AccountService {
 		return resp;
 	}
 
+	/**
+	 * Local balances of many accounts in one query, in request order
+	 */
+	@Transactional ( readOnly = true )
+	public GetBalancesResponse getLocalAccountBalances ( GetBalancesRequest req ) {
+
+		final List < byte [ ] > uuids = new ArrayList<>( req.getAccountUuids().size() );
+
+		for ( final String accountUuid : req.getAccountUuids() ) {
+			try {
+				uuids.add( new ZDPAccountUuid( accountUuid ).getPublicKeyHash() );
+			} catch ( Exception e ) {
+				log.debug( "Invalid account uuid: " + accountUuid );
+				uuids.add( null );
+			}
+		}
+
+		final Map < String, Account > accounts = new HashMap<>();
+
+		final List < byte [ ] > known = uuids.stream().filter( Objects::nonNull ).collect( Collectors.toList() );
+
+		if ( false == known.isEmpty() ) {
+			this.accountDao.findByUuidIn( known ).forEach( a -> accounts.put( Hex.toHexString( a.getUuidAsBytes() ), a ) );
+		}
+
+		final GetBalancesResponse resp = new GetBalancesResponse();
+
+		for ( final byte [ ] uuid : uuids ) {
+
+			final GetBalanceResponse balance = new GetBalanceResponse();
+
+			final Account account = uuid == null ? null : accounts.get( Hex.toHexString( uuid ) );
+
+			if ( account != null ) {
+				balance.setAmount( Amount.toString( account.getBalanceRaw() ) );
+				balance.setHeight( account.getHeight() );
+				balance.setChainHash( account.getTransferHash() );
+			}
+
+			resp.getBalances().add( balance );
+
+		}
+
+		return resp;
+
+	}
+
 	@Transactional ( readOnly = true )
 	public long countAccounts ( ) {
 		return this.accountDao.count();
@@ -128,4 +241,91 @@ public class AccountService {
 		return this.accountDao.save( a );
 	}
 
+	/**
+	 * Store an account as committed by another node, unless it is at that height or above already: commits are retried and may arrive out
+	 * of order, an account only moves forward. The height check is part of the update, so concurrent commits can't overwrite a newer state.
+	 * 
+	 * @return false if the stored account was at that height or above
+	 */
+	@Transactional ( readOnly = false )
+	public boolean saveIfNewer ( Account committed ) {
+
+		if ( this.accountDao.updateIfBelowHeight( committed.getUuidAsBytes(), committed.getBalanceRaw(), committed.getHeight(), committed.getTransferHash() ) == 1 ) {
+			return true;
+		}
+
+		if ( this.accountDao.findByUuid( committed.getUuidAsBytes() ) != null ) {
+			return false;
+		}
+
+		final Account a = new Account();
+		a.setCurve( committed.getCurve() );
+		a.setUuid( committed.getUuidAsBytes() );
+		a.setBalanceRaw( committed.getBalanceRaw() );
+		a.setHeight( committed.getHeight() );
+		a.setTransferHash( committed.getTransferHash() );
+
+		this.accountDao.save( a );
+
+		return true;
+
+	}
+
+	/**
+	 * Write back the accounts of a transfer, as loaded for validation and moved one height up, without reading them again.
+	 * 
+	 * @throws OptimisticLockingFailureException if another transfer moved one of them in between, nothing is written then
+	 */
+	@Transactional ( readOnly = false )
+	public void saveTransferAccounts ( Account from, Account to, boolean newTo ) {
+
+		updateIfAtHeight( from );
+
+		if ( newTo ) {
+			this.accountDao.save( to );
+		} else {
+			updateIfAtHeight( to );
+		}
+
+	}
+
+	/**
+	 * Write back the accounts of a hot account group: the hot account, moved up by the whole group from <code>hotHeight</code>, and the
+	 * counterparties, each moved one height up.
+	 * 
+	 * @throws OptimisticLockingFailureException if another transfer moved one of them in between, nothing is written then
+	 */
+	@Transactional ( readOnly = false )
+	public void saveGroupAccounts ( Account hot, long hotHeight, boolean newHot, List < Account > counterparties, List < Boolean > newCounterparties ) {
+
+		if ( newHot ) {
+			this.accountDao.save( hot );
+		} else {
+			updateIfAtHeight( hot, hotHeight );
+		}
+
+		for ( int i = 0; i < counterparties.size(); i++ ) {
+
+			if ( newCounterparties.get( i ) ) {
+				this.accountDao.save( counterparties.get( i ) );
+			} else {
+				updateIfAtHeight( counterparties.get( i ) );
+			}
+
+		}
+
+	}
+
+	private void updateIfAtHeight ( Account a ) {
+		updateIfAtHeight( a, a.getHeight() - 1 );
+	}
+
+	private void updateIfAtHeight ( Account a, long expectedHeight ) {
+
+		if ( this.accountDao.updateIfAtHeight( a.getUuidAsBytes(), a.getBalanceRaw(), a.getHeight(), expectedHeight ) != 1 ) {
+			throw new OptimisticLockingFailureException( "Account changed: " + a.getUuid() );
+		}
+
+	}
+
 }
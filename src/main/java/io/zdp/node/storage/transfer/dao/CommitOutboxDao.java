@@ -0,0 +1,36 @@
+package io.zdp.node.storage.transfer.dao;
+
+import java.util.List;
+
+import io.zdp.node.web.api.validation.model.ValidationCommitRequest;
+
+/**
+ * Commit requests not yet delivered to every validation node, kept across restarts
+ */
+public interface CommitOutboxDao {
+
+	/**
+	 * Store the request durably before returning
+	 * 
+	 * @throws org.springframework.dao.DataAccessException if it could not be stored
+	 */
+	void add(ValidationCommitRequest req);
+
+	void remove(String requestUuid);
+
+	/**
+	 * Keep a request that was given up on aside, findAll no longer returns it
+	 */
+	void deadLetter(String requestUuid);
+
+	/**
+	 * Requests kept aside, given up on or unreadable
+	 */
+	int countDeadLetters();
+
+	/**
+	 * Stored requests, oldest first
+	 */
+	List<ValidationCommitRequest> findAll();
+
+}
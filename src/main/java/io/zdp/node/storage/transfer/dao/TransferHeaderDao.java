@@ -1,5 +1,7 @@
 package io.zdp.node.storage.transfer.dao;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,4 +12,6 @@ public interface TransferHeaderDao extends JpaRepository<TransferHeader, Long> {
 
 	TransferHeader findByUuid(byte[] uuid);
 
+	List<TransferHeader> findTop10000ByIdGreaterThanOrderByIdAsc(long id);
+
 }
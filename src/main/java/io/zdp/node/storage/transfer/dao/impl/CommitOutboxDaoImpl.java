@@ -0,0 +1,197 @@
+package io.zdp.node.storage.transfer.dao.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.SystemUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.zdp.node.storage.transfer.dao.CommitOutboxDao;
+import io.zdp.node.web.api.validation.model.ValidationCommitRequest;
+import io.zdp.node.web.api.validation.model.ValidationMessageCodec;
+
+/**
+ * One file per commit request. Written to a temporary file first, forced to disk and moved into place, so a crash never leaves a partial
+ * entry. Entries that can't be decoded or were given up on are moved to the <code>dead</code> sub folder.
+ * 
+ * Entries are JSON, as the HTTP transport sends them, so they stay readable when the binary wire codec changes its version. Entries
+ * written in the binary form by earlier releases are still read.
+ */
+@Repository
+public class CommitOutboxDaoImpl implements CommitOutboxDao {
+
+	private static final String EXT = ".commit";
+
+	private Logger log = LoggerFactory.getLogger(this.getClass());
+
+	private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+	private File outboxFolder;
+
+	private File deadLetterFolder;
+
+	@PostConstruct
+	public void init() throws IOException {
+
+		this.outboxFolder = new File(SystemUtils.USER_HOME, ".zdp" + File.separator + "data" + File.separator + "outbox");
+		this.deadLetterFolder = new File(this.outboxFolder, "dead");
+
+		FileUtils.forceMkdir(this.deadLetterFolder);
+
+		log.debug("outboxFolder: " + this.outboxFolder);
+
+	}
+
+	/**
+	 * @throws DataAccessResourceFailureException if the request could not be stored
+	 */
+	@Override
+	public void add(ValidationCommitRequest req) {
+
+		final File file = new File(outboxFolder, req.getRequestUuid() + EXT);
+		final File tmp = new File(outboxFolder, req.getRequestUuid() + ".tmp");
+
+		try {
+
+			final ByteBuffer data = ByteBuffer.wrap(mapper.writeValueAsBytes(req));
+
+			try (FileChannel ch = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+				while (data.hasRemaining()) {
+					ch.write(data);
+				}
+
+				ch.force(true);
+
+			}
+
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+
+			// The new directory entry, otherwise the file may be gone after a crash
+			forceFolder();
+
+			log.debug("Added to outbox: " + req.getRequestUuid());
+
+		} catch (IOException e) {
+
+			tmp.delete();
+
+			throw new DataAccessResourceFailureException("Commit " + req.getRequestUuid() + " not stored in the outbox", e);
+
+		}
+
+	}
+
+	private void forceFolder() throws IOException {
+
+		// Directories can't be opened for that on Windows, NTFS journals the rename anyway
+		if (SystemUtils.IS_OS_WINDOWS) {
+			return;
+		}
+
+		try (FileChannel ch = FileChannel.open(outboxFolder.toPath(), StandardOpenOption.READ)) {
+			ch.force(true);
+		}
+
+	}
+
+	@Override
+	public void remove(String requestUuid) {
+
+		final File file = new File(outboxFolder, requestUuid + EXT);
+
+		if (file.delete()) {
+			log.debug("Removed from outbox: " + requestUuid);
+		}
+
+	}
+
+	@Override
+	public void deadLetter(String requestUuid) {
+
+		final File file = new File(outboxFolder, requestUuid + EXT);
+
+		if (file.exists()) {
+			deadLetter(file);
+		}
+
+	}
+
+	@Override
+	public int countDeadLetters() {
+
+		final String[] names = deadLetterFolder.list((dir, name) -> name.endsWith(EXT));
+
+		return names == null ? 0 : names.length;
+
+	}
+
+	@Override
+	public List<ValidationCommitRequest> findAll() {
+
+		final List<ValidationCommitRequest> requests = new ArrayList<>();
+
+		final File[] files = outboxFolder.listFiles((dir, name) -> name.endsWith(EXT));
+
+		if (files == null) {
+			return requests;
+		}
+
+		// Oldest first, as they were added
+		Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+
+		for (final File file : files) {
+
+			try {
+				requests.add(decode(Files.readAllBytes(file.toPath())));
+			} catch (Exception e) {
+				log.error("Unreadable outbox entry " + file + ", move to " + deadLetterFolder + ": ", e);
+				deadLetter(file);
+			}
+
+		}
+
+		return requests;
+
+	}
+
+	private ValidationCommitRequest decode(byte[] data) throws IOException {
+
+		// Binary entries start with the codec version, never with a brace
+		if (data.length > 0 && data[0] != '{') {
+			return ValidationMessageCodec.decodeCommitRequest(data);
+		}
+
+		return mapper.readValue(data, ValidationCommitRequest.class);
+
+	}
+
+	private void deadLetter(File file) {
+
+		try {
+			Files.move(file.toPath(), new File(deadLetterFolder, file.getName()).toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			log.error("Error: ", e);
+		}
+
+	}
+
+}
@@ -4,6 +4,8 @@ import java.io.Serializable;
 
 import org.apache.commons.lang3.StringUtils;
 
+import io.zdp.node.common.Amount;
+
 @SuppressWarnings("serial")
 public class CurrentTransfer implements Serializable {
 
@@ -15,9 +17,10 @@ public class CurrentTransfer implements Serializable {
 
 	private long date;
 
-	private String amount;
+	// Amounts in units, see Amount
+	private long amount;
 
-	private String fee;
+	private long fee;
 
 	private String memo = StringUtils.EMPTY;
 
@@ -33,9 +36,9 @@ public class CurrentTransfer implements Serializable {
 		sb.append("|");
 		sb.append(StringUtils.rightPad(Long.toString(date), 20, StringUtils.SPACE));
 		sb.append("|");
-		sb.append(StringUtils.rightPad(amount, 20, StringUtils.SPACE));
+		sb.append(StringUtils.rightPad(Amount.toString(amount), 20, StringUtils.SPACE));
 		sb.append("|");
-		sb.append(StringUtils.rightPad(fee, 8, StringUtils.SPACE));
+		sb.append(StringUtils.rightPad(Amount.toString(fee), 8, StringUtils.SPACE));
 		sb.append("|");
 		sb.append(memo);
 
@@ -75,19 +78,19 @@ public class CurrentTransfer implements Serializable {
 		this.date = date;
 	}
 
-	public String getAmount() {
+	public long getAmount() {
 		return amount;
 	}
 
-	public void setAmount(String amount) {
+	public void setAmount(long amount) {
 		this.amount = amount;
 	}
 
-	public String getFee() {
+	public long getFee() {
 		return fee;
 	}
 
-	public void setFee(String fee) {
+	public void setFee(long fee) {
 		this.fee = fee;
 	}
 
@@ -126,7 +129,7 @@ public class CurrentTransfer implements Serializable {
 
 	@Override
 	public String toString() {
-		return "CurrrentTransfer [uuid=" + uuid + ", from=" + from + ", to=" + to + ", date=" + date + ", amount=" + amount + ", fee=" + fee + ", memo=" + memo + "]";
+		return "CurrrentTransfer [uuid=" + uuid + ", from=" + from + ", to=" + to + ", date=" + date + ", amount=" + Amount.toString(amount) + ", fee=" + Amount.toString(fee) + ", memo=" + memo + "]";
 	}
 
 }
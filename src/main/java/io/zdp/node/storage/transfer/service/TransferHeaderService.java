@@ -1,24 +1,79 @@
 package io.zdp.node.storage.transfer.service;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import io.zdp.node.storage.transfer.dao.TransferHeaderDao;
 import io.zdp.node.storage.transfer.domain.TransferHeader;
 
+/**
+ * Transfer headers, with a Bloom filter over all known uuids in front of the replay lookups.
+ *
+ * The filter is loaded from the database at startup and every saved header is added to it, so a uuid it doesn't contain is not stored
+ * and the query is skipped.
+ */
 @Service
 public class TransferHeaderService {
 
 	private final Logger log = LoggerFactory.getLogger(this.getClass());
 
+	private static final int LOAD_PAGE_SIZE = 10000;
+
 	@Autowired
 	private TransferHeaderDao dao;
 
+	@Value("${transfers.filter.capacity:1000000}")
+	private long capacity;
+
+	@Value("${transfers.filter.fpp:0.001}")
+	private double fpp;
+
+	private TransferUuidFilter filter;
+
+	// Statistics
+	private final AtomicLong skippedLookups = new AtomicLong();
+	private final AtomicLong lookups = new AtomicLong();
+	private final AtomicLong falsePositives = new AtomicLong();
+
+	@PostConstruct
+	public void init() {
+
+		final long st = System.currentTimeMillis();
+
+		// Room for as many new transfers as are already stored
+		filter = new TransferUuidFilter(Math.max(capacity, dao.count() * 2), fpp);
+
+		long id = 0;
+
+		List<TransferHeader> page;
+
+		do {
+
+			page = dao.findTop10000ByIdGreaterThanOrderByIdAsc(id);
+
+			for (TransferHeader th : page) {
+				filter.put(th.getUuid());
+				id = th.getId();
+			}
+
+		} while (page.size() == LOAD_PAGE_SIZE);
+
+		log.info("Loaded " + filter.getCount() + " transfer uuid(s) into replay filter in " + (System.currentTimeMillis() - st) + " ms");
+
+	}
+
 	@Transactional(readOnly = false)
 	public void save(TransferHeader tx) {
+		filter.put(tx.getUuid());
 		dao.save(tx);
 		log.debug("Saved: " + tx);
 	}
@@ -28,4 +83,53 @@ public class TransferHeaderService {
 		return dao.findByUuid(uuid);
 	}
 
+	/**
+	 * False if a transfer with the uuid is surely not stored, true if it might be
+	 */
+	public boolean mightExist(byte[] uuid) {
+
+		if (filter.mightContain(uuid)) {
+			return true;
+		}
+
+		skippedLookups.incrementAndGet();
+
+		return false;
+
+	}
+
+	/**
+	 * True if a transfer with the uuid is stored, the database is queried only if the filter can't rule it out
+	 */
+	@Transactional(readOnly = true)
+	public boolean exists(byte[] uuid) {
+
+		if (false == mightExist(uuid)) {
+			return false;
+		}
+
+		lookups.incrementAndGet();
+
+		if (dao.findByUuid(uuid) != null) {
+			return true;
+		}
+
+		falsePositives.incrementAndGet();
+
+		return false;
+
+	}
+
+	public long getSkippedLookups() {
+		return skippedLookups.get();
+	}
+
+	public long getLookups() {
+		return lookups.get();
+	}
+
+	public long getFalsePositives() {
+		return falsePositives.get();
+	}
+
 }
@@ -0,0 +1,95 @@
+package io.zdp.node.storage.transfer.service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+/**
+ * Scalable Bloom filter over transfer uuids.
+ *
+ * Once a filter holds as many uuids as it was sized for, a new one twice as large with half the false positive rate is added, so the
+ * overall false positive rate stays below twice the configured one however many transfers are stored. Never gives false negatives.
+ */
+public class TransferUuidFilter {
+
+	private final double fpp;
+
+	private final List<Stage> stages = new CopyOnWriteArrayList<>();
+
+	private static final class Stage {
+
+		private final BloomFilter<byte[]> filter;
+
+		private final long capacity;
+
+		private final AtomicLong count = new AtomicLong();
+
+		private Stage(long capacity, double fpp) {
+			this.filter = BloomFilter.create(Funnels.byteArrayFunnel(), capacity, fpp);
+			this.capacity = capacity;
+		}
+
+	}
+
+	public TransferUuidFilter(long capacity, double fpp) {
+		this.fpp = fpp;
+		this.stages.add(new Stage(Math.max(capacity, 1024), fpp));
+	}
+
+	public void put(byte[] uuid) {
+
+		Stage stage = stages.get(stages.size() - 1);
+
+		if (stage.count.incrementAndGet() > stage.capacity) {
+			stage = grow(stage);
+			stage.count.incrementAndGet();
+		}
+
+		stage.filter.put(uuid);
+
+	}
+
+	/**
+	 * False if the uuid was never added
+	 */
+	public boolean mightContain(byte[] uuid) {
+
+		for (final Stage stage : stages) {
+			if (stage.filter.mightContain(uuid)) {
+				return true;
+			}
+		}
+
+		return false;
+
+	}
+
+	private synchronized Stage grow(Stage full) {
+
+		final Stage last = stages.get(stages.size() - 1);
+
+		// Another thread already added one
+		if (last != full) {
+			return last;
+		}
+
+		final Stage next = new Stage(full.capacity * 2, fpp / (1L << Math.min(stages.size(), 30)));
+
+		stages.add(next);
+
+		return next;
+
+	}
+
+	public int getStages() {
+		return stages.size();
+	}
+
+	public long getCount() {
+		return stages.stream().mapToLong(s -> Math.min(s.count.get(), s.capacity)).sum();
+	}
+
+}
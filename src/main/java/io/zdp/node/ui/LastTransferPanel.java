@@ -9,12 +9,21 @@ import javax.swing.JScrollPane;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import io.zdp.node.common.QTextComponentContextMenu;
 import io.zdp.node.common.SwingHelper;
+import io.zdp.node.network.validation.CommitOutbox;
 import io.zdp.node.network.validation.ValidationNetworkClient;
+import io.zdp.node.service.AccountKeyCache;
+import io.zdp.node.service.AdmissionService;
+import io.zdp.node.service.ConcurrencyLimiter;
+import io.zdp.node.service.TransferService;
+import io.zdp.node.service.validation.AccountLockTable;
+import io.zdp.node.service.validation.ValidatorSignatureVerifier;
+import io.zdp.node.storage.transfer.service.TransferHeaderService;
 import io.zdp.node.web.api.validation.ValidationTransferAction;
 
 @SuppressWarnings ( "serial" )
@@ -23,6 +32,30 @@ public class LastTransferPanel {
 
 	private static final Logger log = LoggerFactory.getLogger( LastTransferPanel.class );
 
+	@Autowired
+	private ValidationNetworkClient validationNetworkClient;
+
+	@Autowired
+	private CommitOutbox commitOutbox;
+
+	@Autowired
+	private ValidatorSignatureVerifier signatureVerifier;
+
+	@Autowired
+	private AccountKeyCache keyCache;
+
+	@Autowired
+	private TransferHeaderService transferHeaderService;
+
+	@Autowired
+	private AdmissionService admission;
+
+	@Autowired
+	private AccountLockTable lockTable;
+
+	@Autowired
+	private TransferService transferService;
+
 	private JEditorPane textArea;
 
 	private JPanel panel;
@@ -64,11 +97,57 @@ public class LastTransferPanel {
 
 		sb.append( "<tr style=';padding:10px;'><td>getLastValidationCommitRequest: </td><td>" + ValidationTransferAction.getLastValidationCommitRequest() + "</td></tr>" );
 		sb.append( "<tr style=';padding:10px;'><td>isLastValidationCommitResponse: </td><td>" + ValidationTransferAction.isLastValidationCommitResponse() + "</td></tr>" );
+		sb.append( "<tr style=';padding:10px;'><td>Pending commits: </td><td>" + commitOutbox.getPendingCount() + "</td></tr>" );
+		sb.append( "<tr style=';padding:10px;'><td>Undelivered commits: </td><td>" + commitOutbox.getDeadLetterCount() + "</td></tr>" );
 
 		sb.append( "<tr><td colspan='2'><hr>Rollback: </td></tr>" );
 
 		sb.append( "<tr style=';padding:10px;'><td>getLastRollbackValidationPrepareTransferRequest: </td><td>" + ValidationTransferAction.getLastRollbackValidationPrepareTransferRequest() + "</td></tr>" );
 		sb.append( "<tr style=';padding:10px;'><td>isLastRollbackValidationPrepareTransferResponse: </td><td>" + ValidationTransferAction.isLastRollbackValidationPrepareTransferResponse() + "</td></tr>" );
+		sb.append( "<tr style=';padding:10px;'><td>Pending rollbacks: </td><td>" + validationNetworkClient.getPendingRollbacks() + "</td></tr>" );
+		sb.append( "<tr style=';padding:10px;'><td>Rollback lag, ms: </td><td>" + validationNetworkClient.getRollbackLag() + "</td></tr>" );
+
+		sb.append( "<tr><td colspan='2'><hr>Signatures: </td></tr>" );
+
+		sb.append( "<tr style=';padding:10px;'><td>Verified: </td><td>" + signatureVerifier.getVerifications() + "</td></tr>" );
+		sb.append( "<tr style=';padding:10px;'><td>Rejected: </td><td>" + signatureVerifier.getRejections() + "</td></tr>" );
+		sb.append( "<tr style=';padding:10px;'><td>Batch root cache hits: </td><td>" + signatureVerifier.getRootCacheHits() + "</td></tr>" );
+		sb.append( "<tr style=';padding:10px;'><td>Average verify time, us: </td><td>" + signatureVerifier.getAverageVerifyMicros() + "</td></tr>" );
+
+		sb.append( "<tr><td colspan='2'><hr>Key cache hit rate: </td></tr>" );
+
+		sb.append( "<tr style=';padding:10px;'><td>Account uuids: </td><td>" + percent( keyCache.getAccountUuidHitRate() ) + "</td></tr>" );
+		sb.append( "<tr style=';padding:10px;'><td>Public key hashes: </td><td>" + percent( keyCache.getPublicKeyHashHitRate() ) + "</td></tr>" );
+		sb.append( "<tr style=';padding:10px;'><td>Public keys: </td><td>" + percent( keyCache.getPublicKeyHitRate() ) + "</td></tr>" );
+
+		sb.append( "<tr><td colspan='2'><hr>Replay filter: </td></tr>" );
+
+		sb.append( "<tr style=';padding:10px;'><td>Lookups skipped: </td><td>" + transferHeaderService.getSkippedLookups() + "</td></tr>" );
+		sb.append( "<tr style=';padding:10px;'><td>Lookups: </td><td>" + transferHeaderService.getLookups() + "</td></tr>" );
+		sb.append( "<tr style=';padding:10px;'><td>False positives: </td><td>" + transferHeaderService.getFalsePositives() + "</td></tr>" );
+
+		sb.append( "<tr><td colspan='2'><hr>Account locks: </td></tr>" );
+
+		sb.append( "<tr style=';padding:10px;'><td>Held: </td><td>" + lockTable.size() + "</td></tr>" );
+		sb.append( "<tr style=';padding:10px;'><td>Acquired: </td><td>" + lockTable.getAcquired() + "</td></tr>" );
+		sb.append( "<tr style=';padding:10px;'><td>Conflicts: </td><td>" + lockTable.getConflicts() + "</td></tr>" );
+		sb.append( "<tr style=';padding:10px;'><td>Expired: </td><td>" + lockTable.getExpired() + "</td></tr>" );
+		sb.append( "<tr style=';padding:10px;'><td>Waits: </td><td>" + lockTable.getWaits() + "</td></tr>" );
+		sb.append( "<tr style=';padding:10px;'><td>Wait timeouts: </td><td>" + lockTable.getWaitTimeouts() + "</td></tr>" );
+		sb.append( "<tr style=';padding:10px;'><td>Wait queue full: </td><td>" + lockTable.getWaitQueueFull() + "</td></tr>" );
+
+		sb.append( "<tr><td colspan='2'><hr>Hot accounts: </td></tr>" );
+
+		sb.append( "<tr style=';padding:10px;'><td>Groups: </td><td>" + transferService.getHotSequencer().getGroups() + "</td></tr>" );
+		sb.append( "<tr style=';padding:10px;'><td>Transfers: </td><td>" + transferService.getHotSequencer().getTransfers() + "</td></tr>" );
+		sb.append( "<tr style=';padding:10px;'><td>Queued: </td><td>" + transferService.getHotSequencer().getQueued() + "</td></tr>" );
+		sb.append( "<tr style=';padding:10px;'><td>Rejected: </td><td>" + transferService.getHotSequencer().getRejected() + "</td></tr>" );
+
+		sb.append( "<tr><td colspan='2'><hr>Admission (limit / in flight / waiting / admitted / rejected / latency, ms): </td></tr>" );
+
+		for ( final ConcurrencyLimiter l : new ConcurrencyLimiter [ ] { admission.getTransfers(), admission.getTransferBatches(), admission.getBalances(), admission.getBalanceBatches() } ) {
+			sb.append( "<tr style=';padding:10px;'><td>" + l.getName() + ": </td><td>" + l.getLimit() + " / " + l.getInFlight() + " / " + l.getWaiting() + " / " + l.getAdmitted() + " / " + l.getRejected() + " / " + l.getLatency() + "</td></tr>" );
+		}
 
 		sb.append( "</table></html>" );
 
@@ -76,6 +155,10 @@ public class LastTransferPanel {
 
 	}
 
+	private static String percent ( double rate ) {
+		return String.format( "%.1f%%", rate * 100 );
+	}
+
 	public JPanel getPanel ( ) {
 		return panel;
 	}
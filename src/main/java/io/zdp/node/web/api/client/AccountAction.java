@@ -5,6 +5,7 @@ import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -17,18 +18,50 @@ import io.zdp.crypto.Curves;
 import io.zdp.crypto.key.ZDPKeyPair;
 import io.zdp.crypto.mnemonics.Mnemonics;
 import io.zdp.crypto.mnemonics.Mnemonics.Language;
+import io.zdp.node.network.validation.ConsistencyLevel;
+import io.zdp.node.service.AdmissionService;
+import io.zdp.node.service.ConcurrencyLimiter.Permit;
 import io.zdp.node.storage.account.service.AccountService;
+import io.zdp.node.web.api.client.model.GetBalancesRequest;
+import io.zdp.node.web.api.client.model.GetBalancesResponse;
 
 @RestController
 public class AccountAction {
 
+	public static final String URL_GET_BALANCES = "/api/balances";
+
 	@Autowired
 	private AccountService addressService;
 
+	@Autowired
+	private AdmissionService admission;
+
 	@RequestMapping(path = Urls.URL_GET_BALANCE)
 	@ResponseBody
-	public GetBalanceResponse balance(@RequestBody GetBalanceRequest request) throws Exception {
-		return addressService.getBalance(request);
+	public GetBalanceResponse balance(@RequestBody GetBalanceRequest request, @RequestParam(name = "consistency", defaultValue = "ALL") ConsistencyLevel consistency) throws Exception {
+
+		final Permit permit = admission.getBalances().acquire();
+
+		try {
+			return addressService.getBalance(request, consistency);
+		} finally {
+			permit.release();
+		}
+
+	}
+
+	@RequestMapping(path = URL_GET_BALANCES)
+	@ResponseBody
+	public GetBalancesResponse balances(@RequestBody GetBalancesRequest request, @RequestParam(name = "consistency", defaultValue = "ALL") ConsistencyLevel consistency) throws Exception {
+
+		final Permit permit = admission.getBalanceBatches().acquire();
+
+		try {
+			return addressService.getBalances(request, consistency);
+		} finally {
+			permit.release();
+		}
+
 	}
 
 	@RequestMapping(path = Urls.URL_GET_NEW_ACCOUNT)
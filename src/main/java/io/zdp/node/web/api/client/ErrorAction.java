@@ -2,17 +2,28 @@ package io.zdp.node.web.api.client;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import io.zdp.node.error.OverloadedException;
+
 @ControllerAdvice
 public class ErrorAction {
 
 	private Log log = LogFactory.getLog(this.getClass());
 
+	@ExceptionHandler(OverloadedException.class)
+	public ResponseEntity<String> handleOverloaded(OverloadedException ex) {
+		log.debug(ex.getMessage());
+		final long retryAfterSeconds = Math.max(1, (ex.getRetryAfter() + 999) / 1000);
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds)).body("Overloaded");
+	}
+
 	@ExceptionHandler(Exception.class)
 	@ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
 	@ResponseBody
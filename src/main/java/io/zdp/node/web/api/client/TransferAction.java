@@ -12,22 +12,32 @@ import io.zdp.api.model.v1.GetFeeResponse;
 import io.zdp.api.model.v1.TransferRequest;
 import io.zdp.api.model.v1.TransferResponse;
 import io.zdp.api.model.v1.Urls;
+import io.zdp.node.common.Amount;
 import io.zdp.node.error.TransferException;
+import io.zdp.node.service.AdmissionService;
+import io.zdp.node.service.ConcurrencyLimiter.Permit;
 import io.zdp.node.service.TransferService;
+import io.zdp.node.web.api.client.model.TransfersRequest;
+import io.zdp.node.web.api.client.model.TransfersResponse;
 
 @RestController
 public class TransferAction {
 
+	public static final String URL_TRANSFERS = "/api/transfers";
+
 	private final Logger log = LoggerFactory.getLogger(this.getClass());
 
 	@Autowired
 	private TransferService txService;
 
+	@Autowired
+	private AdmissionService admission;
+
 	@RequestMapping(path = Urls.URL_GET_TX_FEE)
 	@ResponseBody
 	public GetFeeResponse getFee() {
 
-		return new GetFeeResponse(TransferService.TX_FEE.toPlainString());
+		return new GetFeeResponse(Amount.toString(TransferService.TX_FEE));
 
 	}
 
@@ -35,6 +45,8 @@ public class TransferAction {
 	@ResponseBody
 	public TransferResponse transfer(@RequestBody TransferRequest request) {
 
+		final Permit permit = admission.getTransfers().acquire();
+
 		try {
 
 			return txService.transfer(request);
@@ -45,7 +57,23 @@ public class TransferAction {
 
 			return TransferResponse.error(e.getError());
 
+		} finally {
+			permit.release();
 		}
 	}
 
+	@RequestMapping(path = URL_TRANSFERS)
+	@ResponseBody
+	public TransfersResponse transfers(@RequestBody TransfersRequest request) {
+
+		final Permit permit = admission.getTransferBatches().acquire();
+
+		try {
+			return txService.transfer(request);
+		} finally {
+			permit.release();
+		}
+
+	}
+
 }
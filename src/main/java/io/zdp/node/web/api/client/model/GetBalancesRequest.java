@@ -0,0 +1,28 @@
+package io.zdp.node.web.api.client.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Balances of many accounts in one call
+ */
+@SuppressWarnings("serial")
+public class GetBalancesRequest implements Serializable {
+
+	private List<String> accountUuids = new ArrayList<>();
+
+	public List<String> getAccountUuids() {
+		return accountUuids;
+	}
+
+	public void setAccountUuids(List<String> accountUuids) {
+		this.accountUuids = accountUuids;
+	}
+
+	@Override
+	public String toString() {
+		return "GetBalancesRequest [accountUuids=" + accountUuids.size() + "]";
+	}
+
+}
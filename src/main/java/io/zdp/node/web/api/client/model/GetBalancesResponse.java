@@ -0,0 +1,35 @@
+package io.zdp.node.web.api.client.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.zdp.api.model.v1.BaseResponseObject;
+import io.zdp.api.model.v1.GetBalanceResponse;
+
+/**
+ * One balance per requested account in the same order, accounts not found have no amount
+ */
+@SuppressWarnings("serial")
+public class GetBalancesResponse extends BaseResponseObject {
+
+	private List<GetBalanceResponse> balances = new ArrayList<>();
+
+	public List<GetBalanceResponse> getBalances() {
+		return balances;
+	}
+
+	public void setBalances(List<GetBalanceResponse> balances) {
+		this.balances = balances;
+	}
+
+	@Override
+	public String getType() {
+		return "balances";
+	}
+
+	@Override
+	public String toString() {
+		return "GetBalancesResponse [balances=" + balances.size() + "]";
+	}
+
+}
@@ -0,0 +1,30 @@
+package io.zdp.node.web.api.client.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.zdp.api.model.v1.TransferRequest;
+
+/**
+ * Many signed transfers in one call
+ */
+@SuppressWarnings("serial")
+public class TransfersRequest implements Serializable {
+
+	private List<TransferRequest> transfers = new ArrayList<>();
+
+	public List<TransferRequest> getTransfers() {
+		return transfers;
+	}
+
+	public void setTransfers(List<TransferRequest> transfers) {
+		this.transfers = transfers;
+	}
+
+	@Override
+	public String toString() {
+		return "TransfersRequest [transfers=" + transfers.size() + "]";
+	}
+
+}
@@ -0,0 +1,35 @@
+package io.zdp.node.web.api.client.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.zdp.api.model.v1.BaseResponseObject;
+import io.zdp.api.model.v1.TransferResponse;
+
+/**
+ * One response per requested transfer in the same order
+ */
+@SuppressWarnings("serial")
+public class TransfersResponse extends BaseResponseObject {
+
+	private List<TransferResponse> transfers = new ArrayList<>();
+
+	public List<TransferResponse> getTransfers() {
+		return transfers;
+	}
+
+	public void setTransfers(List<TransferResponse> transfers) {
+		this.transfers = transfers;
+	}
+
+	@Override
+	public String getType() {
+		return "transfers";
+	}
+
+	@Override
+	public String toString() {
+		return "TransfersResponse [transfers=" + transfers.size() + "]";
+	}
+
+}
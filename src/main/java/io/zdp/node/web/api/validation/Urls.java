@@ -7,7 +7,10 @@ public class Urls {
 
 	public static final String URL_PING = "/validation/ping";
 	public static final String URL_VOTE = "/validation/vote";
+	public static final String URL_VOTE_BATCH = "/validation/vote-batch";
 	public static final String URL_COMMIT = "/validation/commit";
 	public static final String URL_ROLLBACK = "/validation/rollback";
+	public static final String URL_ROLLBACK_BATCH = "/validation/rollback-batch";
+	public static final String URL_BALANCE_BATCH = "/validation/balance-batch";
 
 }
@@ -0,0 +1,28 @@
+package io.zdp.node.web.api.validation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.zdp.node.storage.account.service.AccountService;
+import io.zdp.node.web.api.client.model.GetBalancesRequest;
+import io.zdp.node.web.api.client.model.GetBalancesResponse;
+
+@RestController
+public class ValidationBalanceAction {
+
+	@Autowired
+	private AccountService accountService;
+
+	/**
+	 * Local balances only, the asking node does the fan-out
+	 */
+	@RequestMapping(path = Urls.URL_BALANCE_BATCH)
+	@ResponseBody
+	public GetBalancesResponse balances(@RequestBody GetBalancesRequest req) throws Exception {
+		return accountService.getLocalAccountBalances(req);
+	}
+
+}
@@ -5,6 +5,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import io.zdp.node.network.validation.tcp.TcpValidationServer;
 import io.zdp.node.service.NodeConfigurationService;
 import io.zdp.node.web.api.validation.model.ValidationPingResponse;
 
@@ -14,6 +15,9 @@ public class ValidationPingAction {
 	@Autowired
 	private NodeConfigurationService nodeConfigurationService;
 
+	@Autowired
+	private TcpValidationServer tcpValidationServer;
+
 	@RequestMapping(path = Urls.URL_PING)
 	@ResponseBody
 	public ValidationPingResponse ping() throws Exception {
@@ -22,6 +26,7 @@ public class ValidationPingAction {
 
 		resp.setPublicKey(nodeConfigurationService.getNode().getPublicKey());
 		resp.setUuid(nodeConfigurationService.getNode().getUuid());
+		resp.setTcpPort(tcpValidationServer.getPort());
 
 		return resp;
 	}
@@ -10,6 +10,8 @@ import io.zdp.node.service.validation.CommitService;
 import io.zdp.node.service.validation.PrepareService;
 import io.zdp.node.service.validation.RollbackService;
 import io.zdp.node.web.api.validation.model.ValidationCommitRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchResponse;
 import io.zdp.node.web.api.validation.model.ValidationPrepareTransferRequest;
 import io.zdp.node.web.api.validation.model.ValidationPrepareTransferResponse;
 
@@ -48,6 +50,14 @@ public class ValidationTransferAction {
 		return resp;
 	}
 
+	@RequestMapping ( path = Urls.URL_VOTE_BATCH )
+	@ResponseBody
+	public ValidationPrepareBatchResponse voteBatch ( @RequestBody ValidationPrepareBatchRequest req ) throws Exception {
+
+		return voteService.prepare( req );
+
+	}
+
 	@RequestMapping ( path = Urls.URL_COMMIT )
 	@ResponseBody
 	public Boolean commit ( @RequestBody ValidationCommitRequest req ) throws Exception {
@@ -74,6 +84,14 @@ public class ValidationTransferAction {
 		return resp;
 	}
 
+	@RequestMapping ( path = Urls.URL_ROLLBACK_BATCH )
+	@ResponseBody
+	public Boolean rollbackBatch ( @RequestBody ValidationPrepareBatchRequest req ) throws Exception {
+
+		return rollbackService.rollback( req );
+
+	}
+
 	public static ValidationPrepareTransferRequest getLastValidationPrepareTransferRequest ( ) {
 		return lastValidationPrepareTransferRequest;
 	}
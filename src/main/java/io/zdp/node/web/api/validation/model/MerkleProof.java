@@ -0,0 +1,167 @@
+package io.zdp.node.web.api.validation.model;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.zdp.crypto.Hashing;
+
+/**
+ * Merkle tree over the hash data of a batch of requests, so the batch is signed once through its root.
+ *
+ * Leaves and inner nodes are hashed with different prefixes, an odd node at the end of a level moves up unchanged.
+ * A proof is encoded as <code>int leaf count, int leaf index, 20 byte sibling hashes from the bottom up</code>.
+ */
+public final class MerkleProof {
+
+	private static final int HASH_LENGTH = 20;
+
+	private static final byte LEAF = 0;
+	private static final byte NODE = 1;
+
+	private MerkleProof() {
+	}
+
+	/**
+	 * Root and one proof per leaf, in leaf order
+	 */
+	public static final class Tree {
+
+		private final byte[] root;
+
+		private final List<byte[]> proofs;
+
+		private Tree(byte[] root, List<byte[]> proofs) {
+			this.root = root;
+			this.proofs = proofs;
+		}
+
+		public byte[] getRoot() {
+			return root;
+		}
+
+		public List<byte[]> getProofs() {
+			return proofs;
+		}
+
+	}
+
+	public static Tree build(List<byte[]> leaves) {
+
+		if (leaves.isEmpty()) {
+			throw new IllegalArgumentException("No leaves");
+		}
+
+		final int count = leaves.size();
+
+		final List<ByteBuffer> proofs = new ArrayList<>(count);
+
+		int depth = 0;
+		for (int n = count; n > 1; n = (n + 1) / 2) {
+			depth++;
+		}
+
+		List<byte[]> level = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			level.add(hash(LEAF, leaves.get(i), null));
+			proofs.add(ByteBuffer.allocate(8 + depth * HASH_LENGTH).putInt(count).putInt(i));
+		}
+
+		// Leaf index -> its ancestor's index on the current level is index >> height
+		for (int height = 0; level.size() > 1; height++) {
+
+			final List<byte[]> next = new ArrayList<>((level.size() + 1) / 2);
+
+			for (int i = 0; i < level.size(); i += 2) {
+				next.add(i + 1 < level.size() ? hash(NODE, level.get(i), level.get(i + 1)) : level.get(i));
+			}
+
+			for (int leaf = 0; leaf < count; leaf++) {
+
+				final int index = leaf >> height;
+				final int sibling = index ^ 1;
+
+				if (sibling < level.size()) {
+					proofs.get(leaf).put(level.get(sibling));
+				}
+
+			}
+
+			level = next;
+
+		}
+
+		final List<byte[]> encoded = new ArrayList<>(count);
+
+		for (final ByteBuffer proof : proofs) {
+			final byte[] bytes = new byte[proof.position()];
+			proof.flip();
+			proof.get(bytes);
+			encoded.add(bytes);
+		}
+
+		return new Tree(level.get(0), encoded);
+
+	}
+
+	/**
+	 * Root of the tree the leaf belongs to according to the proof, null if the proof is malformed
+	 */
+	public static byte[] rootOf(byte[] leaf, byte[] proof) {
+
+		if (proof == null || proof.length < 8 || (proof.length - 8) % HASH_LENGTH != 0) {
+			return null;
+		}
+
+		final ByteBuffer in = ByteBuffer.wrap(proof);
+
+		int count = in.getInt();
+		int index = in.getInt();
+
+		if (count < 1 || index < 0 || index >= count) {
+			return null;
+		}
+
+		byte[] node = hash(LEAF, leaf, null);
+
+		final byte[] sibling = new byte[HASH_LENGTH];
+
+		while (count > 1) {
+
+			// Last node of an odd level moves up unchanged
+			if (false == (index == count - 1 && count % 2 == 1)) {
+
+				if (in.remaining() < HASH_LENGTH) {
+					return null;
+				}
+
+				in.get(sibling);
+
+				node = index % 2 == 0 ? hash(NODE, node, sibling) : hash(NODE, sibling, node);
+
+			}
+
+			index /= 2;
+			count = (count + 1) / 2;
+
+		}
+
+		return in.hasRemaining() ? null : node;
+
+	}
+
+	private static byte[] hash(byte prefix, byte[] left, byte[] right) {
+
+		final ByteBuffer buf = ByteBuffer.allocate(1 + left.length + (right == null ? 0 : right.length));
+		buf.put(prefix).put(left);
+
+		if (right != null) {
+			buf.put(right);
+		}
+
+		return Hashing.ripemd160(buf.array());
+
+	}
+
+}
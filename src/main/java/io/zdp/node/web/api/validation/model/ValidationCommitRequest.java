@@ -1,7 +1,6 @@
 package io.zdp.node.web.api.validation.model;
 
 import java.io.Serializable;
-import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 
 import org.bouncycastle.util.encoders.Hex;
@@ -23,12 +22,15 @@ public class ValidationCommitRequest implements Serializable {
 
 	private CurrentTransfer transfer;
 
+	// Lock uuid the transfer was prepared with, if any
+	private String lockUuid;
+
 	private Account fromAccount;
 
 	private Account toAccount;
 
 	public byte[] toHashData() {
-		return Hashing.ripemd160((requestUuid + " " + transfer.getUuid() + " " + fromAccount.getUuid() + " " + toAccount.getUuid() + " " + serverUuid).getBytes(StandardCharsets.UTF_8));
+		return Hashing.ripemd160(ValidationMessageCodec.toSignedBytes(this));
 	}
 
 	public Account getFromAccount() {
@@ -87,9 +89,24 @@ public class ValidationCommitRequest implements Serializable {
 		this.transfer = transfer;
 	}
 
+	public String getLockUuid() {
+		return lockUuid;
+	}
+
+	public void setLockUuid(String lockUuid) {
+		this.lockUuid = lockUuid;
+	}
+
+	/**
+	 * Owner of the account locks to release: the lock uuid if set, the transfer uuid otherwise
+	 */
+	public String getLockOwner() {
+		return lockUuid == null ? transfer.getUuid() : lockUuid;
+	}
+
 	@Override
 	public String toString() {
-		return "ValidationCommitRequest [requestUuid=" + requestUuid + ", serverUuid=" + serverUuid + ", transferSignature=" + Hex.toHexString(transferSignature) + ", transfer=" + transfer + ", fromAccount=" + fromAccount + ", toAccount=" + toAccount + "]";
+		return "ValidationCommitRequest [requestUuid=" + requestUuid + ", serverUuid=" + serverUuid + ", transferSignature=" + Hex.toHexString(transferSignature) + ", transfer=" + transfer + ", lockUuid=" + lockUuid + ", fromAccount=" + fromAccount + ", toAccount=" + toAccount + "]";
 	}
 
 }
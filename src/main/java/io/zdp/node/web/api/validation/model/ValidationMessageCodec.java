@@ -0,0 +1,529 @@
+package io.zdp.node.web.api.validation.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import io.zdp.node.storage.account.domain.Account;
+import io.zdp.node.storage.transfer.domain.CurrentTransfer;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferResponse.Status;
+
+/**
+ * Versioned binary encoding of validation messages.
+ *
+ * Every message starts with the codec version and the message type. Account uuids are raw public key hashes, balances, amounts and heights are longs,
+ * request uuids are 16 raw bytes, strings and byte arrays are prefixed with an unsigned short length(0xFFFF for null).
+ *
+ * The signed form of a message is its encoding without the signature.
+ */
+public final class ValidationMessageCodec {
+
+	public static final byte VERSION = 3;
+
+	private static final byte PREPARE_REQUEST = 1;
+	private static final byte PREPARE_RESPONSE = 2;
+	private static final byte COMMIT_REQUEST = 3;
+	private static final byte PREPARE_BATCH_REQUEST = 4;
+	private static final byte PREPARE_BATCH_RESPONSE = 5;
+
+	private static final int NULL_LENGTH = 0xFFFF;
+
+	private static final byte STRING_UUID = 0;
+	private static final byte RAW_UUID = 1;
+
+	private ValidationMessageCodec() {
+	}
+
+	// Prepare request
+
+	public static byte[] encode(ValidationPrepareTransferRequest req) {
+		final Writer w = new Writer(192, PREPARE_REQUEST);
+		writePrepareRequest(w, req);
+		w.writeBytes(req.getSignedRequest());
+		w.writeBytes(req.getSignatureProof());
+		return w.toByteArray();
+	}
+
+	public static byte[] toSignedBytes(ValidationPrepareTransferRequest req) {
+		final Writer w = new Writer(128, PREPARE_REQUEST);
+		writePrepareRequest(w, req);
+		return w.toByteArray();
+	}
+
+	public static ValidationPrepareTransferRequest decodePrepareRequest(byte[] data) {
+		final Reader r = new Reader(data, PREPARE_REQUEST);
+		final ValidationPrepareTransferRequest req = readPrepareRequest(r);
+		req.setSignedRequest(r.readBytes());
+		req.setSignatureProof(r.readBytes());
+		return req;
+	}
+
+	private static void writePrepareRequest(Writer w, ValidationPrepareTransferRequest req) {
+		w.writeUuid(req.getRequestUuid());
+		w.writeString(req.getServerUuid());
+		w.writeBytes(req.getFromAccountHash());
+		w.writeBytes(req.getToAccountHash());
+		w.writeString(req.getTransferUuid());
+		w.writeString(req.getLockUuid());
+	}
+
+	private static ValidationPrepareTransferRequest readPrepareRequest(Reader r) {
+		final ValidationPrepareTransferRequest req = new ValidationPrepareTransferRequest();
+		req.setRequestUuid(r.readUuid());
+		req.setServerUuid(r.readString());
+		req.setFromAccountHash(r.readBytes());
+		req.setToAccountHash(r.readBytes());
+		req.setTransferUuid(r.readString());
+		req.setLockUuid(r.readString());
+		return req;
+	}
+
+	// Prepare response
+
+	public static byte[] encode(ValidationPrepareTransferResponse resp) {
+		final Writer w = new Writer(160, PREPARE_RESPONSE);
+		writePrepareResponse(w, resp);
+		return w.toByteArray();
+	}
+
+	public static ValidationPrepareTransferResponse decodePrepareResponse(byte[] data) {
+		return readPrepareResponse(new Reader(data, PREPARE_RESPONSE));
+	}
+
+	private static void writePrepareResponse(Writer w, ValidationPrepareTransferResponse resp) {
+		w.writeByte(resp.getStatus() == null ? -1 : resp.getStatus().ordinal());
+		writeAccount(w, resp.getFromAccount());
+		writeAccount(w, resp.getToAccount());
+	}
+
+	private static ValidationPrepareTransferResponse readPrepareResponse(Reader r) {
+		final ValidationPrepareTransferResponse resp = new ValidationPrepareTransferResponse();
+		resp.setStatus(r.readStatus());
+		resp.setFromAccount(readAccount(r));
+		resp.setToAccount(readAccount(r));
+		return resp;
+	}
+
+	// Prepare batch
+
+	public static byte[] encode(ValidationPrepareBatchRequest batch) {
+		final Writer w = new Writer(64 + batch.getRequests().size() * 128, PREPARE_BATCH_REQUEST);
+		writePrepareBatchRequest(w, batch);
+		w.writeBytes(batch.getSignedRequest());
+		return w.toByteArray();
+	}
+
+	public static byte[] toSignedBytes(ValidationPrepareBatchRequest batch) {
+		final Writer w = new Writer(64 + batch.getRequests().size() * 128, PREPARE_BATCH_REQUEST);
+		writePrepareBatchRequest(w, batch);
+		return w.toByteArray();
+	}
+
+	public static ValidationPrepareBatchRequest decodePrepareBatchRequest(byte[] data) {
+
+		final Reader r = new Reader(data, PREPARE_BATCH_REQUEST);
+
+		final ValidationPrepareBatchRequest batch = new ValidationPrepareBatchRequest();
+		batch.setRequestUuid(r.readUuid());
+		batch.setServerUuid(r.readString());
+
+		final int size = r.readCount();
+		final List<ValidationPrepareTransferRequest> requests = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			requests.add(readPrepareRequest(r));
+		}
+		batch.setRequests(requests);
+
+		batch.setSignedRequest(r.readBytes());
+
+		return batch;
+
+	}
+
+	private static void writePrepareBatchRequest(Writer w, ValidationPrepareBatchRequest batch) {
+		w.writeUuid(batch.getRequestUuid());
+		w.writeString(batch.getServerUuid());
+		w.writeInt(batch.getRequests().size());
+		for (ValidationPrepareTransferRequest req : batch.getRequests()) {
+			writePrepareRequest(w, req);
+		}
+	}
+
+	public static byte[] encode(ValidationPrepareBatchResponse batch) {
+		final Writer w = new Writer(16 + batch.getResponses().size() * 128, PREPARE_BATCH_RESPONSE);
+		w.writeInt(batch.getResponses().size());
+		for (ValidationPrepareTransferResponse resp : batch.getResponses()) {
+			writePrepareResponse(w, resp);
+		}
+		return w.toByteArray();
+	}
+
+	public static ValidationPrepareBatchResponse decodePrepareBatchResponse(byte[] data) {
+
+		final Reader r = new Reader(data, PREPARE_BATCH_RESPONSE);
+
+		final ValidationPrepareBatchResponse batch = new ValidationPrepareBatchResponse();
+
+		final int size = r.readCount();
+		for (int i = 0; i < size; i++) {
+			batch.getResponses().add(readPrepareResponse(r));
+		}
+
+		return batch;
+
+	}
+
+	// Commit request
+
+	public static byte[] encode(ValidationCommitRequest req) {
+		final Writer w = new Writer(384, COMMIT_REQUEST);
+		writeCommitRequest(w, req);
+		w.writeBytes(req.getRequestSignature());
+		return w.toByteArray();
+	}
+
+	public static byte[] toSignedBytes(ValidationCommitRequest req) {
+		final Writer w = new Writer(320, COMMIT_REQUEST);
+		writeCommitRequest(w, req);
+		return w.toByteArray();
+	}
+
+	public static ValidationCommitRequest decodeCommitRequest(byte[] data) {
+
+		final Reader r = new Reader(data, COMMIT_REQUEST);
+
+		final ValidationCommitRequest req = new ValidationCommitRequest();
+		req.setRequestUuid(r.readUuid());
+		req.setServerUuid(r.readString());
+		req.setTransferSignature(r.readBytes());
+		req.setTransfer(readTransfer(r));
+		req.setLockUuid(r.readString());
+		req.setFromAccount(readAccount(r));
+		req.setToAccount(readAccount(r));
+		req.setRequestSignature(r.readBytes());
+
+		return req;
+
+	}
+
+	private static void writeCommitRequest(Writer w, ValidationCommitRequest req) {
+		w.writeUuid(req.getRequestUuid());
+		w.writeString(req.getServerUuid());
+		w.writeBytes(req.getTransferSignature());
+		writeTransfer(w, req.getTransfer());
+		w.writeString(req.getLockUuid());
+		writeAccount(w, req.getFromAccount());
+		writeAccount(w, req.getToAccount());
+	}
+
+	// Parts
+
+	private static void writeAccount(Writer w, Account a) {
+
+		if (a == null) {
+			w.writeByte(0);
+			return;
+		}
+
+		w.writeByte(1);
+		w.writeBytes(a.getUuidAsBytes());
+		w.writeLong(a.getBalanceRaw());
+		w.writeLong(a.getHeight());
+		w.writeShort(a.getCurve());
+		w.writeBytes(a.getTransferHash());
+
+	}
+
+	private static Account readAccount(Reader r) {
+
+		if (r.readByte() == 0) {
+			return null;
+		}
+
+		final Account a = new Account();
+		a.setUuid(r.readBytes());
+		a.setBalanceRaw(r.readLong());
+		a.setHeight(r.readLong());
+		a.setCurve(r.readShort());
+		a.setTransferHash(r.readBytes());
+
+		return a;
+
+	}
+
+	private static void writeTransfer(Writer w, CurrentTransfer t) {
+
+		if (t == null) {
+			w.writeByte(0);
+			return;
+		}
+
+		w.writeByte(1);
+		w.writeString(t.getUuid());
+		w.writeString(t.getFrom());
+		w.writeString(t.getTo());
+		w.writeLong(t.getDate());
+		w.writeLong(t.getAmount());
+		w.writeLong(t.getFee());
+		w.writeString(t.getMemo());
+
+	}
+
+	private static CurrentTransfer readTransfer(Reader r) {
+
+		if (r.readByte() == 0) {
+			return null;
+		}
+
+		final CurrentTransfer t = new CurrentTransfer();
+		t.setUuid(r.readString());
+		t.setFrom(r.readString());
+		t.setTo(r.readString());
+		t.setDate(r.readLong());
+		t.setAmount(r.readLong());
+		t.setFee(r.readLong());
+		t.setMemo(r.readString());
+
+		return t;
+
+	}
+
+	private static final class Writer {
+
+		private byte[] buf;
+
+		private int pos;
+
+		private Writer(int capacity, byte type) {
+			buf = new byte [capacity];
+			writeByte(VERSION);
+			writeByte(type);
+		}
+
+		private void ensure(int n) {
+			if (pos + n > buf.length) {
+				final byte[] bigger = new byte [Math.max(buf.length * 2, pos + n)];
+				System.arraycopy(buf, 0, bigger, 0, pos);
+				buf = bigger;
+			}
+		}
+
+		private void writeByte(int v) {
+			ensure(1);
+			buf[pos++] = (byte) v;
+		}
+
+		private void writeShort(int v) {
+			ensure(2);
+			buf[pos++] = (byte) (v >>> 8);
+			buf[pos++] = (byte) v;
+		}
+
+		private void writeInt(int v) {
+			ensure(4);
+			for (int s = 24; s >= 0; s -= 8) {
+				buf[pos++] = (byte) (v >>> s);
+			}
+		}
+
+		private void writeLong(long v) {
+			ensure(8);
+			for (int s = 56; s >= 0; s -= 8) {
+				buf[pos++] = (byte) (v >>> s);
+			}
+		}
+
+		private void writeBytes(byte[] v) {
+
+			if (v == null) {
+				writeShort(NULL_LENGTH);
+				return;
+			}
+
+			if (v.length >= NULL_LENGTH) {
+				throw new IllegalArgumentException("Field too long: " + v.length);
+			}
+
+			writeShort(v.length);
+			ensure(v.length);
+			System.arraycopy(v, 0, buf, pos, v.length);
+			pos += v.length;
+
+		}
+
+		private void writeString(String v) {
+			writeBytes(v == null ? null : v.getBytes(StandardCharsets.UTF_8));
+		}
+
+		/**
+		 * Canonical uuids as 16 raw bytes, anything else as a string
+		 */
+		private void writeUuid(String v) {
+
+			if (v != null && v.length() == 36) {
+				try {
+					final UUID uuid = UUID.fromString(v);
+					if (uuid.toString().equals(v)) {
+						writeByte(RAW_UUID);
+						writeLong(uuid.getMostSignificantBits());
+						writeLong(uuid.getLeastSignificantBits());
+						return;
+					}
+				} catch (IllegalArgumentException e) {
+					// not a uuid, fall through
+				}
+			}
+
+			writeByte(STRING_UUID);
+			writeString(v);
+
+		}
+
+		private byte[] toByteArray() {
+			final byte[] result = new byte [pos];
+			System.arraycopy(buf, 0, result, 0, pos);
+			return result;
+		}
+
+	}
+
+	private static final class Reader {
+
+		private final byte[] buf;
+
+		private int pos;
+
+		private Reader(byte[] buf, byte type) {
+
+			this.buf = buf;
+
+			final byte version = readByte();
+
+			if (version != VERSION) {
+				throw new IllegalArgumentException("Unsupported codec version: " + version);
+			}
+
+			final byte actualType = readByte();
+
+			if (actualType != type) {
+				throw new IllegalArgumentException("Expected message type " + type + ", got " + actualType);
+			}
+
+		}
+
+		private void require(int n) {
+			if (n < 0 || n > buf.length - pos) {
+				throw new IllegalArgumentException("Truncated message");
+			}
+		}
+
+		private byte readByte() {
+			require(1);
+			return buf[pos++];
+		}
+
+		private int readShort() {
+			require(2);
+			final int v = ((buf[pos] & 0xFF) << 8) | (buf[pos + 1] & 0xFF);
+			pos += 2;
+			return v;
+		}
+
+		private int readInt() {
+			require(4);
+			int v = 0;
+			for (int i = 0; i < 4; i++) {
+				v = (v << 8) | (buf[pos++] & 0xFF);
+			}
+			return v;
+		}
+
+		/**
+		 * Number of entries that follow, each takes at least one byte so a count beyond the bytes left can't be right
+		 */
+		private int readCount() {
+
+			final int count = readInt();
+
+			if (count < 0 || count > buf.length - pos) {
+				throw new IllegalArgumentException("Invalid entry count: " + count);
+			}
+
+			return count;
+
+		}
+
+		private long readLong() {
+			require(8);
+			long v = 0;
+			for (int i = 0; i < 8; i++) {
+				v = (v << 8) | (buf[pos++] & 0xFF);
+			}
+			return v;
+		}
+
+		private byte[] readBytes() {
+
+			final int length = readShort();
+
+			if (length == NULL_LENGTH) {
+				return null;
+			}
+
+			require(length);
+
+			final byte[] v = new byte [length];
+			System.arraycopy(buf, pos, v, 0, length);
+			pos += length;
+
+			return v;
+
+		}
+
+		private String readString() {
+
+			final int length = readShort();
+
+			if (length == NULL_LENGTH) {
+				return null;
+			}
+
+			require(length);
+
+			final String v = new String(buf, pos, length, StandardCharsets.UTF_8);
+			pos += length;
+
+			return v;
+
+		}
+
+		private Status readStatus() {
+
+			final byte status = readByte();
+
+			if (status < 0) {
+				return null;
+			}
+
+			if (status >= Status.values().length) {
+				throw new IllegalArgumentException("Unknown status: " + status);
+			}
+
+			return Status.values()[status];
+
+		}
+
+		private String readUuid() {
+
+			if (readByte() == RAW_UUID) {
+				return new UUID(readLong(), readLong()).toString();
+			}
+
+			return readString();
+
+		}
+
+	}
+
+}
@@ -9,6 +9,8 @@ public class ValidationPingResponse extends BaseResponseObject {
 
 	private String publicKey;
 
+	private int tcpPort;
+
 	public String getUuid() {
 		return uuid;
 	}
@@ -25,6 +27,14 @@ public class ValidationPingResponse extends BaseResponseObject {
 		this.publicKey = publicKey;
 	}
 
+	public int getTcpPort() {
+		return tcpPort;
+	}
+
+	public void setTcpPort(int tcpPort) {
+		this.tcpPort = tcpPort;
+	}
+
 	public ValidationPingResponse() {
 		super();
 	}
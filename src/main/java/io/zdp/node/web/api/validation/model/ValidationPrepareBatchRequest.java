@@ -0,0 +1,65 @@
+package io.zdp.node.web.api.validation.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import io.zdp.crypto.Hashing;
+
+/**
+ * Batch of prepare transfer requests, signed once for the whole batch
+ */
+@SuppressWarnings("serial")
+public class ValidationPrepareBatchRequest implements Serializable {
+
+	private String requestUuid = UUID.randomUUID().toString();
+
+	private String serverUuid;
+
+	private byte[] signedRequest;
+
+	private List<ValidationPrepareTransferRequest> requests = new ArrayList<>();
+
+	public byte[] toHashData() {
+		return Hashing.ripemd160(ValidationMessageCodec.toSignedBytes(this));
+	}
+
+	public String getRequestUuid() {
+		return requestUuid;
+	}
+
+	public void setRequestUuid(String requestUuid) {
+		this.requestUuid = requestUuid;
+	}
+
+	public String getServerUuid() {
+		return serverUuid;
+	}
+
+	public void setServerUuid(String serverUuid) {
+		this.serverUuid = serverUuid;
+	}
+
+	public byte[] getSignedRequest() {
+		return signedRequest;
+	}
+
+	public void setSignedRequest(byte[] signedRequest) {
+		this.signedRequest = signedRequest;
+	}
+
+	public List<ValidationPrepareTransferRequest> getRequests() {
+		return requests;
+	}
+
+	public void setRequests(List<ValidationPrepareTransferRequest> requests) {
+		this.requests = requests;
+	}
+
+	@Override
+	public String toString() {
+		return "ValidationPrepareBatchRequest [requestUuid=" + requestUuid + ", serverUuid=" + serverUuid + ", requests=" + requests.size() + "]";
+	}
+
+}
@@ -0,0 +1,34 @@
+package io.zdp.node.web.api.validation.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.zdp.api.model.v1.BaseResponseObject;
+
+/**
+ * Prepare batch response, one response per request in the same order
+ */
+@SuppressWarnings ( "serial" )
+public class ValidationPrepareBatchResponse extends BaseResponseObject {
+
+	private List < ValidationPrepareTransferResponse > responses = new ArrayList<>();
+
+	public List < ValidationPrepareTransferResponse > getResponses ( ) {
+		return responses;
+	}
+
+	public void setResponses ( List < ValidationPrepareTransferResponse > responses ) {
+		this.responses = responses;
+	}
+
+	@Override
+	public String getType ( ) {
+		return "vote-batch-response";
+	}
+
+	@Override
+	public String toString ( ) {
+		return "ValidationPrepareBatchResponse [responses=" + responses + "]";
+	}
+
+}
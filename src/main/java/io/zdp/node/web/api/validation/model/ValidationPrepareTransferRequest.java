@@ -1,7 +1,6 @@
 package io.zdp.node.web.api.validation.model;
 
 import java.io.Serializable;
-import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 
 import org.apache.commons.lang3.StringUtils;
@@ -20,20 +19,27 @@ public class ValidationPrepareTransferRequest implements Serializable {
 
 	private static final Logger log = LoggerFactory.getLogger(ValidationPrepareTransferRequest.class);
 
-	private String fromAccountUuid;
+	// Public key hashes of the accounts, the raw form of their uuids
+	private byte[] fromAccountHash;
 
-	private String toAccountUuid;
+	private byte[] toAccountHash;
 
 	private String transferUuid;
 
+	// Set when several transfers share their account locks, e.g. a group of transfers of a hot account
+	private String lockUuid;
+
 	private byte[] signedRequest;
 
+	// Set when signedRequest signs the Merkle root of a batch of requests instead of this request alone
+	private byte[] signatureProof;
+
 	private String serverUuid;
 
 	private String requestUuid = UUID.randomUUID().toString();
 
 	public byte[] toHashData() {
-		return Hashing.ripemd160((requestUuid + " " + fromAccountUuid + " " + toAccountUuid + " " + transferUuid + " " + serverUuid).getBytes(StandardCharsets.UTF_8));
+		return Hashing.ripemd160(ValidationMessageCodec.toSignedBytes(this));
 	}
 
 	public byte[] getSignedRequest() {
@@ -44,6 +50,14 @@ public class ValidationPrepareTransferRequest implements Serializable {
 		this.signedRequest = signedRequest;
 	}
 
+	public byte[] getSignatureProof() {
+		return signatureProof;
+	}
+
+	public void setSignatureProof(byte[] signatureProof) {
+		this.signatureProof = signatureProof;
+	}
+
 	public String getRequestUuid() {
 		return requestUuid;
 	}
@@ -60,20 +74,20 @@ public class ValidationPrepareTransferRequest implements Serializable {
 		this.serverUuid = serverUuid;
 	}
 
-	public String getFromAccountUuid() {
-		return fromAccountUuid;
+	public byte[] getFromAccountHash() {
+		return fromAccountHash;
 	}
 
-	public void setFromAccountUuid(String fromAccountUuid) {
-		this.fromAccountUuid = fromAccountUuid;
+	public void setFromAccountHash(byte[] fromAccountHash) {
+		this.fromAccountHash = fromAccountHash;
 	}
 
-	public String getToAccountUuid() {
-		return toAccountUuid;
+	public byte[] getToAccountHash() {
+		return toAccountHash;
 	}
 
-	public void setToAccountUuid(String toAccountUuid) {
-		this.toAccountUuid = toAccountUuid;
+	public void setToAccountHash(byte[] toAccountHash) {
+		this.toAccountHash = toAccountHash;
 	}
 
 	public String getTransferUuid() {
@@ -94,9 +108,28 @@ public class ValidationPrepareTransferRequest implements Serializable {
 		this.transferUuid = transferUuid;
 	}
 
+	public String getLockUuid() {
+		return lockUuid;
+	}
+
+	public void setLockUuid(String lockUuid) {
+		this.lockUuid = lockUuid;
+	}
+
+	/**
+	 * Owner of the account locks of this transfer: the lock uuid if set, the transfer uuid otherwise
+	 */
+	public String getLockOwner() {
+		return lockUuid == null ? transferUuid : lockUuid;
+	}
+
 	@Override
 	public String toString() {
-		return "ValidationPrepareTransferRequest [fromAccountUuid=" + fromAccountUuid + ", toAccountUuid=" + toAccountUuid + ", transferUuid=" + transferUuid + ", serverUuid=" + serverUuid + ", requestUuid=" + requestUuid + "]";
+		return "ValidationPrepareTransferRequest [fromAccountHash=" + toString(fromAccountHash) + ", toAccountHash=" + toString(toAccountHash) + ", transferUuid=" + transferUuid + ", lockUuid=" + lockUuid + ", serverUuid=" + serverUuid + ", requestUuid=" + requestUuid + "]";
+	}
+
+	private static String toString(byte[] hash) {
+		return hash == null ? null : Base58.encode(hash);
 	}
 
 	@Override
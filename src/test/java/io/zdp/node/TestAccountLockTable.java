@@ -0,0 +1,263 @@
+package io.zdp.node;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.zdp.node.service.validation.AccountLockTable;
+import io.zdp.node.service.validation.AccountLockTable.Lease;
+import junit.framework.TestCase;
+
+public class TestAccountLockTable extends TestCase {
+
+	@Test
+	public void testLocksBothOrNone() {
+
+		AccountLockTable table = table(5000);
+
+		assertNotNull(table.tryLock(account(1), account(2), "tx1"));
+
+		// 'to' is taken, 'from' must not stay locked
+		assertNull(table.tryLock(account(3), account(2), "tx2"));
+		assertFalse(table.isLocked(account(3)));
+
+		assertNotNull(table.tryLock(account(3), account(4), "tx3"));
+
+		assertEquals(4, table.size());
+
+	}
+
+	@Test
+	public void testReleasesOnlyOwnLocks() {
+
+		AccountLockTable table = table(5000);
+
+		Lease lease = table.tryLock(account(1), account(2), "tx1");
+
+		assertEquals("tx1", lease.getOwner());
+
+		assertEquals(0, table.release(account(1), account(2), "tx2"));
+		assertTrue(table.isLocked(account(1)));
+		assertTrue(table.isLocked(account(2)));
+
+		assertEquals(2, table.release(account(1), account(2), "tx1"));
+		assertFalse(table.isLocked(account(1)));
+		assertFalse(table.isLocked(account(2)));
+
+	}
+
+	@Test
+	public void testRepeatedPrepareRenewsLease() {
+
+		AccountLockTable table = table(5000);
+
+		Lease first = table.tryLock(account(1), account(2), "tx1");
+		Lease second = table.tryLock(account(1), account(2), "tx1");
+
+		assertNotNull(second);
+		assertTrue(second.getToken() > first.getToken());
+		assertEquals(2, table.size());
+
+	}
+
+	@Test
+	public void testSharedOwnerKeepsLockOnConflict() {
+
+		AccountLockTable table = table(5000);
+
+		// Transfers of a group share the lock of their hot account
+		assertNotNull(table.tryLock(account(1), account(2), "group", "g1"));
+		assertNotNull(table.tryLock(account(1), account(3), "group", "g2"));
+
+		assertNotNull(table.tryLock(account(4), account(5), "tx1"));
+
+		// Counterparty locked by another transfer, the group keeps the hot account
+		assertNull(table.tryLock(account(1), account(4), "group", "g3"));
+		assertTrue(table.isLocked(account(1)));
+		assertNull(table.tryLock(account(1), account(6), "tx2"));
+
+		assertEquals(3, table.release(account(1), account(2), "group", "g1") + table.release(account(1), account(3), "group", "g2"));
+
+	}
+
+	@Test
+	public void testGroupKeepsHotAccountUntilLastTransfer() {
+
+		AccountLockTable table = table(5000);
+
+		assertNotNull(table.tryLock(account(1), account(2), "group", "g1"));
+		assertNotNull(table.tryLock(account(1), account(3), "group", "g2"));
+		assertNotNull(table.tryLock(account(4), account(1), "group", "g3"));
+
+		// One transfer of the group rejected and rolled back while the others are still pending
+		assertEquals(1, table.release(account(1), account(3), "group", "g2"));
+		assertTrue(table.isLocked(account(1)));
+		assertFalse(table.isLocked(account(3)));
+
+		// Repeated rollback changes nothing
+		assertEquals(0, table.release(account(1), account(3), "group", "g2"));
+
+		assertNull(table.tryLock(account(1), account(5), "tx1"));
+
+		// First commit
+		assertEquals(1, table.release(account(1), account(2), "group", "g1"));
+		assertTrue(table.isLocked(account(1)));
+
+		// Last commit unlocks the hot account
+		assertEquals(2, table.release(account(4), account(1), "group", "g3"));
+		assertFalse(table.isLocked(account(1)));
+		assertEquals(0, table.size());
+
+		assertNotNull(table.tryLock(account(1), account(5), "tx1"));
+
+	}
+
+	@Test
+	public void testExpiredLeaseIsTakenOver() throws Exception {
+
+		AccountLockTable table = table(50);
+
+		assertNotNull(table.tryLock(account(1), account(2), "tx1"));
+
+		Thread.sleep(100);
+
+		assertFalse(table.isLocked(account(1)));
+		assertNotNull(table.tryLock(account(1), account(3), "tx2"));
+
+		// The stale owner can't release the new lock
+		assertEquals(1, table.release(account(1), account(2), "tx1"));
+		assertTrue(table.isLocked(account(1)));
+
+	}
+
+	@Test
+	public void testConcurrentLocking() throws Exception {
+
+		AccountLockTable table = table(5000);
+
+		int threads = 16;
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+		CountDownLatch start = new CountDownLatch(1);
+
+		AtomicInteger winners = new AtomicInteger();
+
+		for (int i = 0; i < threads; i++) {
+
+			final String tx = "tx" + i;
+
+			pool.execute(() -> {
+				try {
+					start.await();
+					// Every transfer overlaps with every other one
+					if (table.tryLock(account(1), account(100 + Integer.parseInt(tx.substring(2))), tx) != null) {
+						winners.incrementAndGet();
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+
+		}
+
+		start.countDown();
+		pool.shutdown();
+
+		assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+		assertEquals(1, winners.get());
+		assertEquals(threads - 1, table.getConflicts());
+		assertEquals(2, table.size());
+
+	}
+
+	@Test
+	public void testWaitsForRelease() throws Exception {
+
+		AccountLockTable table = table(5000, 1000, 4);
+
+		assertNotNull(table.tryLock(account(1), account(2), "tx1"));
+
+		CompletableFuture<Lease> waiting = CompletableFuture.supplyAsync(() -> table.lock(account(3), account(1), "tx2"));
+
+		Thread.sleep(50);
+
+		assertFalse(waiting.isDone());
+
+		table.release(account(1), account(2), "tx1");
+
+		Lease lease = waiting.get(1, TimeUnit.SECONDS);
+
+		assertEquals("tx2", lease.getOwner());
+		assertTrue(table.isLocked(account(3)));
+		assertEquals(1, table.getWaits());
+
+	}
+
+	@Test
+	public void testWaitTimesOut() {
+
+		AccountLockTable table = table(5000, 50, 4);
+
+		assertNotNull(table.tryLock(account(1), account(2), "tx1"));
+
+		long st = System.nanoTime();
+
+		assertNull(table.lock(account(1), account(3), "tx2"));
+
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - st) >= 50);
+		assertEquals(1, table.getWaitTimeouts());
+		assertFalse(table.isLocked(account(3)));
+
+	}
+
+	@Test
+	public void testWaitQueueIsBounded() throws Exception {
+
+		AccountLockTable table = table(5000, 2000, 1);
+
+		assertNotNull(table.tryLock(account(1), account(2), "tx1"));
+
+		CompletableFuture<Lease> waiting = CompletableFuture.supplyAsync(() -> table.lock(account(1), account(3), "tx2"));
+
+		Thread.sleep(50);
+
+		// Second waiter for the same account is turned away at once
+		assertNull(table.lock(account(1), account(4), "tx3"));
+		assertEquals(1, table.getWaitQueueFull());
+
+		table.release(account(1), account(2), "tx1");
+
+		assertNotNull(waiting.get(1, TimeUnit.SECONDS));
+
+	}
+
+	private static AccountLockTable table(long lease) {
+		return table(lease, 0, 0);
+	}
+
+	private static AccountLockTable table(long lease, long wait, int waitQueue) {
+		AccountLockTable table = new AccountLockTable();
+		ReflectionTestUtils.setField(table, "lease", lease);
+		ReflectionTestUtils.setField(table, "wait", wait);
+		ReflectionTestUtils.setField(table, "waitQueueSize", waitQueue);
+		return table;
+	}
+
+	private static byte[] account(int i) {
+		byte[] uuid = new byte[20];
+		uuid[16] = (byte) (i >>> 24);
+		uuid[17] = (byte) (i >>> 16);
+		uuid[18] = (byte) (i >>> 8);
+		uuid[19] = (byte) i;
+		return uuid;
+	}
+
+}
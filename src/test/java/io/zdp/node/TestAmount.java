@@ -0,0 +1,71 @@
+package io.zdp.node;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+import io.zdp.node.common.Amount;
+import junit.framework.TestCase;
+
+public class TestAmount extends TestCase {
+
+	@Test
+	public void testParseAndFormat() {
+
+		assertEquals(1000000000L, Amount.parse("10"));
+		assertEquals(10000L, Amount.parse("0.0001"));
+		assertEquals(50000000L, Amount.parse(".5"));
+		assertEquals(100000000L, Amount.parse("1.000000000"));
+
+		assertEquals("10", Amount.toString(1000000000L));
+		assertEquals("89.9999", Amount.toString(8999990000L));
+		assertEquals("0.00000001", Amount.toString(1));
+		assertEquals("-1.5", Amount.toString(-150000000L));
+
+		assertEquals(new BigDecimal("12.3456789"), new BigDecimal(Amount.toString(Amount.parse("12.3456789"))));
+
+	}
+
+	@Test
+	public void testInvalid() {
+
+		for (String value : new String[] { "", ".", "1.2.3", "abc", "-1", "1e5" }) {
+			try {
+				Amount.parse(value);
+				fail(value);
+			} catch (NumberFormatException e) {
+				// expected
+			}
+		}
+
+		for (String value : new String[] { "1.123456789", "92233720369" }) {
+			try {
+				Amount.parse(value);
+				fail(value);
+			} catch (ArithmeticException e) {
+				// expected
+			}
+		}
+
+	}
+
+	@Test
+	public void testOverflow() {
+
+		try {
+			Amount.add(Long.MAX_VALUE, 1);
+			fail();
+		} catch (ArithmeticException e) {
+			// expected
+		}
+
+		try {
+			Amount.subtract(Long.MIN_VALUE, 1);
+			fail();
+		} catch (ArithmeticException e) {
+			// expected
+		}
+
+	}
+
+}
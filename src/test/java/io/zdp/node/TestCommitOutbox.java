@@ -0,0 +1,350 @@
+package io.zdp.node;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import org.junit.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.zdp.api.model.v1.GetBalanceRequest;
+import io.zdp.api.model.v1.GetBalanceResponse;
+import io.zdp.model.network.NetworkNode;
+import io.zdp.node.network.validation.CommitOutbox;
+import io.zdp.node.network.validation.NetworkValidationTopologyService;
+import io.zdp.node.network.validation.NodeCircuitBreaker;
+import io.zdp.node.network.validation.NodeCircuitBreaker.State;
+import io.zdp.node.network.validation.ValidationTransport;
+import io.zdp.node.storage.transfer.dao.CommitOutboxDao;
+import io.zdp.node.web.api.client.model.GetBalancesRequest;
+import io.zdp.node.web.api.client.model.GetBalancesResponse;
+import io.zdp.node.web.api.validation.model.ValidationCommitRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchResponse;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferResponse;
+import junit.framework.TestCase;
+
+public class TestCommitOutbox extends TestCase {
+
+	@Test
+	public void testRedeliversUntilAccepted() throws Exception {
+
+		NetworkNode node = node("n1");
+		AtomicInteger calls = new AtomicInteger();
+
+		// refused, failed, then accepted
+		CommitTransport transport = new CommitTransport((n, req) -> {
+			switch (calls.incrementAndGet()) {
+			case 1:
+				return CompletableFuture.completedFuture(false);
+			case 2:
+				return failed(new IOException("connection reset"));
+			default:
+				return CompletableFuture.completedFuture(true);
+			}
+		});
+
+		MemoryOutboxDao dao = new MemoryOutboxDao();
+		CommitOutbox outbox = outbox(dao, transport, breaker(5), 256, 50, node);
+
+		try {
+
+			ValidationCommitRequest req = new ValidationCommitRequest();
+
+			outbox.add(req).get(5, TimeUnit.SECONDS);
+
+			assertEquals(3, calls.get());
+			assertEquals(0, outbox.getPendingCount());
+			assertTrue(dao.requests.isEmpty());
+
+		} finally {
+			outbox.close();
+		}
+
+	}
+
+	@Test
+	public void testGivesUpAfterMaxAttempts() throws Exception {
+
+		AtomicInteger calls = new AtomicInteger();
+
+		CommitTransport transport = new CommitTransport((n, req) -> {
+			calls.incrementAndGet();
+			return CompletableFuture.completedFuture(false);
+		});
+
+		MemoryOutboxDao dao = new MemoryOutboxDao();
+		CommitOutbox outbox = outbox(dao, transport, breaker(100), 256, 3, node("n1"));
+
+		try {
+
+			outbox.add(new ValidationCommitRequest()).get(5, TimeUnit.SECONDS);
+
+			assertEquals(3, calls.get());
+			assertEquals(0, outbox.getPendingCount());
+			assertTrue(dao.requests.isEmpty());
+
+			// kept aside, not deleted
+			assertEquals(1, outbox.getDeadLetterCount());
+
+		} finally {
+			outbox.close();
+		}
+
+	}
+
+	@Test
+	public void testDownNodeDoesNotHoldUpCommit() throws Exception {
+
+		NetworkNode up = node("up");
+		NetworkNode down = node("down");
+
+		CommitTransport transport = new CommitTransport((n, req) -> n == up ? CompletableFuture.completedFuture(true) : failed(new IOException("refused")));
+
+		NodeCircuitBreaker breaker = breaker(1);
+
+		MemoryOutboxDao dao = new MemoryOutboxDao();
+		CommitOutbox outbox = outbox(dao, transport, breaker, 256, 50, up, down);
+
+		try {
+
+			outbox.add(new ValidationCommitRequest()).get(5, TimeUnit.SECONDS);
+
+			assertEquals(State.OPEN, breaker.getState(down));
+
+			// still kept for the node that is down
+			assertEquals(1, outbox.getPendingCount());
+			assertEquals(1, dao.requests.size());
+
+			assertEquals(1, transport.sent.stream().filter(s -> s.startsWith("up ")).count());
+
+		} finally {
+			outbox.close();
+			breaker.close();
+		}
+
+	}
+
+	@Test
+	public void testOldestFirst() throws Exception {
+
+		CommitTransport transport = new CommitTransport((n, req) -> CompletableFuture.completedFuture(true));
+
+		// left over from the last run
+		MemoryOutboxDao dao = new MemoryOutboxDao();
+
+		List<String> expected = new ArrayList<>();
+
+		for (int i = 0; i < 10; i++) {
+			ValidationCommitRequest req = new ValidationCommitRequest();
+			dao.add(req);
+			expected.add("n1 " + req.getRequestUuid());
+		}
+
+		// one commit per round
+		CommitOutbox outbox = outbox(dao, transport, breaker(5), 1, 50, node("n1"));
+
+		try {
+
+			List<CompletableFuture<Void>> added = new ArrayList<>();
+
+			for (int i = 0; i < 10; i++) {
+				ValidationCommitRequest req = new ValidationCommitRequest();
+				added.add(outbox.add(req));
+				expected.add("n1 " + req.getRequestUuid());
+			}
+
+			CompletableFuture.allOf(added.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+			assertEquals(expected, transport.sent);
+
+		} finally {
+			outbox.close();
+		}
+
+	}
+
+	@Test
+	public void testDeliveredEvenIfNotStored() throws Exception {
+
+		CommitTransport transport = new CommitTransport((n, req) -> CompletableFuture.completedFuture(true));
+
+		MemoryOutboxDao dao = new MemoryOutboxDao() {
+			@Override
+			public void add(ValidationCommitRequest req) {
+				throw new DataAccessResourceFailureException("disk full", null);
+			}
+		};
+
+		CommitOutbox outbox = outbox(dao, transport, breaker(5), 256, 50, node("n1"));
+
+		try {
+
+			ValidationCommitRequest req = new ValidationCommitRequest();
+
+			try {
+				outbox.add(req).get(5, TimeUnit.SECONDS);
+				fail();
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof DataAccessResourceFailureException);
+			}
+
+			assertEquals(Collections.singletonList("n1 " + req.getRequestUuid()), transport.sent);
+
+		} finally {
+			outbox.close();
+		}
+
+	}
+
+	private static CommitOutbox outbox(CommitOutboxDao dao, ValidationTransport transport, NodeCircuitBreaker breaker, int batchSize, int maxAttempts, NetworkNode... nodes) {
+
+		NetworkValidationTopologyService topology = new NetworkValidationTopologyService() {
+			@Override
+			public List<NetworkNode> getNodes() {
+				return Arrays.asList(nodes);
+			}
+		};
+
+		CommitOutbox outbox = new CommitOutbox();
+		ReflectionTestUtils.setField(outbox, "dao", dao);
+		ReflectionTestUtils.setField(outbox, "transport", transport);
+		ReflectionTestUtils.setField(outbox, "networkNodeService", topology);
+		ReflectionTestUtils.setField(outbox, "circuitBreaker", breaker);
+		ReflectionTestUtils.setField(outbox, "interval", 2L);
+		ReflectionTestUtils.setField(outbox, "batchSize", batchSize);
+		ReflectionTestUtils.setField(outbox, "minBackoff", 1L);
+		ReflectionTestUtils.setField(outbox, "maxBackoff", 4L);
+		ReflectionTestUtils.setField(outbox, "maxAttempts", maxAttempts);
+		ReflectionTestUtils.setField(outbox, "timeout", 5000L);
+		outbox.init();
+		return outbox;
+
+	}
+
+	private static NodeCircuitBreaker breaker(int failures) {
+		NodeCircuitBreaker breaker = new NodeCircuitBreaker();
+		ReflectionTestUtils.setField(breaker, "failureThreshold", failures);
+		ReflectionTestUtils.setField(breaker, "openPeriod", 60000L);
+		ReflectionTestUtils.setField(breaker, "timeout", 5000L);
+		breaker.init();
+		return breaker;
+	}
+
+	private static NetworkNode node(String uuid) {
+		NetworkNode node = new NetworkNode();
+		node.setUuid(uuid);
+		return node;
+	}
+
+	private static <T> CompletableFuture<T> failed(Throwable e) {
+		CompletableFuture<T> f = new CompletableFuture<>();
+		f.completeExceptionally(e);
+		return f;
+	}
+
+	private static class MemoryOutboxDao implements CommitOutboxDao {
+
+		private final Map<String, ValidationCommitRequest> requests = new ConcurrentHashMap<>();
+
+		private final List<ValidationCommitRequest> added = new CopyOnWriteArrayList<>();
+
+		private final Map<String, ValidationCommitRequest> dead = new ConcurrentHashMap<>();
+
+		@Override
+		public void add(ValidationCommitRequest req) {
+			requests.put(req.getRequestUuid(), req);
+			added.add(req);
+		}
+
+		@Override
+		public void remove(String requestUuid) {
+			requests.remove(requestUuid);
+		}
+
+		@Override
+		public void deadLetter(String requestUuid) {
+			ValidationCommitRequest req = requests.remove(requestUuid);
+			if (req != null) {
+				dead.put(requestUuid, req);
+			}
+		}
+
+		@Override
+		public int countDeadLetters() {
+			return dead.size();
+		}
+
+		@Override
+		public List<ValidationCommitRequest> findAll() {
+			List<ValidationCommitRequest> all = new ArrayList<>(added);
+			all.removeIf(r -> false == requests.containsKey(r.getRequestUuid()));
+			return all;
+		}
+
+	}
+
+	/**
+	 * Answers commits only, records them as "node request-uuid" in the order sent
+	 */
+	private static class CommitTransport implements ValidationTransport {
+
+		private final BiFunction<NetworkNode, ValidationCommitRequest, CompletableFuture<Boolean>> commit;
+
+		private final List<String> sent = new CopyOnWriteArrayList<>();
+
+		private CommitTransport(BiFunction<NetworkNode, ValidationCommitRequest, CompletableFuture<Boolean>> commit) {
+			this.commit = commit;
+		}
+
+		@Override
+		public CompletableFuture<Boolean> commit(NetworkNode node, ValidationCommitRequest request) {
+			sent.add(node.getUuid() + " " + request.getRequestUuid());
+			return commit.apply(node, request);
+		}
+
+		@Override
+		public CompletableFuture<ValidationPrepareTransferResponse> prepare(NetworkNode node, ValidationPrepareTransferRequest request) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CompletableFuture<ValidationPrepareBatchResponse> prepare(NetworkNode node, ValidationPrepareBatchRequest request) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CompletableFuture<Boolean> rollback(NetworkNode node, ValidationPrepareTransferRequest request) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CompletableFuture<Boolean> rollback(NetworkNode node, ValidationPrepareBatchRequest request) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CompletableFuture<GetBalanceResponse> getBalance(NetworkNode node, GetBalanceRequest request) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CompletableFuture<GetBalancesResponse> getBalances(NetworkNode node, GetBalancesRequest request) {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+}
@@ -0,0 +1,88 @@
+package io.zdp.node;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import io.zdp.node.error.OverloadedException;
+import io.zdp.node.service.ConcurrencyLimiter;
+import io.zdp.node.service.ConcurrencyLimiter.Permit;
+import junit.framework.TestCase;
+
+public class TestConcurrencyLimiter extends TestCase {
+
+	@Test
+	public void testRejectsOverLimitWithoutQueue() {
+
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 2, 1, 10, 0, 10, 2.0);
+
+		Permit p1 = limiter.acquire();
+		limiter.acquire();
+
+		try {
+			limiter.acquire();
+			fail();
+		} catch (OverloadedException e) {
+			assertTrue(e.getRetryAfter() >= 1);
+		}
+
+		assertEquals(1, limiter.getRejected());
+
+		p1.release();
+		p1.release();
+
+		assertEquals(1, limiter.getInFlight());
+
+		limiter.acquire();
+
+	}
+
+	@Test
+	public void testQueuedRequestGetsFreedPermit() throws Exception {
+
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 1, 1, 1, 1, 5000, 2.0);
+
+		Permit p1 = limiter.acquire();
+
+		Thread releaser = new Thread(() -> {
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				return;
+			}
+			p1.release();
+		});
+
+		releaser.start();
+
+		limiter.acquire();
+
+		assertEquals(1, limiter.getInFlight());
+		assertEquals(0, limiter.getRejected());
+
+	}
+
+	@Test
+	public void testLimitStaysWithinBounds() {
+
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 4, 2, 8, 0, 0, 2.0);
+
+		for (int round = 0; round < 1000; round++) {
+
+			List<Permit> permits = new ArrayList<>();
+
+			for (int i = 0; i < limiter.getLimit(); i++) {
+				permits.add(limiter.acquire());
+			}
+
+			permits.forEach(Permit::release);
+
+		}
+
+		assertTrue(limiter.getLimit() >= 2);
+		assertTrue(limiter.getLimit() <= 8);
+
+	}
+
+}
@@ -0,0 +1,183 @@
+package io.zdp.node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.zdp.node.error.OverloadedException;
+import io.zdp.node.service.HotAccountSequencer;
+import junit.framework.TestCase;
+
+public class TestHotAccountSequencer extends TestCase {
+
+	@Test
+	public void testFoldsQueuedTransfersInOrder() throws Exception {
+
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch firstGroup = new CountDownLatch(1);
+
+		List<List<String>> groups = Collections.synchronizedList(new ArrayList<>());
+
+		HotAccountSequencer<String, String> sequencer = new HotAccountSequencer<>(3, 100, pool, t -> t, (account, group) -> {
+			started.countDown();
+			await(firstGroup);
+			groups.add(group);
+			List<String> results = new ArrayList<>();
+			group.forEach(t -> results.add(account + ":" + t));
+			return results;
+		});
+
+		List<CompletableFuture<String>> results = new ArrayList<>();
+
+		// First one starts a group on its own, the rest queue up meanwhile
+		results.add(sequencer.submit("hot", "a"));
+
+		assertTrue(started.await(1, TimeUnit.SECONDS));
+
+		for (String t : new String[] { "b", "c", "d", "e" }) {
+			results.add(sequencer.submit("hot", t));
+		}
+
+		firstGroup.countDown();
+
+		for (int i = 0; i < results.size(); i++) {
+			assertEquals("hot:" + "abcde".charAt(i), results.get(i).get(1, TimeUnit.SECONDS));
+		}
+
+		assertEquals(3, groups.size());
+		assertEquals(Collections.singletonList("a"), groups.get(0));
+		assertEquals(3, groups.get(1).size());
+		assertEquals(Collections.singletonList("e"), groups.get(2));
+		assertEquals(5, sequencer.getTransfers());
+
+		pool.shutdown();
+
+	}
+
+	@Test
+	public void testRepeatedCounterpartyStartsNextGroup() throws Exception {
+
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch firstGroup = new CountDownLatch(1);
+
+		List<List<String>> groups = Collections.synchronizedList(new ArrayList<>());
+
+		// Counterparty is the first letter
+		HotAccountSequencer<String, String> sequencer = new HotAccountSequencer<>(10, 100, pool, t -> t.charAt(0), (account, group) -> {
+			started.countDown();
+			await(firstGroup);
+			groups.add(group);
+			return group;
+		});
+
+		List<CompletableFuture<String>> results = new ArrayList<>();
+
+		results.add(sequencer.submit("hot", "x0"));
+
+		assertTrue(started.await(1, TimeUnit.SECONDS));
+
+		for (String t : new String[] { "a1", "b1", "a2", "c1" }) {
+			results.add(sequencer.submit("hot", t));
+		}
+
+		firstGroup.countDown();
+
+		CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).get(1, TimeUnit.SECONDS);
+
+		assertEquals(3, groups.size());
+		assertEquals(2, groups.get(1).size());
+		assertEquals("a2", groups.get(2).get(0));
+
+		pool.shutdown();
+
+	}
+
+	@Test
+	public void testQueueIsBounded() throws Exception {
+
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		HotAccountSequencer<String, String> sequencer = new HotAccountSequencer<>(10, 2, pool, t -> t, (account, group) -> {
+			started.countDown();
+			await(release);
+			return group;
+		});
+
+		CompletableFuture<String> running = sequencer.submit("hot", "a");
+
+		// The first group took "a" off the queue
+		assertTrue(started.await(1, TimeUnit.SECONDS));
+
+		sequencer.submit("hot", "b");
+		sequencer.submit("hot", "c");
+
+		try {
+			sequencer.submit("hot", "d");
+			fail();
+		} catch (OverloadedException e) {
+			// expected
+		}
+
+		// Other accounts have their own queues
+		sequencer.submit("other", "d");
+
+		assertEquals(1, sequencer.getRejected());
+
+		release.countDown();
+
+		assertEquals("a", running.get(1, TimeUnit.SECONDS));
+
+		pool.shutdown();
+
+	}
+
+	@Test
+	public void testFailedGroupFailsItsTransfersOnly() throws Exception {
+
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+
+		HotAccountSequencer<String, String> sequencer = new HotAccountSequencer<>(10, 100, pool, t -> t, (account, group) -> {
+			if (group.contains("bad")) {
+				throw new IllegalStateException("bad group");
+			}
+			return group;
+		});
+
+		CompletableFuture<String> bad = sequencer.submit("hot", "bad");
+
+		try {
+			bad.get(1, TimeUnit.SECONDS);
+			fail();
+		} catch (Exception e) {
+			// expected
+		}
+
+		assertEquals("good", sequencer.submit("hot", "good").get(1, TimeUnit.SECONDS));
+
+		pool.shutdown();
+
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
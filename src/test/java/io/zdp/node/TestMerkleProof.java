@@ -0,0 +1,74 @@
+package io.zdp.node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import io.zdp.crypto.Hashing;
+import io.zdp.node.web.api.validation.model.MerkleProof;
+import junit.framework.TestCase;
+
+public class TestMerkleProof extends TestCase {
+
+	@Test
+	public void testEveryLeafLeadsToRoot() {
+
+		for (int count = 1; count <= 33; count++) {
+
+			List<byte[]> leaves = leaves(count);
+
+			MerkleProof.Tree tree = MerkleProof.build(leaves);
+
+			for (int i = 0; i < count; i++) {
+				assertTrue("count " + count + ", leaf " + i, Arrays.equals(tree.getRoot(), MerkleProof.rootOf(leaves.get(i), tree.getProofs().get(i))));
+			}
+
+		}
+
+	}
+
+	@Test
+	public void testWrongLeafOrProof() {
+
+		List<byte[]> leaves = leaves(7);
+
+		MerkleProof.Tree tree = MerkleProof.build(leaves);
+
+		// another leaf's proof
+		assertFalse(Arrays.equals(tree.getRoot(), MerkleProof.rootOf(leaves.get(0), tree.getProofs().get(1))));
+
+		// tampered sibling
+		byte[] proof = tree.getProofs().get(2).clone();
+		proof[proof.length - 1] ^= 1;
+		assertFalse(Arrays.equals(tree.getRoot(), MerkleProof.rootOf(leaves.get(2), proof)));
+
+		// truncated
+		assertNull(MerkleProof.rootOf(leaves.get(2), Arrays.copyOf(proof, proof.length - 20)));
+		assertNull(MerkleProof.rootOf(leaves.get(2), null));
+
+	}
+
+	@Test
+	public void testSingleLeafRootIsNotTheLeaf() {
+
+		List<byte[]> leaves = leaves(1);
+
+		assertFalse(Arrays.equals(leaves.get(0), MerkleProof.build(leaves).getRoot()));
+
+	}
+
+	private static List<byte[]> leaves(int count) {
+
+		List<byte[]> leaves = new ArrayList<>();
+
+		for (int i = 0; i < count; i++) {
+			leaves.add(Hashing.ripemd160(("request " + i).getBytes()));
+		}
+
+		return leaves;
+
+	}
+
+}
@@ -0,0 +1,200 @@
+package io.zdp.node;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.zdp.api.model.v1.GetBalanceRequest;
+import io.zdp.api.model.v1.GetBalanceResponse;
+import io.zdp.node.network.validation.ConsistencyLevel;
+import io.zdp.node.network.validation.NetworkBalanceCache;
+import io.zdp.node.network.validation.ValidationNetworkClient;
+import junit.framework.TestCase;
+
+public class TestNetworkBalanceCache extends TestCase {
+
+	@Test
+	public void testConcurrentLookupsShareFanOut() throws Exception {
+
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		BalanceClient client = new BalanceClient(5) {
+			@Override
+			protected void await() throws InterruptedException {
+				entered.countDown();
+				release.await();
+			}
+		};
+
+		// nothing cached, only lookups in flight are shared
+		NetworkBalanceCache cache = cache(client, 0);
+
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+
+		try {
+
+			List<Future<GetBalanceResponse>> lookups = new ArrayList<>();
+
+			lookups.add(pool.submit(() -> cache.getBalance(request("a1"), ConsistencyLevel.ALL, 0)));
+
+			assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+			for (int i = 0; i < 3; i++) {
+				lookups.add(pool.submit(() -> cache.getBalance(request("a1"), ConsistencyLevel.ALL, 0)));
+			}
+
+			// let them join the lookup in flight
+			Thread.sleep(200);
+
+			release.countDown();
+
+			for (Future<GetBalanceResponse> lookup : lookups) {
+				assertEquals(5, lookup.get(5, TimeUnit.SECONDS).getHeight());
+			}
+
+			assertEquals(1, client.calls.get());
+
+		} finally {
+			pool.shutdownNow();
+		}
+
+	}
+
+	@Test
+	public void testCachedPerConsistencyLevel() throws Exception {
+
+		BalanceClient client = new BalanceClient(5);
+		NetworkBalanceCache cache = cache(client, 60000);
+
+		GetBalanceResponse first = cache.getBalance(request("a1"), ConsistencyLevel.ALL, 3);
+
+		assertSame(first, cache.getBalance(request("a1"), ConsistencyLevel.ALL, 5));
+		assertEquals(1, client.calls.get());
+
+		// a QUORUM answer is not reused for ALL, nor the other way round
+		cache.getBalance(request("a1"), ConsistencyLevel.QUORUM, 3);
+		assertEquals(2, client.calls.get());
+
+		cache.getBalance(request("a2"), ConsistencyLevel.ALL, 3);
+		assertEquals(3, client.calls.get());
+
+	}
+
+	@Test
+	public void testLocalAccountMovedOn() throws Exception {
+
+		BalanceClient client = new BalanceClient(5);
+		NetworkBalanceCache cache = cache(client, 60000);
+
+		cache.getBalance(request("a1"), ConsistencyLevel.ALL, 3);
+
+		// this node committed a newer transfer since, the network view is stale
+		cache.getBalance(request("a1"), ConsistencyLevel.ALL, 6);
+		assertEquals(2, client.calls.get());
+
+	}
+
+	@Test
+	public void testExpires() throws Exception {
+
+		BalanceClient client = new BalanceClient(5);
+		NetworkBalanceCache cache = cache(client, 20);
+
+		cache.getBalance(request("a1"), ConsistencyLevel.ALL, 0);
+
+		Thread.sleep(100);
+
+		cache.getBalance(request("a1"), ConsistencyLevel.ALL, 0);
+		assertEquals(2, client.calls.get());
+
+	}
+
+	@Test
+	public void testFailureNotCached() throws Exception {
+
+		AtomicInteger failures = new AtomicInteger(1);
+
+		BalanceClient client = new BalanceClient(5) {
+			@Override
+			protected void await() {
+				if (failures.getAndDecrement() > 0) {
+					throw new IllegalStateException("no quorum");
+				}
+			}
+		};
+
+		NetworkBalanceCache cache = cache(client, 60000);
+
+		try {
+			cache.getBalance(request("a1"), ConsistencyLevel.ALL, 0);
+			fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+
+		assertEquals(5, cache.getBalance(request("a1"), ConsistencyLevel.ALL, 0).getHeight());
+		assertEquals(2, client.calls.get());
+
+	}
+
+	private static NetworkBalanceCache cache(ValidationNetworkClient client, long ttl) {
+		NetworkBalanceCache cache = new NetworkBalanceCache();
+		ReflectionTestUtils.setField(cache, "validationNetworkClient", client);
+		ReflectionTestUtils.setField(cache, "ttl", ttl);
+		ReflectionTestUtils.setField(cache, "maxSize", 1000L);
+		cache.init();
+		return cache;
+	}
+
+	private static GetBalanceRequest request(String accountUuid) {
+		GetBalanceRequest req = new GetBalanceRequest();
+		req.setAccountUuid(accountUuid);
+		return req;
+	}
+
+	/**
+	 * Network view of every account at the given height
+	 */
+	private static class BalanceClient extends ValidationNetworkClient {
+
+		private final AtomicInteger calls = new AtomicInteger();
+
+		private final long height;
+
+		private BalanceClient(long height) {
+			this.height = height;
+		}
+
+		protected void await() throws InterruptedException {
+		}
+
+		@Override
+		public GetBalanceResponse getBalance(GetBalanceRequest request, GetBalanceResponse resp, ConsistencyLevel level, long localHeight) {
+
+			calls.incrementAndGet();
+
+			try {
+				await();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+
+			resp.setAmount("1");
+			resp.setHeight(height);
+
+			return resp;
+
+		}
+
+	}
+
+}
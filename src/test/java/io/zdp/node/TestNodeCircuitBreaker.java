@@ -0,0 +1,148 @@
+package io.zdp.node;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.zdp.model.network.NetworkNode;
+import io.zdp.node.network.validation.AsyncHttpTransport;
+import io.zdp.node.network.validation.NodeCircuitBreaker;
+import io.zdp.node.network.validation.NodeCircuitBreaker.State;
+import io.zdp.node.web.api.validation.model.ValidationPingResponse;
+import junit.framework.TestCase;
+
+public class TestNodeCircuitBreaker extends TestCase {
+
+	@Test
+	public void testOpensAfterConsecutiveFailures() {
+
+		NodeCircuitBreaker breaker = breaker(new PingTransport(), 60000);
+		NetworkNode node = node("n1");
+
+		try {
+
+			breaker.onFailure(node);
+			breaker.onFailure(node);
+
+			// a success in between resets the count
+			breaker.onSuccess(node);
+			breaker.onFailure(node);
+			breaker.onFailure(node);
+
+			assertEquals(State.CLOSED, breaker.getState(node));
+			assertTrue(breaker.allowRequest(node));
+
+			breaker.onFailure(node);
+
+			assertEquals(State.OPEN, breaker.getState(node));
+			assertFalse(breaker.allowRequest(node));
+
+			// other nodes are not affected
+			assertTrue(breaker.allowRequest(node("n2")));
+
+		} finally {
+			breaker.close();
+		}
+
+	}
+
+	@Test
+	public void testProbeClosesCircuit() {
+
+		PingTransport transport = new PingTransport();
+		NodeCircuitBreaker breaker = breaker(transport, 0);
+		NetworkNode node = node("n1");
+
+		try {
+
+			open(breaker, node);
+
+			// open period over, the node gets a single probe and stays skipped until it answers
+			assertFalse(breaker.allowRequest(node));
+			assertEquals(State.HALF_OPEN, breaker.getState(node));
+			assertFalse(breaker.allowRequest(node));
+			assertEquals(1, transport.pings.get());
+
+			transport.ping.complete(new ValidationPingResponse());
+
+			assertEquals(State.CLOSED, breaker.getState(node));
+			assertTrue(breaker.allowRequest(node));
+
+			// failures are counted from zero again
+			breaker.onFailure(node);
+			assertEquals(State.CLOSED, breaker.getState(node));
+
+		} finally {
+			breaker.close();
+		}
+
+	}
+
+	@Test
+	public void testFailedProbeOpensAgain() {
+
+		PingTransport transport = new PingTransport();
+		NodeCircuitBreaker breaker = breaker(transport, 0);
+		NetworkNode node = node("n1");
+
+		try {
+
+			open(breaker, node);
+
+			assertFalse(breaker.allowRequest(node));
+
+			transport.ping.completeExceptionally(new IllegalStateException("down"));
+
+			assertEquals(State.OPEN, breaker.getState(node));
+
+			// probed again once the next open period is over
+			assertFalse(breaker.allowRequest(node));
+			assertEquals(2, transport.pings.get());
+
+		} finally {
+			breaker.close();
+		}
+
+	}
+
+	private static void open(NodeCircuitBreaker breaker, NetworkNode node) {
+		for (int i = 0; i < 3; i++) {
+			breaker.onFailure(node);
+		}
+		assertEquals(State.OPEN, breaker.getState(node));
+	}
+
+	private static NodeCircuitBreaker breaker(AsyncHttpTransport transport, long openPeriod) {
+		NodeCircuitBreaker breaker = new NodeCircuitBreaker();
+		ReflectionTestUtils.setField(breaker, "httpTransport", transport);
+		ReflectionTestUtils.setField(breaker, "failureThreshold", 3);
+		ReflectionTestUtils.setField(breaker, "openPeriod", openPeriod);
+		ReflectionTestUtils.setField(breaker, "timeout", 5000L);
+		breaker.init();
+		return breaker;
+	}
+
+	private static NetworkNode node(String uuid) {
+		NetworkNode node = new NetworkNode();
+		node.setUuid(uuid);
+		return node;
+	}
+
+	private static class PingTransport extends AsyncHttpTransport {
+
+		private final AtomicInteger pings = new AtomicInteger();
+
+		private volatile CompletableFuture<ValidationPingResponse> ping;
+
+		@Override
+		public CompletableFuture<ValidationPingResponse> ping(NetworkNode node) {
+			pings.incrementAndGet();
+			ping = new CompletableFuture<>();
+			return ping;
+		}
+
+	}
+
+}
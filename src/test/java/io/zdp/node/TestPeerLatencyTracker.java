@@ -0,0 +1,124 @@
+package io.zdp.node;
+
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.zdp.model.network.NetworkNode;
+import io.zdp.node.network.validation.PeerLatencyTracker;
+import junit.framework.TestCase;
+
+public class TestPeerLatencyTracker extends TestCase {
+
+	@Test
+	public void testUnknownNodeGetsTimeout() {
+
+		PeerLatencyTracker tracker = tracker();
+		NetworkNode node = node("n1");
+
+		assertEquals(5000, tracker.getDeadline(node));
+		assertEquals(-1, tracker.getHedgeDelay(node));
+		assertEquals(0.0, tracker.getExpectedLatency(node));
+
+		// not enough samples yet
+		for (int i = 0; i < 19; i++) {
+			tracker.record(node, 10);
+		}
+
+		assertEquals(5000, tracker.getDeadline(node));
+		assertEquals(-1, tracker.getHedgeDelay(node));
+
+	}
+
+	@Test
+	public void testDeadlineFromP99() {
+
+		PeerLatencyTracker tracker = tracker();
+		NetworkNode node = node("n1");
+
+		for (int i = 1; i <= 96; i++) {
+			tracker.record(node, i);
+		}
+
+		assertEquals(48, tracker.getLatency(node).getP50());
+		assertEquals(96, tracker.getLatency(node).getP99());
+
+		assertEquals(96, tracker.getHedgeDelay(node));
+		assertEquals(288, tracker.getDeadline(node));
+
+		// percentiles are refreshed every 16 samples only
+		tracker.record(node, 1000);
+		assertEquals(96, tracker.getLatency(node).getP99());
+
+	}
+
+	@Test
+	public void testDeadlineBounds() {
+
+		PeerLatencyTracker tracker = tracker();
+
+		NetworkNode fast = node("fast");
+		NetworkNode slow = node("slow");
+
+		for (int i = 0; i < 32; i++) {
+			tracker.record(fast, 0);
+			tracker.record(slow, 4000);
+		}
+
+		assertEquals(50, tracker.getDeadline(fast));
+		assertEquals(5000, tracker.getDeadline(slow));
+
+		// hedge delay never 0, the backup would go out at once
+		assertEquals(1, tracker.getHedgeDelay(fast));
+
+	}
+
+	@Test
+	public void testTimeoutWidensDeadline() {
+
+		PeerLatencyTracker tracker = tracker();
+		NetworkNode node = node("n1");
+
+		for (int i = 0; i < 32; i++) {
+			tracker.record(node, 20);
+		}
+
+		assertEquals(60, tracker.getDeadline(node));
+
+		for (int i = 0; i < 16; i++) {
+			tracker.recordTimeout(node, 60);
+		}
+
+		assertEquals(180, tracker.getDeadline(node));
+		assertTrue(tracker.getExpectedLatency(node) > 20);
+
+	}
+
+	@Test
+	public void testNodesTrackedApart() {
+
+		PeerLatencyTracker tracker = tracker();
+
+		tracker.record(node("n1"), 100);
+		tracker.record(node("n2"), 10);
+
+		assertEquals(100.0, tracker.getExpectedLatency(node("n1")));
+		assertEquals(10.0, tracker.getExpectedLatency(node("n2")));
+		assertEquals(1, tracker.getLatency(node("n1")).getSamples());
+
+	}
+
+	private static PeerLatencyTracker tracker() {
+		PeerLatencyTracker tracker = new PeerLatencyTracker();
+		ReflectionTestUtils.setField(tracker, "timeout", 5000L);
+		ReflectionTestUtils.setField(tracker, "deadlineFactor", 3.0);
+		ReflectionTestUtils.setField(tracker, "minDeadline", 50L);
+		return tracker;
+	}
+
+	private static NetworkNode node(String uuid) {
+		NetworkNode node = new NetworkNode();
+		node.setUuid(uuid);
+		return node;
+	}
+
+}
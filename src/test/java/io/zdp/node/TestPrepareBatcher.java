@@ -0,0 +1,260 @@
+package io.zdp.node;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.zdp.api.model.v1.GetBalanceRequest;
+import io.zdp.api.model.v1.GetBalanceResponse;
+import io.zdp.model.network.NetworkNode;
+import io.zdp.node.network.validation.PrepareBatcher;
+import io.zdp.node.network.validation.ValidationTransport;
+import io.zdp.node.service.NodeConfigurationService;
+import io.zdp.node.web.api.client.model.GetBalancesRequest;
+import io.zdp.node.web.api.client.model.GetBalancesResponse;
+import io.zdp.node.web.api.validation.model.ValidationCommitRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchResponse;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferResponse;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferResponse.Status;
+import junit.framework.TestCase;
+
+public class TestPrepareBatcher extends TestCase {
+
+	private static final String LOCKED = "tx-locked";
+
+	@Test
+	public void testOneBatchPerNode() throws Exception {
+
+		BatchTransport transport = new BatchTransport(TestPrepareBatcher::vote);
+		PrepareBatcher batcher = batcher(transport, 256);
+
+		NetworkNode n1 = node("n1");
+		NetworkNode n2 = node("n2");
+
+		try {
+
+			ValidationPrepareTransferRequest tx1 = request("tx1");
+			ValidationPrepareTransferRequest tx2 = request(LOCKED);
+
+			CompletableFuture<ValidationPrepareTransferResponse> v1 = batcher.submit(n1, tx1);
+			CompletableFuture<ValidationPrepareTransferResponse> v2 = batcher.submit(n1, tx2);
+			batcher.submit(n2, tx1);
+			batcher.submit(n2, tx2);
+
+			// held until the window is over
+			assertTrue(transport.batches.isEmpty());
+
+			batcher.flush();
+
+			assertEquals(2, transport.batches.size());
+			assertEquals(2, transport.batches.get(0).getRequests().size());
+
+			// both nodes get the very same requests, signed once
+			assertSame(transport.batches.get(0), transport.batches.get(1));
+
+			// votes are handed back by position
+			assertEquals(Status.APPROVED, v1.get(5, TimeUnit.SECONDS).getStatus());
+			assertEquals(Status.ACCOUNT_LOCKED, v2.get(5, TimeUnit.SECONDS).getStatus());
+
+		} finally {
+			batcher.close();
+		}
+
+	}
+
+	@Test
+	public void testFullBatchCountedPerNode() throws Exception {
+
+		BatchTransport transport = new BatchTransport(TestPrepareBatcher::vote);
+		PrepareBatcher batcher = batcher(transport, 2);
+
+		NetworkNode n1 = node("n1");
+		NetworkNode n2 = node("n2");
+
+		try {
+
+			// one request for each of two nodes doesn't fill a batch of two
+			batcher.submit(n1, request("tx1"));
+			batcher.submit(n2, request("tx1"));
+
+			assertTrue(transport.batches.isEmpty());
+
+			// the second request for n1 does, it goes out at once and alone
+			CompletableFuture<ValidationPrepareTransferResponse> vote = batcher.submit(n1, request("tx2"));
+
+			assertEquals(1, transport.batches.size());
+			assertEquals("n1", transport.nodes.get(0));
+			assertEquals(Status.APPROVED, vote.get(5, TimeUnit.SECONDS).getStatus());
+
+			batcher.flush();
+
+			assertEquals(2, transport.batches.size());
+			assertEquals("n2", transport.nodes.get(1));
+			assertEquals(1, transport.batches.get(1).getRequests().size());
+
+		} finally {
+			batcher.close();
+		}
+
+	}
+
+	@Test
+	public void testFailures() throws Exception {
+
+		// a node that answers one vote short and one that fails
+		BatchTransport transport = new BatchTransport((node, batch) -> {
+
+			if (node.getUuid().equals("down")) {
+				CompletableFuture<ValidationPrepareBatchResponse> f = new CompletableFuture<>();
+				f.completeExceptionally(new IOException("refused"));
+				return f;
+			}
+
+			ValidationPrepareBatchResponse resp = new ValidationPrepareBatchResponse();
+			resp.getResponses().add(new ValidationPrepareTransferResponse(Status.APPROVED));
+			return CompletableFuture.completedFuture(resp);
+
+		});
+
+		PrepareBatcher batcher = batcher(transport, 256);
+
+		try {
+
+			CompletableFuture<ValidationPrepareTransferResponse> first = batcher.submit(node("short"), request("tx1"));
+			CompletableFuture<ValidationPrepareTransferResponse> second = batcher.submit(node("short"), request("tx2"));
+			CompletableFuture<ValidationPrepareTransferResponse> down = batcher.submit(node("down"), request("tx1"));
+
+			batcher.flush();
+
+			assertEquals(Status.APPROVED, first.get(5, TimeUnit.SECONDS).getStatus());
+
+			try {
+				second.get(5, TimeUnit.SECONDS);
+				fail();
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof IllegalStateException);
+			}
+
+			try {
+				down.get(5, TimeUnit.SECONDS);
+				fail();
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof IOException);
+			}
+
+		} finally {
+			batcher.close();
+		}
+
+	}
+
+	/**
+	 * Approves every request but those of the {@link #LOCKED} transfer
+	 */
+	private static CompletableFuture<ValidationPrepareBatchResponse> vote(NetworkNode node, ValidationPrepareBatchRequest batch) {
+
+		ValidationPrepareBatchResponse resp = new ValidationPrepareBatchResponse();
+
+		for (ValidationPrepareTransferRequest req : batch.getRequests()) {
+			resp.getResponses().add(new ValidationPrepareTransferResponse(LOCKED.equals(req.getTransferUuid()) ? Status.ACCOUNT_LOCKED : Status.APPROVED));
+		}
+
+		return CompletableFuture.completedFuture(resp);
+
+	}
+
+	private static PrepareBatcher batcher(ValidationTransport transport, int maxBatchSize) {
+
+		NodeConfigurationService nodeConfig = new NodeConfigurationService();
+		ReflectionTestUtils.setField(nodeConfig, "node", node("local"));
+
+		PrepareBatcher batcher = new PrepareBatcher();
+		ReflectionTestUtils.setField(batcher, "transport", transport);
+		ReflectionTestUtils.setField(batcher, "nodeConfig", nodeConfig);
+
+		// flushed by the tests
+		ReflectionTestUtils.setField(batcher, "window", 60000L);
+		ReflectionTestUtils.setField(batcher, "maxBatchSize", maxBatchSize);
+
+		batcher.init();
+
+		return batcher;
+
+	}
+
+	private static ValidationPrepareTransferRequest request(String transferUuid) {
+		ValidationPrepareTransferRequest req = new ValidationPrepareTransferRequest();
+		req.setTransferUuid(transferUuid);
+		return req;
+	}
+
+	private static NetworkNode node(String uuid) {
+		NetworkNode node = new NetworkNode();
+		node.setUuid(uuid);
+		return node;
+	}
+
+	/**
+	 * Answers batch prepares only, records the batches and their nodes in the order sent
+	 */
+	private static class BatchTransport implements ValidationTransport {
+
+		private final BiFunction<NetworkNode, ValidationPrepareBatchRequest, CompletableFuture<ValidationPrepareBatchResponse>> prepare;
+
+		private final List<ValidationPrepareBatchRequest> batches = new CopyOnWriteArrayList<>();
+
+		private final List<String> nodes = new CopyOnWriteArrayList<>();
+
+		private BatchTransport(BiFunction<NetworkNode, ValidationPrepareBatchRequest, CompletableFuture<ValidationPrepareBatchResponse>> prepare) {
+			this.prepare = prepare;
+		}
+
+		@Override
+		public CompletableFuture<ValidationPrepareBatchResponse> prepare(NetworkNode node, ValidationPrepareBatchRequest request) {
+			batches.add(request);
+			nodes.add(node.getUuid());
+			return prepare.apply(node, request);
+		}
+
+		@Override
+		public CompletableFuture<ValidationPrepareTransferResponse> prepare(NetworkNode node, ValidationPrepareTransferRequest request) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CompletableFuture<Boolean> commit(NetworkNode node, ValidationCommitRequest request) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CompletableFuture<Boolean> rollback(NetworkNode node, ValidationPrepareTransferRequest request) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CompletableFuture<Boolean> rollback(NetworkNode node, ValidationPrepareBatchRequest request) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CompletableFuture<GetBalanceResponse> getBalance(NetworkNode node, GetBalanceRequest request) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CompletableFuture<GetBalancesResponse> getBalances(NetworkNode node, GetBalancesRequest request) {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+}
@@ -0,0 +1,75 @@
+package io.zdp.node;
+
+import org.junit.Test;
+
+import io.zdp.node.network.validation.QuorumPolicy;
+import io.zdp.node.network.validation.QuorumPolicy.Mode;
+import junit.framework.TestCase;
+
+public class TestQuorumPolicy extends TestCase {
+
+	@Test
+	public void testAll() {
+
+		QuorumPolicy policy = QuorumPolicy.parse("all");
+
+		assertEquals(Mode.ALL, policy.getMode());
+		assertEquals(0, policy.getRequiredVotes(0));
+		assertEquals(1, policy.getRequiredVotes(1));
+
+		// every node that answers must approve, so one answer is enough to go on
+		assertEquals(1, policy.getRequiredVotes(7));
+		assertTrue(policy.isWaitForAll());
+
+	}
+
+	@Test
+	public void testMajority() {
+
+		QuorumPolicy policy = QuorumPolicy.parse(" MAJORITY ");
+
+		assertEquals(Mode.MAJORITY, policy.getMode());
+
+		// this node counts as one approval: 2 of 3, 3 of 4, 3 of 5
+		assertEquals(1, policy.getRequiredVotes(2));
+		assertEquals(2, policy.getRequiredVotes(3));
+		assertEquals(2, policy.getRequiredVotes(4));
+		assertEquals(0, policy.getRequiredVotes(0));
+
+		assertFalse(policy.isWaitForAll());
+
+	}
+
+	@Test
+	public void testFixed() {
+
+		QuorumPolicy policy = QuorumPolicy.parse("3");
+
+		assertEquals(Mode.FIXED, policy.getMode());
+		assertEquals(3, policy.getRequiredVotes(10));
+
+		// never more than there are nodes
+		assertEquals(2, policy.getRequiredVotes(2));
+
+	}
+
+	@Test
+	public void testUnknown() {
+
+		try {
+			QuorumPolicy.parse("most");
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		try {
+			QuorumPolicy.parse(null);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+	}
+
+}
@@ -0,0 +1,54 @@
+package io.zdp.node;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import io.zdp.node.storage.transfer.service.TransferUuidFilter;
+import junit.framework.TestCase;
+
+public class TestTransferUuidFilter extends TestCase {
+
+	@Test
+	public void testNoFalseNegativesWhileGrowing() {
+
+		TransferUuidFilter filter = new TransferUuidFilter(1024, 0.01);
+
+		for (int i = 0; i < 10000; i++) {
+			filter.put(uuid(i));
+		}
+
+		assertTrue(filter.getStages() > 1);
+
+		for (int i = 0; i < 10000; i++) {
+			assertTrue("uuid " + i, filter.mightContain(uuid(i)));
+		}
+
+	}
+
+	@Test
+	public void testFalsePositiveRate() {
+
+		TransferUuidFilter filter = new TransferUuidFilter(1024, 0.01);
+
+		for (int i = 0; i < 10000; i++) {
+			filter.put(uuid(i));
+		}
+
+		int falsePositives = 0;
+
+		for (int i = 10000; i < 110000; i++) {
+			if (filter.mightContain(uuid(i))) {
+				falsePositives++;
+			}
+		}
+
+		assertTrue("false positives: " + falsePositives, falsePositives < 2000);
+
+	}
+
+	private static byte[] uuid(int i) {
+		return ByteBuffer.allocate(20).putInt(i).putInt(16, ~i).array();
+	}
+
+}
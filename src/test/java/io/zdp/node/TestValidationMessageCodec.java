@@ -0,0 +1,218 @@
+package io.zdp.node;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import io.zdp.node.storage.account.domain.Account;
+import io.zdp.node.storage.transfer.domain.CurrentTransfer;
+import io.zdp.node.web.api.validation.model.ValidationCommitRequest;
+import io.zdp.node.web.api.validation.model.ValidationMessageCodec;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchResponse;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferResponse;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferResponse.Status;
+import junit.framework.TestCase;
+
+public class TestValidationMessageCodec extends TestCase {
+
+	@Test
+	public void testPrepareRequest() {
+
+		ValidationPrepareTransferRequest req = prepareRequest("tx1");
+		req.setSignedRequest(new byte[] { 1, 2, 3 });
+
+		byte[] data = ValidationMessageCodec.encode(req);
+
+		ValidationPrepareTransferRequest decoded = ValidationMessageCodec.decodePrepareRequest(data);
+
+		assertEquals(req.getRequestUuid(), decoded.getRequestUuid());
+		assertEquals(req.getServerUuid(), decoded.getServerUuid());
+		assertTrue(Arrays.equals(req.getFromAccountHash(), decoded.getFromAccountHash()));
+		assertTrue(Arrays.equals(req.getToAccountHash(), decoded.getToAccountHash()));
+		assertEquals(req.getTransferUuid(), decoded.getTransferUuid());
+		assertNull(decoded.getLockUuid());
+		assertEquals("tx1", decoded.getLockOwner());
+		assertTrue(Arrays.equals(req.getSignedRequest(), decoded.getSignedRequest()));
+
+		// signature is not part of the signed bytes
+		assertTrue(Arrays.equals(ValidationMessageCodec.toSignedBytes(req), ValidationMessageCodec.toSignedBytes(decoded)));
+
+		// non-uuid request ids survive too
+		req.setRequestUuid("not-a-uuid");
+		assertEquals("not-a-uuid", ValidationMessageCodec.decodePrepareRequest(ValidationMessageCodec.encode(req)).getRequestUuid());
+
+	}
+
+	@Test
+	public void testPrepareResponse() {
+
+		ValidationPrepareTransferResponse resp = new ValidationPrepareTransferResponse();
+		resp.setStatus(Status.APPROVED);
+		resp.setFromAccount(account((byte) 1, "12.34567891"));
+
+		ValidationPrepareTransferResponse decoded = ValidationMessageCodec.decodePrepareResponse(ValidationMessageCodec.encode(resp));
+
+		assertEquals(Status.APPROVED, decoded.getStatus());
+		assertNull(decoded.getToAccount());
+		assertEquals(resp.getFromAccount().getUuid(), decoded.getFromAccount().getUuid());
+		assertEquals(resp.getFromAccount().getBalanceRaw(), decoded.getFromAccount().getBalanceRaw());
+		assertEquals(resp.getFromAccount().getHeight(), decoded.getFromAccount().getHeight());
+		assertEquals(resp.getFromAccount().getCurve(), decoded.getFromAccount().getCurve());
+		assertTrue(Arrays.equals(resp.getFromAccount().getTransferHash(), decoded.getFromAccount().getTransferHash()));
+
+	}
+
+	@Test
+	public void testBatchRequest() {
+
+		ValidationPrepareBatchRequest batch = new ValidationPrepareBatchRequest();
+		batch.setServerUuid("node-1");
+		batch.getRequests().add(prepareRequest("tx1"));
+		batch.getRequests().add(prepareRequest("tx2"));
+
+		batch.getRequests().forEach(r -> r.setLockUuid("group-1"));
+
+		ValidationPrepareBatchRequest decoded = ValidationMessageCodec.decodePrepareBatchRequest(ValidationMessageCodec.encode(batch));
+
+		assertEquals(2, decoded.getRequests().size());
+		assertEquals("tx2", decoded.getRequests().get(1).getTransferUuid());
+		assertEquals("group-1", decoded.getRequests().get(1).getLockOwner());
+		assertTrue(Arrays.equals(ValidationMessageCodec.toSignedBytes(batch), ValidationMessageCodec.toSignedBytes(decoded)));
+
+	}
+
+	@Test
+	public void testCommitRequest() {
+
+		CurrentTransfer transfer = new CurrentTransfer();
+		transfer.setUuid("tx1");
+		transfer.setFrom("from");
+		transfer.setTo("to");
+		transfer.setDate(1234567890L);
+		transfer.setAmount(150000000L);
+		transfer.setFee(1000000L);
+
+		ValidationCommitRequest req = new ValidationCommitRequest();
+		req.setServerUuid("node-1");
+		req.setTransfer(transfer);
+		req.setTransferSignature(new byte[] { 9, 8, 7 });
+		req.setFromAccount(account((byte) 1, "100"));
+		req.setToAccount(account((byte) 2, "0.00000001"));
+		req.setRequestSignature(new byte[] { 4, 5 });
+		req.setLockUuid("group-1");
+
+		ValidationCommitRequest decoded = ValidationMessageCodec.decodeCommitRequest(ValidationMessageCodec.encode(req));
+
+		assertEquals(req.getRequestUuid(), decoded.getRequestUuid());
+		assertEquals(transfer, decoded.getTransfer());
+		assertEquals(transfer.getDate(), decoded.getTransfer().getDate());
+		assertEquals(transfer.getMemo(), decoded.getTransfer().getMemo());
+		assertEquals(transfer.getAmount(), decoded.getTransfer().getAmount());
+		assertEquals(transfer.getFee(), decoded.getTransfer().getFee());
+		assertEquals("group-1", decoded.getLockOwner());
+		assertEquals(req.getToAccount().getBalanceRaw(), decoded.getToAccount().getBalanceRaw());
+		assertTrue(Arrays.equals(req.getRequestSignature(), decoded.getRequestSignature()));
+		assertTrue(Arrays.equals(ValidationMessageCodec.toSignedBytes(req), ValidationMessageCodec.toSignedBytes(decoded)));
+
+	}
+
+	@Test
+	public void testTruncated() {
+
+		byte[] data = ValidationMessageCodec.encode(prepareRequest("tx1"));
+
+		try {
+			ValidationMessageCodec.decodePrepareRequest(Arrays.copyOf(data, data.length - 1));
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		try {
+			ValidationMessageCodec.decodeCommitRequest(data);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+	}
+
+	@Test
+	public void testInvalidCount() {
+
+		byte[] data = ValidationMessageCodec.encode(new ValidationPrepareBatchResponse());
+
+		// count follows version and message type
+		data[2] = (byte) 0xFF;
+
+		try {
+			ValidationMessageCodec.decodePrepareBatchResponse(data);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		ValidationPrepareBatchRequest batch = new ValidationPrepareBatchRequest();
+		batch.setServerUuid("node-1");
+
+		data = ValidationMessageCodec.encode(batch);
+
+		// count of an empty batch sits before the null signature, claim far more requests than there are bytes
+		data[data.length - 6] = 0x7F;
+
+		try {
+			ValidationMessageCodec.decodePrepareBatchRequest(data);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+	}
+
+	@Test
+	public void testUnknownStatus() {
+
+		byte[] data = ValidationMessageCodec.encode(new ValidationPrepareTransferResponse(Status.APPROVED));
+
+		// status follows version and message type
+		data[2] = 127;
+
+		try {
+			ValidationMessageCodec.decodePrepareResponse(data);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+	}
+
+	private static ValidationPrepareTransferRequest prepareRequest(String transferUuid) {
+		ValidationPrepareTransferRequest req = new ValidationPrepareTransferRequest();
+		req.setServerUuid("node-1");
+		req.setFromAccountHash(hash((byte) 1));
+		req.setToAccountHash(hash((byte) 2));
+		req.setTransferUuid(transferUuid);
+		return req;
+	}
+
+	private static byte[] hash(byte seed) {
+		byte[] hash = new byte[20];
+		Arrays.fill(hash, seed);
+		return hash;
+	}
+
+	private static Account account(byte seed, String balance) {
+		byte[] uuid = hash(seed);
+		Account a = new Account();
+		a.setUuid(uuid);
+		a.setBalance(new BigDecimal(balance));
+		a.setHeight(seed * 10);
+		a.setCurve(1);
+		a.setTransferHash(new byte[20]);
+		return a;
+	}
+
+}
@@ -0,0 +1,294 @@
+package io.zdp.node;
+
+import java.net.ConnectException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.zdp.api.model.v1.GetBalanceRequest;
+import io.zdp.api.model.v1.GetBalanceResponse;
+import io.zdp.crypto.Curves;
+import io.zdp.crypto.key.ZDPKeyPair;
+import io.zdp.model.network.NetworkNode;
+import io.zdp.node.domain.ValidatedTransferRequest;
+import io.zdp.node.network.validation.MerkleBatchSigner;
+import io.zdp.node.network.validation.NetworkValidationTopologyService;
+import io.zdp.node.network.validation.NodeCircuitBreaker;
+import io.zdp.node.network.validation.PeerLatencyTracker;
+import io.zdp.node.network.validation.PrepareBatcher;
+import io.zdp.node.network.validation.ValidationNetworkClient;
+import io.zdp.node.network.validation.ValidationTransport;
+import io.zdp.node.service.NodeConfigurationService;
+import io.zdp.node.storage.account.domain.Account;
+import io.zdp.node.web.api.client.model.GetBalancesRequest;
+import io.zdp.node.web.api.client.model.GetBalancesResponse;
+import io.zdp.node.web.api.validation.model.ValidationCommitRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareBatchResponse;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferRequest;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferResponse;
+import io.zdp.node.web.api.validation.model.ValidationPrepareTransferResponse.Status;
+import junit.framework.TestCase;
+
+public class TestValidationNetworkClient extends TestCase {
+
+	@Test
+	public void testAllIgnoresUnreachableNode() throws Exception {
+
+		NetworkNode down = node("down");
+
+		PrepareTransport transport = new PrepareTransport(n -> n == down ? failed(new ConnectException("refused")) : vote(Status.APPROVED));
+
+		NodeCircuitBreaker breaker = breaker();
+
+		ValidationNetworkClient client = client("ALL", transport, breaker, node("n1"), node("n2"), down);
+
+		try {
+
+			assertEquals(Status.APPROVED, client.prepare(transfer()).getStatus());
+
+			// asked, but its failure does not count as a rejection
+			assertTrue(transport.nodes.contains("down"));
+
+		} finally {
+			client.close();
+			breaker.close();
+		}
+
+	}
+
+	@Test
+	public void testAllRejectsOnAnyRejection() throws Exception {
+
+		NetworkNode locked = node("locked");
+
+		PrepareTransport transport = new PrepareTransport(n -> vote(n == locked ? Status.ACCOUNT_LOCKED : Status.APPROVED));
+
+		NodeCircuitBreaker breaker = breaker();
+
+		ValidationNetworkClient client = client("ALL", transport, breaker, node("n1"), locked, node("n2"));
+
+		try {
+			assertEquals(Status.REJECTED, client.prepare(transfer()).getStatus());
+		} finally {
+			client.close();
+			breaker.close();
+		}
+
+	}
+
+	@Test
+	public void testAllNeedsAnAnswer() throws Exception {
+
+		PrepareTransport transport = new PrepareTransport(n -> failed(new ConnectException("refused")));
+
+		NodeCircuitBreaker breaker = breaker();
+
+		ValidationNetworkClient client = client("ALL", transport, breaker, node("n1"), node("n2"));
+
+		try {
+			assertEquals(Status.REJECTED, client.prepare(transfer()).getStatus());
+		} finally {
+			client.close();
+			breaker.close();
+		}
+
+	}
+
+	@Test
+	public void testOpenCircuitNotAsked() throws Exception {
+
+		NetworkNode down = node("down");
+
+		PrepareTransport transport = new PrepareTransport(n -> vote(Status.APPROVED));
+
+		NodeCircuitBreaker breaker = breaker();
+		breaker.onFailure(down);
+
+		ValidationNetworkClient client = client("ALL", transport, breaker, node("n1"), down);
+
+		try {
+
+			assertEquals(Status.APPROVED, client.prepare(transfer()).getStatus());
+
+			assertEquals(Arrays.asList("n1"), transport.nodes);
+
+		} finally {
+			client.close();
+			breaker.close();
+		}
+
+	}
+
+	@Test
+	public void testLatestAccounts() throws Exception {
+
+		NetworkNode n1 = node("n1");
+
+		// n1 saw the newer from account, n2 the newer to account
+		PrepareTransport transport = new PrepareTransport(n -> {
+			ValidationPrepareTransferResponse resp = new ValidationPrepareTransferResponse(Status.APPROVED);
+			resp.setFromAccount(account(n == n1 ? 7 : 6));
+			resp.setToAccount(account(n == n1 ? 2 : 3));
+			return CompletableFuture.completedFuture(resp);
+		});
+
+		NodeCircuitBreaker breaker = breaker();
+
+		ValidationNetworkClient client = client("ALL", transport, breaker, n1, node("n2"));
+
+		try {
+
+			ValidatedTransferRequest req = transfer();
+			req.setFromAccount(account(5));
+			req.setToAccount(account(1));
+
+			ValidationPrepareTransferResponse resp = client.prepare(req);
+
+			assertEquals(Status.APPROVED, resp.getStatus());
+			assertEquals(7, resp.getFromAccount().getHeight());
+			assertEquals(3, resp.getToAccount().getHeight());
+
+			// as loaded, still needed to save the transfer
+			assertEquals(5, req.getFromAccount().getHeight());
+			assertEquals(1, req.getToAccount().getHeight());
+
+		} finally {
+			client.close();
+			breaker.close();
+		}
+
+	}
+
+	private static ValidationNetworkClient client(String quorum, ValidationTransport transport, NodeCircuitBreaker breaker, NetworkNode... nodes) {
+
+		NetworkValidationTopologyService topology = new NetworkValidationTopologyService() {
+			@Override
+			public List<NetworkNode> getNodes() {
+				return Arrays.asList(nodes);
+			}
+		};
+
+		NodeConfigurationService nodeConfig = new NodeConfigurationService();
+		ReflectionTestUtils.setField(nodeConfig, "node", node("local"));
+
+		PeerLatencyTracker tracker = new PeerLatencyTracker();
+		ReflectionTestUtils.setField(tracker, "timeout", 5000L);
+		ReflectionTestUtils.setField(tracker, "deadlineFactor", 3.0);
+		ReflectionTestUtils.setField(tracker, "minDeadline", 50L);
+
+		ValidationNetworkClient client = new ValidationNetworkClient();
+		ReflectionTestUtils.setField(client, "networkNodeService", topology);
+		ReflectionTestUtils.setField(client, "transport", transport);
+		ReflectionTestUtils.setField(client, "prepareBatcher", new PrepareBatcher());
+		ReflectionTestUtils.setField(client, "merkleSigner", new MerkleBatchSigner());
+		ReflectionTestUtils.setField(client, "latencyTracker", tracker);
+		ReflectionTestUtils.setField(client, "circuitBreaker", breaker);
+		ReflectionTestUtils.setField(client, "nodeConfig", nodeConfig);
+		ReflectionTestUtils.setField(client, "timeout", 5000L);
+		ReflectionTestUtils.setField(client, "quorum", quorum);
+		client.init();
+
+		return client;
+
+	}
+
+	private static NodeCircuitBreaker breaker() {
+		NodeCircuitBreaker breaker = new NodeCircuitBreaker();
+		ReflectionTestUtils.setField(breaker, "failureThreshold", 1);
+		ReflectionTestUtils.setField(breaker, "openPeriod", 60000L);
+		ReflectionTestUtils.setField(breaker, "timeout", 5000L);
+		breaker.init();
+		return breaker;
+	}
+
+	private static ValidatedTransferRequest transfer() {
+		ValidatedTransferRequest req = new ValidatedTransferRequest();
+		req.setFromAccountUuid(ZDPKeyPair.createRandom(Curves.DEFAULT_CURVE).getZDPAccount());
+		req.setToAccountUuid(ZDPKeyPair.createRandom(Curves.DEFAULT_CURVE).getZDPAccount());
+		req.setTransactionUuid("t1");
+		return req;
+	}
+
+	private static Account account(long height) {
+		Account a = new Account();
+		a.setUuid(new byte[] { 1 });
+		a.setBalanceRaw(height * 100);
+		a.setHeight(height);
+		a.setTransferHash(new byte[] { (byte) height });
+		return a;
+	}
+
+	private static NetworkNode node(String uuid) {
+		NetworkNode node = new NetworkNode();
+		node.setUuid(uuid);
+		return node;
+	}
+
+	private static CompletableFuture<ValidationPrepareTransferResponse> vote(Status status) {
+		return CompletableFuture.completedFuture(new ValidationPrepareTransferResponse(status));
+	}
+
+	private static <T> CompletableFuture<T> failed(Throwable e) {
+		CompletableFuture<T> f = new CompletableFuture<>();
+		f.completeExceptionally(e);
+		return f;
+	}
+
+	/**
+	 * Answers single prepares only, records the nodes asked in the order asked
+	 */
+	private static class PrepareTransport implements ValidationTransport {
+
+		private final Function<NetworkNode, CompletableFuture<ValidationPrepareTransferResponse>> prepare;
+
+		private final List<String> nodes = new CopyOnWriteArrayList<>();
+
+		private PrepareTransport(Function<NetworkNode, CompletableFuture<ValidationPrepareTransferResponse>> prepare) {
+			this.prepare = prepare;
+		}
+
+		@Override
+		public CompletableFuture<ValidationPrepareTransferResponse> prepare(NetworkNode node, ValidationPrepareTransferRequest request) {
+			nodes.add(node.getUuid());
+			return prepare.apply(node);
+		}
+
+		@Override
+		public CompletableFuture<ValidationPrepareBatchResponse> prepare(NetworkNode node, ValidationPrepareBatchRequest request) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CompletableFuture<Boolean> commit(NetworkNode node, ValidationCommitRequest request) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CompletableFuture<Boolean> rollback(NetworkNode node, ValidationPrepareTransferRequest request) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CompletableFuture<Boolean> rollback(NetworkNode node, ValidationPrepareBatchRequest request) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CompletableFuture<GetBalanceResponse> getBalance(NetworkNode node, GetBalanceRequest request) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CompletableFuture<GetBalancesResponse> getBalances(NetworkNode node, GetBalancesRequest request) {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+}